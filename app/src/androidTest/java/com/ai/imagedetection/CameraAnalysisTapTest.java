@@ -0,0 +1,90 @@
+package com.ai.imagedetection;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.CameraAnalysisTap;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The tap without a camera: frames offered directly and analysed on the calling thread. Runs on a
+ * device because the ring buffers are native Mats.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CameraAnalysisTapTest {
+    private final List<Integer> analysed = new ArrayList<>();
+
+    @BeforeClass
+    public static void loadOpenCV() {
+        assertTrue(OpenCVLoader.initDebug());
+    }
+
+    private CameraAnalysisTap tap() {
+        // the ring buffer is only valid during the call, remember what it showed
+        return new CameraAnalysisTap(frame -> analysed.add((int) frame.get(0, 0)[0]), "test");
+    }
+
+    private static boolean offer(CameraAnalysisTap tap, int value) {
+        Mat frame = new Mat(4, 4, CvType.CV_8UC1, new Scalar(value));
+        try {
+            return tap.offer(frame);
+        } finally {
+            frame.release();
+        }
+    }
+
+    @Test
+    public void analysesNewestOfferedFrame() {
+        CameraAnalysisTap tap = tap();
+        try {
+            assertFalse(tap.analyzeLatest());
+            assertTrue(offer(tap, 1));
+            assertTrue(offer(tap, 2));
+            assertTrue(tap.analyzeLatest());
+            // the older frame was dropped, not delivered after the newer one
+            assertFalse(tap.analyzeLatest());
+            assertTrue(offer(tap, 3));
+            assertTrue(tap.analyzeLatest());
+
+            assertEquals(Arrays.asList(2, 3), analysed);
+            assertEquals(3, tap.getFrameCount());
+            assertEquals(2, tap.getAnalyzedFrameCount());
+            assertEquals(1, tap.getDroppedFrameCount());
+        } finally {
+            tap.close();
+        }
+    }
+
+    @Test
+    public void keepsUpWhenOfferedFasterThanAnalysed() {
+        CameraAnalysisTap tap = tap();
+        try {
+            for (int i = 0; i < 10; i++) assertTrue(offer(tap, i));
+            assertTrue(tap.analyzeLatest());
+            assertEquals(Arrays.asList(9), analysed);
+            assertEquals(9, tap.getDroppedFrameCount());
+        } finally {
+            tap.close();
+        }
+    }
+
+    @Test
+    public void closedTapRefusesFrames() {
+        CameraAnalysisTap tap = tap();
+        tap.close();
+        assertFalse(offer(tap, 1));
+        assertFalse(tap.analyzeLatest());
+        assertTrue(analysed.isEmpty());
+    }
+}
@@ -0,0 +1,171 @@
+package com.ai.imagedetection;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatPool;
+import org.opencv.core.MatScope;
+
+import static org.junit.Assert.*;
+
+/**
+ * MatPool reuse, trimming and accounting on real Mats. Runs on a device because the pooled Mats are
+ * native.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MatPoolTest {
+
+    @BeforeClass
+    public static void loadOpenCV() {
+        assertTrue(OpenCVLoader.initDebug());
+    }
+
+    @Test
+    public void leaseReusesTheWarmestRecycledMat() {
+        MatPool pool = new MatPool(8, 1 << 20);
+        Mat a = pool.lease(10, 10, CvType.CV_8UC1);
+        Mat b = pool.lease(10, 10, CvType.CV_8UC1);
+        assertNotSame(a, b);
+        pool.recycle(a);
+        pool.recycle(b);
+        assertEquals(2, pool.getRetainedCount());
+        assertEquals(200, pool.getRetainedBytes());
+
+        assertSame(b, pool.lease(10, 10, CvType.CV_8UC1));
+        assertSame(a, pool.lease(10, 10, CvType.CV_8UC1));
+        assertFalse(a.empty());
+        assertEquals(0, pool.getRetainedCount());
+        assertEquals(0, pool.getRetainedBytes());
+
+        // another shape or type is never served by these
+        pool.recycle(a);
+        Mat other = pool.lease(10, 10, CvType.CV_8UC3);
+        assertNotSame(a, other);
+        assertEquals(1, pool.getRetainedCount());
+        pool.clear();
+        other.release();
+        b.release();
+    }
+
+    @Test
+    public void hitRateCountsLeasesServedFromThePool() {
+        MatPool pool = new MatPool(8, 1 << 20);
+        assertEquals(0, pool.getHitRate(), 0);
+        Mat m = pool.lease(4, 4, CvType.CV_32F);
+        assertEquals(1, pool.getLeaseCount());
+        assertEquals(0, pool.getHitCount());
+        pool.recycle(m);
+        pool.recycle(pool.lease(4, 4, CvType.CV_32F));
+        pool.recycle(pool.lease(4, 4, CvType.CV_32F));
+        Mat miss = pool.lease(5, 4, CvType.CV_32F);
+        assertEquals(4, pool.getLeaseCount());
+        assertEquals(2, pool.getHitCount());
+        assertEquals(0.5, pool.getHitRate(), 1e-9);
+        miss.release();
+        pool.clear();
+    }
+
+    @Test
+    public void trimsOldestByCount() {
+        MatPool pool = new MatPool(2, 1 << 20);
+        Mat first = pool.lease(8, 8, CvType.CV_8UC1);
+        Mat second = pool.lease(8, 8, CvType.CV_8UC1);
+        Mat third = pool.lease(16, 8, CvType.CV_8UC1);
+        pool.recycle(first);
+        pool.recycle(second);
+        pool.recycle(third);
+        assertEquals(2, pool.getRetainedCount());
+        assertEquals(1, pool.getTrimmedCount());
+        assertEquals(64 + 128, pool.getRetainedBytes());
+        // the least recently returned one went, whatever its shape
+        assertTrue(first.empty());
+        assertFalse(second.empty());
+        assertSame(second, pool.lease(8, 8, CvType.CV_8UC1));
+        second.release();
+        pool.clear();
+        assertTrue(third.empty());
+        assertEquals(0, pool.getRetainedCount());
+    }
+
+    @Test
+    public void trimsOldestByBytes() {
+        MatPool pool = new MatPool(10, 250);
+        Mat[] mats = new Mat[3];
+        for (int i = 0; i < mats.length; i++)
+            mats[i] = pool.lease(10, 10, CvType.CV_8UC1);
+        for (Mat m : mats)
+            pool.recycle(m);
+        assertEquals(2, pool.getRetainedCount());
+        assertEquals(200, pool.getRetainedBytes());
+        assertTrue(mats[0].empty());
+
+        // larger than the whole budget: not kept at all, and it pushes everything else out
+        Mat big = pool.lease(20, 20, CvType.CV_8UC1);
+        pool.recycle(big);
+        assertTrue(big.empty());
+        assertEquals(0, pool.getRetainedCount());
+        assertEquals(0, pool.getRetainedBytes());
+        assertEquals(4, pool.getTrimmedCount());
+    }
+
+    @Test
+    public void recyclingTwiceKeepsOneEntry() {
+        MatPool pool = new MatPool(8, 1 << 20);
+        Mat m = pool.lease(6, 6, CvType.CV_8UC1);
+        pool.recycle(m);
+        pool.recycle(m);
+        assertEquals(1, pool.getRetainedCount());
+        assertEquals(36, pool.getRetainedBytes());
+        // so it is not handed out to two callers
+        Mat a = pool.lease(6, 6, CvType.CV_8UC1);
+        Mat b = pool.lease(6, 6, CvType.CV_8UC1);
+        assertSame(m, a);
+        assertNotSame(a, b);
+        a.release();
+        b.release();
+    }
+
+    @Test
+    public void viewsAndEmptyMatsAreReleasedNotKept() {
+        MatPool pool = new MatPool(8, 1 << 20);
+        Mat m = pool.lease(10, 10, CvType.CV_8UC1);
+        Mat rows = m.rowRange(2, 4);    // continuous, but a view
+        Mat cols = m.colRange(2, 4);    // not even continuous
+        pool.recycle(rows);
+        pool.recycle(cols);
+        pool.recycle(new Mat());
+        pool.recycle(null);
+        assertTrue(rows.empty());
+        assertTrue(cols.empty());
+        assertEquals(0, pool.getRetainedCount());
+        assertFalse(m.empty());
+
+        pool.recycle(m);
+        assertEquals(1, pool.getRetainedCount());
+        pool.clear();
+        assertTrue(m.empty());
+    }
+
+    @Test
+    public void leasedMatsOutliveAScope() {
+        MatPool pool = new MatPool(8, 1 << 20);
+        Mat m;
+        try (MatScope scope = MatScope.open()) {
+            m = pool.lease(3, 3, CvType.CV_8UC1);
+            assertEquals(0, scope.size());
+        }
+        assertFalse(m.empty());
+        pool.recycle(m);
+        pool.clear();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyShapes() {
+        new MatPool(8, 1 << 20).lease(0, 10, CvType.CV_8UC1);
+    }
+}
@@ -0,0 +1,90 @@
+package com.ai.imagedetection;
+
+import android.graphics.Bitmap;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+
+import static org.junit.Assert.*;
+
+/**
+ * A scan of a camera frame's Mats: they are used as they are, never copied or released.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScanImageTest {
+
+    @BeforeClass
+    public static void loadOpenCV() {
+        assertTrue(OpenCVLoader.initDebug());
+    }
+
+    @Test
+    public void scanOfMatsUsesThemAsTheyAre() {
+        Mat rgba = new Mat(48, 64, CvType.CV_8UC4, new Scalar(10, 20, 30, 255));
+        Mat gray = new Mat();
+        Imgproc.cvtColor(rgba, gray, Imgproc.COLOR_RGBA2GRAY);
+        try {
+            ScanImage scan = ScanImage.of(rgba, gray);
+            assertFalse(scan.hasBitmap());
+            assertNull(scan.bitmap());
+            assertEquals(64, scan.width());
+            assertEquals(48, scan.height());
+            assertSame(rgba, scan.rgba());
+            assertSame(gray, scan.gray());
+
+            Bitmap scaled = scan.scaled(16, 12);
+            assertEquals(16, scaled.getWidth());
+            assertEquals(12, scaled.getHeight());
+            assertEquals(0xFF0A141E, scaled.getPixel(5, 5));
+            assertSame(scaled, scan.scaled(16, 12));
+
+            int[] argb = scan.argb();
+            assertEquals(64 * 48, argb.length);
+            assertEquals(0xFF0A141E, argb[100]);
+            assertEquals(2, scan.conversions()); // the scaled bitmap and the ints, the Mats were given
+
+            scan.close();
+            assertFalse(rgba.empty());
+            assertFalse(gray.empty());
+        } finally {
+            rgba.release();
+            gray.release();
+        }
+    }
+
+    @Test
+    public void grayIsMadeAndOwnedWhenNotGiven() {
+        Mat rgba = new Mat(8, 8, CvType.CV_8UC4, new Scalar(50, 50, 50, 255));
+        try {
+            ScanImage scan = ScanImage.of(rgba, null);
+            Mat gray = scan.gray();
+            assertEquals(CvType.CV_8UC1, gray.type());
+            assertEquals(50, (int) gray.get(0, 0)[0]);
+            scan.close();
+            assertTrue(gray.empty());
+            assertFalse(rgba.empty());
+        } finally {
+            rgba.release();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void grayMustMatchRgba() {
+        Mat rgba = new Mat(8, 8, CvType.CV_8UC4);
+        Mat gray = new Mat(4, 4, CvType.CV_8UC1);
+        try {
+            ScanImage.of(rgba, gray);
+        } finally {
+            rgba.release();
+            gray.release();
+        }
+    }
+}
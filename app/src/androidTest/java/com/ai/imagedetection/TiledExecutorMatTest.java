@@ -0,0 +1,175 @@
+package com.ai.imagedetection;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.core.TiledExecutor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * TiledExecutor.forMat() on real Mats: the band submats, their halos and the reduction order, and
+ * the Mat heuristics against the ARGB ones on the same pixels. Runs on a device because the bands
+ * are native submats.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TiledExecutorMatTest {
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @BeforeClass
+    public static void loadOpenCV() {
+        assertTrue(OpenCVLoader.initDebug());
+    }
+
+    @AfterClass
+    public static void shutDown() {
+        pool.shutdown();
+    }
+
+    // row y filled with y, so a band's first mat row tells which source row it views
+    private static Mat rowNumbers(int rows, int cols) {
+        Mat m = new Mat(rows, cols, CvType.CV_8UC1);
+        byte[] row = new byte[cols];
+        for (int y = 0; y < rows; y++) {
+            Arrays.fill(row, (byte) y);
+            m.put(y, 0, row);
+        }
+        return m;
+    }
+
+    @Test
+    public void bandsViewTheirRowsAndHalo() {
+        TiledExecutor executor = new TiledExecutor(pool, 8);
+        int rows = 50, halo = 3;
+        Mat src = rowNumbers(rows, 7);
+        try {
+            List<int[]> bands = executor.forMat(src, halo, band -> {
+                assertEquals(band.bottom - band.top, band.mat.rows());
+                assertEquals(7, band.mat.cols());
+                assertEquals(Math.max(0, band.y0 - halo), band.top);
+                assertEquals(Math.min(rows, band.y1 + halo), band.bottom);
+                // the submat starts at row top of the source, its own rows at offset()
+                assertEquals(band.top, (int) band.mat.get(0, 0)[0]);
+                assertEquals(band.y0, (int) band.mat.get(band.offset(), 0)[0]);
+                assertEquals(band.bottom - 1, (int) band.mat.get(band.mat.rows() - 1, 0)[0]);
+                // a view, not a copy
+                assertEquals(src.dataAddr() + (long) band.top * src.step1(), band.mat.dataAddr());
+                List<int[]> one = new ArrayList<>();
+                one.add(new int[]{band.index, band.y0, band.y1});
+                return one;
+            }, (upper, lower) -> {
+                upper.addAll(lower);
+                return upper;
+            });
+
+            assertEquals(executor.bandCount(rows), bands.size());
+            assertTrue(bands.size() > 1);
+            int next = 0;
+            for (int i = 0; i < bands.size(); i++) {
+                // reduced top to bottom, and together covering every row once
+                assertEquals(i, bands.get(i)[0]);
+                assertEquals(next, bands.get(i)[1]);
+                next = bands.get(i)[2];
+            }
+            assertEquals(rows, next);
+        } finally {
+            src.release();
+        }
+    }
+
+    @Test
+    public void singleBandIsTheSourceItself() {
+        TiledExecutor executor = new TiledExecutor(pool, 64);
+        Mat src = rowNumbers(20, 3);
+        try {
+            int seen = executor.forMat(src, 5, band -> {
+                assertSame(src, band.mat);
+                assertEquals(0, band.offset());
+                return band.rows();
+            }, Integer::sum);
+            assertEquals(20, seen);
+        } finally {
+            src.release();
+        }
+    }
+
+    // the same pixels as ARGB ints and as an RGBA Mat
+    private static int[] argb(int w, int h, long seed) {
+        Random random = new Random(seed);
+        int[] argb = new int[w * h];
+        for (int i = 0; i < argb.length; i++) argb[i] = 0xFF000000 | random.nextInt(0x1000000);
+        return argb;
+    }
+
+    private static Mat rgba(int[] argb, int w, int h) {
+        byte[] bytes = new byte[w * h * 4];
+        for (int i = 0; i < argb.length; i++) {
+            bytes[4 * i] = (byte) (argb[i] >> 16);
+            bytes[4 * i + 1] = (byte) (argb[i] >> 8);
+            bytes[4 * i + 2] = (byte) argb[i];
+            bytes[4 * i + 3] = (byte) (argb[i] >>> 24);
+        }
+        Mat m = new Mat(h, w, CvType.CV_8UC4);
+        m.put(0, 0, bytes);
+        return m;
+    }
+
+    @Test
+    public void matHeuristicsMatchArgbAcrossBandSizes() {
+        int w = 137, h = 101;
+        int[] argb = argb(w, h, 7);
+        Mat rgba = rgba(argb, w, h);
+        try {
+            TiledExecutor serial = new TiledExecutor(pool, 1000);
+            double variance = ImageHeuristics.grayVariance(argb, w, h, serial);
+            float edges = ImageHeuristics.edgeDensity(argb, w, h, serial);
+            for (int minBandRows : new int[]{1, 8, 32, 1000}) {
+                TiledExecutor executor = new TiledExecutor(pool, minBandRows);
+                assertEquals(variance, ImageHeuristics.grayVariance(rgba, executor), 1e-6);
+                assertEquals(edges, ImageHeuristics.edgeDensity(rgba, executor), 1e-6f);
+            }
+            // a ROI of a larger Mat is not continuous, the bands must still only see its pixels
+            Mat padded = new Mat(h, w + 8, CvType.CV_8UC4, new Scalar(255, 0, 255, 255));
+            try {
+                Mat view = padded.colRange(4, 4 + w);
+                rgba.copyTo(view);
+                TiledExecutor executor = new TiledExecutor(pool, 8);
+                assertEquals(variance, ImageHeuristics.grayVariance(view, executor), 1e-6);
+                assertEquals(edges, ImageHeuristics.edgeDensity(view, executor), 1e-6f);
+                view.release();
+            } finally {
+                padded.release();
+            }
+        } finally {
+            rgba.release();
+        }
+    }
+
+    @Test
+    public void flatRgbaIsFlat() {
+        Mat flat = new Mat(64, 64, CvType.CV_8UC4, new Scalar(128, 128, 128, 255));
+        int[] noise = argb(64, 64, 1);
+        Mat noisy = rgba(noise, 64, 64);
+        try {
+            assertTrue(ImageHeuristics.isFlat(flat));
+            assertFalse(ImageHeuristics.isFlat(noisy));
+            assertEquals(ImageHeuristics.isFlat(noise, 64, 64), ImageHeuristics.isFlat(noisy));
+        } finally {
+            flat.release();
+            noisy.release();
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.ai.imagedetection;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.utils.I420Staging;
+import org.opencv.utils.Yuv420Planes;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Yuv420Planes on synthetic planes of every layout, checked against cvtColor of the same samples
+ * packed as plain I420. Runs on a device because the planes are wrapped by native Mats.
+ */
+@RunWith(AndroidJUnit4.class)
+public class Yuv420PlanesTest {
+    private static final int W = 24, H = 16, CW = W / 2, CH = H / 2;
+    private static final int PADDING = 8;
+
+    private final I420Staging staging = new I420Staging();
+
+    @BeforeClass
+    public static void loadOpenCV() {
+        assertTrue(OpenCVLoader.initDebug());
+    }
+
+    @After
+    public void releaseStaging() {
+        staging.release();
+    }
+
+    private static int luma(int x, int y) {
+        return (x * 7 + y * 13) & 0xFF;
+    }
+
+    private static int u(int c, int r) {
+        return 64 + (c * 11 + r * 5) % 128;
+    }
+
+    private static int v(int c, int r) {
+        return 200 - (c * 3 + r * 9) % 128;
+    }
+
+    private static ByteBuffer direct(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.clear();
+        return buffer;
+    }
+
+    // plane buffers start at their first sample, like Image.Plane.getBuffer()
+    private static ByteBuffer slice(ByteBuffer buffer, int offset) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        return duplicate.slice();
+    }
+
+    private static ByteBuffer lumaPlane(int rowStride) {
+        byte[] bytes = new byte[rowStride * (H - 1) + W];
+        for (int y = 0; y < H; y++)
+            for (int x = 0; x < W; x++)
+                bytes[y * rowStride + x] = (byte) luma(x, y);
+        return direct(bytes);
+    }
+
+    // a chroma plane ending right after its last sample, as some devices hand them out
+    private static byte[] chromaBytes(boolean isU, int rowStride, int pixelStride) {
+        byte[] bytes = new byte[rowStride * (CH - 1) + (CW - 1) * pixelStride + 1];
+        for (int r = 0; r < CH; r++)
+            for (int c = 0; c < CW; c++)
+                bytes[r * rowStride + c * pixelStride] = (byte) (isU ? u(c, r) : v(c, r));
+        return bytes;
+    }
+
+    private static Yuv420Planes planes(int layout) {
+        Yuv420Planes planes = new Yuv420Planes();
+        int yStride = W + PADDING;
+        if (layout == Yuv420Planes.LAYOUT_NV12 || layout == Yuv420Planes.LAYOUT_NV21) {
+            // one buffer of interleaved pairs, U and V planes one byte apart
+            int stride = W + PADDING;
+            boolean nv12 = layout == Yuv420Planes.LAYOUT_NV12;
+            byte[] first = chromaBytes(nv12, stride, 2);
+            byte[] second = chromaBytes(!nv12, stride, 2);
+            byte[] pairs = new byte[first.length + 1];
+            for (int i = 0; i < first.length; i += 2) {
+                pairs[i] = first[i];
+                pairs[i + 1] = second[i];
+            }
+            ByteBuffer uv = direct(pairs);
+            ByteBuffer a = slice(uv, 0), b = slice(uv, 1);
+            return planes.set(W, H, lumaPlane(yStride), yStride, nv12 ? a : b, stride, 2, nv12 ? b : a, stride, 2);
+        }
+        int pixelStride = layout == Yuv420Planes.LAYOUT_I420 ? 1 : 2;
+        int stride = CW * pixelStride + PADDING;
+        return planes.set(W, H, lumaPlane(yStride), yStride,
+                direct(chromaBytes(true, stride, pixelStride)), stride, pixelStride,
+                direct(chromaBytes(false, stride, pixelStride)), stride, pixelStride);
+    }
+
+    private static Mat expectedPlane(boolean isU) {
+        Mat m = new Mat(CH, CW, CvType.CV_8UC1);
+        byte[] row = new byte[CW];
+        for (int r = 0; r < CH; r++) {
+            for (int c = 0; c < CW; c++)
+                row[c] = (byte) (isU ? u(c, r) : v(c, r));
+            m.put(r, 0, row);
+        }
+        return m;
+    }
+
+    // the same samples as tightly packed I420, converted the plain way
+    private static Mat expectedRgba() {
+        byte[] i420 = new byte[W * H * 3 / 2];
+        for (int y = 0; y < H; y++)
+            for (int x = 0; x < W; x++)
+                i420[y * W + x] = (byte) luma(x, y);
+        for (int r = 0; r < CH; r++) {
+            for (int c = 0; c < CW; c++) {
+                i420[W * H + r * CW + c] = (byte) u(c, r);
+                i420[W * H + CW * CH + r * CW + c] = (byte) v(c, r);
+            }
+        }
+        Mat packed = new Mat(H + H / 2, W, CvType.CV_8UC1);
+        packed.put(0, 0, i420);
+        Mat rgba = new Mat();
+        Imgproc.cvtColor(packed, rgba, Imgproc.COLOR_YUV2RGBA_I420, 4);
+        packed.release();
+        return rgba;
+    }
+
+    private static void assertSameMat(String what, Mat expected, Mat actual, double tolerance) {
+        assertEquals(what, expected.size(), actual.size());
+        assertEquals(what, expected.type(), actual.type());
+        assertTrue(what, Core.norm(expected, actual, Core.NORM_INF) <= tolerance);
+    }
+
+    @Test
+    public void detectsEachLayout() {
+        for (int layout = 0; layout < Yuv420Planes.LAYOUT_COUNT; layout++)
+            assertEquals(Yuv420Planes.layoutName(layout), layout, planes(layout).layout());
+
+        // interleaved planes in separate buffers can't be viewed as one pair
+        Yuv420Planes separate = new Yuv420Planes().set(W, H, lumaPlane(W), W,
+                direct(chromaBytes(true, W, 2)), W, 2, direct(chromaBytes(false, W, 2)), W, 2);
+        assertEquals(Yuv420Planes.LAYOUT_STRIDED, separate.layout());
+    }
+
+    @Test
+    public void toRgbaMatchesPackedI420() {
+        Mat expected = expectedRgba();
+        Rect[] rois = { null, new Rect(4, 2, 12, 8), new Rect(W - 8, H - 6, 8, 6) };
+        Mat rgba = new Mat();
+        try {
+            for (int layout = 0; layout < Yuv420Planes.LAYOUT_COUNT; layout++) {
+                Yuv420Planes planes = planes(layout);
+                for (Rect roi : rois) {
+                    String what = Yuv420Planes.layoutName(layout) + " " + roi;
+                    Rect r = roi != null ? roi : new Rect(0, 0, W, H);
+                    staging.ensure(r.width, r.height);
+                    planes.toRgba(layout, roi, staging, rgba);
+                    Mat expectedRoi = expected.submat(r);
+                    // two-plane and planar conversions may round differently by one
+                    assertSameMat(what, expectedRoi, rgba, 1);
+                    expectedRoi.release();
+                }
+            }
+        } finally {
+            rgba.release();
+            expected.release();
+        }
+    }
+
+    @Test
+    public void wrapChromaGivesTheRoiSamples() {
+        Mat expectedU = expectedPlane(true);
+        Mat expectedV = expectedPlane(false);
+        Rect roi = new Rect(W - 12, 4, 12, 8);
+        Rect chromaRoi = new Rect(roi.x / 2, roi.y / 2, roi.width / 2, roi.height / 2);
+        Mat uRoi = expectedU.submat(chromaRoi);
+        Mat vRoi = expectedV.submat(chromaRoi);
+        Mat channel = new Mat();
+        try {
+            for (int layout = 0; layout < Yuv420Planes.LAYOUT_COUNT; layout++) {
+                String what = Yuv420Planes.layoutName(layout);
+                staging.ensure(roi.width, roi.height);
+                Mat[] chroma = planes(layout).wrapChroma(layout, roi, staging);
+                if (layout == Yuv420Planes.LAYOUT_NV12 || layout == Yuv420Planes.LAYOUT_NV21) {
+                    // one CV_8UC2 view in plane order
+                    assertEquals(what, 1, chroma.length);
+                    assertEquals(what, CvType.CV_8UC2, chroma[0].type());
+                    boolean nv12 = layout == Yuv420Planes.LAYOUT_NV12;
+                    Core.extractChannel(chroma[0], channel, 0);
+                    assertSameMat(what, nv12 ? uRoi : vRoi, channel, 0);
+                    Core.extractChannel(chroma[0], channel, 1);
+                    assertSameMat(what, nv12 ? vRoi : uRoi, channel, 0);
+                } else {
+                    assertEquals(what, 2, chroma.length);
+                    assertSameMat(what, uRoi, chroma[0], 0);
+                    assertSameMat(what, vRoi, chroma[1], 0);
+                }
+                for (Mat m : chroma)
+                    m.release();
+            }
+        } finally {
+            channel.release();
+            uRoi.release();
+            vRoi.release();
+            expectedU.release();
+            expectedV.release();
+        }
+    }
+
+    @Test
+    public void stridedCopyStopsAtTheLastSample() {
+        Mat expectedU = expectedPlane(true);
+        // the buffer ends at the last sample: a pixelStride-wide pixel there would reach past the end
+        for (int pixelStride : new int[]{2, 3}) {
+            int stride = CW * pixelStride + 1;
+            byte[] bytes = chromaBytes(true, stride, pixelStride);
+            assertEquals(stride * (CH - 1) + (CW - 1) * pixelStride + 1, bytes.length);
+            ByteBuffer buffer = direct(bytes);
+            Rect[] rois = {
+                    new Rect(0, 0, CW, CH),          // whole plane, last column copied on its own
+                    new Rect(CW - 1, CH - 2, 1, 2),  // only the last column
+                    new Rect(1, 1, CW - 3, CH - 2),  // inside, no special column
+            };
+            for (Rect roi : rois) {
+                String what = "pixel stride " + pixelStride + " " + roi;
+                Mat dst = new Mat(roi.height, roi.width, CvType.CV_8UC1);
+                Yuv420Planes.copyChroma(buffer, stride, pixelStride, CW, CH, roi, dst);
+                Mat expectedRoi = expectedU.submat(roi);
+                assertSameMat(what, expectedRoi, dst, 0);
+                expectedRoi.release();
+                dst.release();
+            }
+        }
+        expectedU.release();
+    }
+}
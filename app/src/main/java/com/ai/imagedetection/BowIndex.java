@@ -0,0 +1,254 @@
+package com.ai.imagedetection;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Bag-of-visual-words retrieval over the reference images, used to shortlist brands before the
+ * expensive per-image ORB matching and geometric verification.
+ *
+ * OpenCV's BOWKMeansTrainer clusters CV_32F descriptors, which does not fit binary ORB, so the
+ * vocabulary is trained here with k-majority (k-means under Hamming distance with per-bit
+ * majority centroids). Each reference image is a document; documents are L2-normalised TF-IDF
+ * vectors kept in an inverted file so a query only touches the postings of its own words.
+ */
+public final class BowIndex {
+    public static final int DEFAULT_WORDS = 256;
+    private static final int TRAIN_ITERATIONS = 8;
+
+    private final long[] vocabulary; // packed like HammingMatcher, one row per word
+    private final int words;
+    private final int[] docBrand;
+    private final int brandCount;
+    private final float[] idf;
+    private final int[] postingStart; // CSR over words
+    private final int[] postingDoc;
+    private final float[] postingWeight;
+
+    private BowIndex(long[] vocabulary, int[] docBrand, int brandCount, float[] idf,
+                     int[] postingStart, int[] postingDoc, float[] postingWeight) {
+        this.vocabulary = vocabulary;
+        this.words = vocabulary.length / HammingMatcher.LANES;
+        this.docBrand = docBrand;
+        this.brandCount = brandCount;
+        this.idf = idf;
+        this.postingStart = postingStart;
+        this.postingDoc = postingDoc;
+        this.postingWeight = postingWeight;
+    }
+
+    public static BowIndex build(OrbDescriptorStore store) {
+        return build(store, DEFAULT_WORDS, 0x5eed);
+    }
+
+    public static BowIndex build(OrbDescriptorStore store, int words, long seed) {
+        long[] descriptors = HammingMatcher.pack(store.descriptors(), store.descriptorCount());
+        int[] docFirst = new int[store.imageCount() + 1];
+        int[] docBrand = new int[store.imageCount()];
+        for (int brand = 0; brand < store.brandCount(); brand++) {
+            int first = store.brandFirstImage(brand);
+            for (int image = first; image < first + store.brandImageCount(brand); image++) {
+                docBrand[image] = brand;
+            }
+        }
+        for (int image = 0; image < store.imageCount(); image++) {
+            docFirst[image] = store.imageFirstDescriptor(image);
+        }
+        docFirst[store.imageCount()] = store.descriptorCount();
+        return build(descriptors, docFirst, docBrand, store.brandCount(), words, seed);
+    }
+
+    /**
+     * @param docFirst   descriptor row where each document starts, plus a final end marker
+     * @param docBrand   brand of each document
+     */
+    static BowIndex build(long[] descriptors, int[] docFirst, int[] docBrand, int brandCount,
+                          int words, long seed) {
+        long[] vocabulary = trainVocabulary(descriptors, words, TRAIN_ITERATIONS, seed);
+        int n = descriptors.length / HammingMatcher.LANES;
+        int docs = docBrand.length;
+        words = vocabulary.length / HammingMatcher.LANES;
+
+        int[] assignment = new int[n];
+        for (int i = 0; i < n; i++) assignment[i] = nearestWord(vocabulary, words, descriptors, i);
+
+        // term frequencies per (doc, word) and document frequencies per word
+        int[][] tf = new int[docs][words];
+        int[] df = new int[words];
+        for (int doc = 0; doc < docs; doc++) {
+            for (int i = docFirst[doc]; i < docFirst[doc + 1]; i++) {
+                if (tf[doc][assignment[i]]++ == 0) df[assignment[i]]++;
+            }
+        }
+        float[] idf = new float[words];
+        for (int w = 0; w < words; w++) {
+            idf[w] = df[w] == 0 ? 0f : (float) Math.log((double) docs / df[w]);
+        }
+
+        int[] postingStart = new int[words + 1];
+        for (int w = 0; w < words; w++) postingStart[w + 1] = postingStart[w] + df[w];
+        int[] postingDoc = new int[postingStart[words]];
+        float[] postingWeight = new float[postingStart[words]];
+        int[] fill = new int[words];
+        for (int doc = 0; doc < docs; doc++) {
+            double norm = 0;
+            for (int w = 0; w < words; w++) {
+                double v = tf[doc][w] * idf[w];
+                norm += v * v;
+            }
+            float inv = norm > 0 ? (float) (1.0 / Math.sqrt(norm)) : 0f;
+            for (int w = 0; w < words; w++) {
+                if (tf[doc][w] == 0) continue;
+                int p = postingStart[w] + fill[w]++;
+                postingDoc[p] = doc;
+                postingWeight[p] = tf[doc][w] * idf[w] * inv;
+            }
+        }
+        return new BowIndex(vocabulary, docBrand, brandCount, idf, postingStart, postingDoc, postingWeight);
+    }
+
+    /** k-majority clustering: Hamming assignment, per-bit majority vote for the centroids. */
+    static long[] trainVocabulary(long[] descriptors, int words, int iterations, long seed) {
+        int n = descriptors.length / HammingMatcher.LANES;
+        words = Math.min(words, n);
+        long[] centroids = new long[words * HammingMatcher.LANES];
+        if (words == 0) return centroids;
+
+        // seed with distinct random rows
+        Random rnd = new Random(seed);
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        for (int i = 0; i < words; i++) {
+            int j = i + rnd.nextInt(n - i);
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+            System.arraycopy(descriptors, order[i] * HammingMatcher.LANES, centroids, i * HammingMatcher.LANES, HammingMatcher.LANES);
+        }
+
+        int[] assignment = new int[n];
+        int[][] bitVotes = new int[words][HammingMatcher.LANES * 64];
+        int[] members = new int[words];
+        for (int it = 0; it < iterations; it++) {
+            boolean changed = it == 0;
+            for (int i = 0; i < n; i++) {
+                int w = nearestWord(centroids, words, descriptors, i);
+                if (w != assignment[i]) changed = true;
+                assignment[i] = w;
+            }
+            if (!changed) break;
+
+            for (int[] votes : bitVotes) Arrays.fill(votes, 0);
+            Arrays.fill(members, 0);
+            for (int i = 0; i < n; i++) {
+                int w = assignment[i];
+                members[w]++;
+                int[] votes = bitVotes[w];
+                for (int l = 0; l < HammingMatcher.LANES; l++) {
+                    long bits = descriptors[i * HammingMatcher.LANES + l];
+                    while (bits != 0) {
+                        votes[l * 64 + Long.numberOfTrailingZeros(bits)]++;
+                        bits &= bits - 1;
+                    }
+                }
+            }
+            for (int w = 0; w < words; w++) {
+                if (members[w] == 0) continue; // keep the old centroid for empty clusters
+                for (int l = 0; l < HammingMatcher.LANES; l++) {
+                    long c = 0;
+                    for (int b = 0; b < 64; b++) {
+                        if (bitVotes[w][l * 64 + b] * 2 > members[w]) c |= 1L << b;
+                    }
+                    centroids[w * HammingMatcher.LANES + l] = c;
+                }
+            }
+        }
+        return centroids;
+    }
+
+    private static int nearestWord(long[] vocabulary, int words, long[] d, int row) {
+        int best = 0, bestDist = Integer.MAX_VALUE;
+        for (int w = 0; w < words; w++) {
+            int dist = HammingMatcher.distance(d, row, vocabulary, w);
+            if (dist < bestDist) {
+                bestDist = dist;
+                best = w;
+            }
+        }
+        return best;
+    }
+
+    public int words() {
+        return words;
+    }
+
+    public int documents() {
+        return docBrand.length;
+    }
+
+    /**
+     * Scores every brand against the query descriptors (cosine of TF-IDF vectors, best document
+     * per brand) and returns brand indices ordered by score, at most {@code limit} of them.
+     * Brands whose documents share no word with the query are left out.
+     */
+    public Shortlist shortlist(long[] query, int limit) {
+        int n = query.length / HammingMatcher.LANES;
+        int[] qtf = new int[words];
+        for (int i = 0; i < n; i++) qtf[nearestWord(vocabulary, words, query, i)]++;
+
+        double norm = 0;
+        for (int w = 0; w < words; w++) {
+            double v = qtf[w] * idf[w];
+            norm += v * v;
+        }
+        float inv = norm > 0 ? (float) (1.0 / Math.sqrt(norm)) : 0f;
+
+        float[] docScore = new float[docBrand.length];
+        for (int w = 0; w < words; w++) {
+            if (qtf[w] == 0) continue;
+            float qw = qtf[w] * idf[w] * inv;
+            for (int p = postingStart[w]; p < postingStart[w + 1]; p++) {
+                docScore[postingDoc[p]] += qw * postingWeight[p];
+            }
+        }
+
+        float[] brandScore = new float[brandCount];
+        boolean[] hit = new boolean[brandCount];
+        for (int doc = 0; doc < docScore.length; doc++) {
+            int b = docBrand[doc];
+            if (docScore[doc] > 0) hit[b] = true;
+            brandScore[b] = Math.max(brandScore[b], docScore[doc]);
+        }
+
+        // partial selection sort, limit is small
+        int[] brands = new int[Math.min(limit, brandCount)];
+        float[] scores = new float[brands.length];
+        int count = 0;
+        boolean[] taken = new boolean[brandCount];
+        while (count < brands.length) {
+            int best = -1;
+            for (int b = 0; b < brandCount; b++) {
+                if (hit[b] && !taken[b] && (best < 0 || brandScore[b] > brandScore[best])) best = b;
+            }
+            if (best < 0) break;
+            taken[best] = true;
+            brands[count] = best;
+            scores[count] = brandScore[best];
+            count++;
+        }
+        return new Shortlist(brands, scores, count);
+    }
+
+    /** Brand indices into the {@link OrbDescriptorStore}, best first. */
+    public static final class Shortlist {
+        public final int[] brands;
+        public final float[] scores;
+        public final int count;
+
+        Shortlist(int[] brands, float[] scores, int count) {
+            this.brands = brands;
+            this.scores = scores;
+            this.count = count;
+        }
+    }
+}
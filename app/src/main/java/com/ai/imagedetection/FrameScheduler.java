@@ -0,0 +1,102 @@
+package com.ai.imagedetection;
+
+/**
+ * Decides which camera frames go to recognition. Recognition takes far longer than a frame
+ * interval, so analysing every frame the analyser is idle for would keep a core pinned and starve
+ * the preview. Instead the scheduler keeps running averages of the frame interval and of the
+ * analysis latency and only lets one frame in {@link #interval()} through, sized so analysis uses
+ * about {@code dutyCycle} of the wall clock.
+ *
+ * Called from the camera thread (onFrame) and the analysis thread (onAnalysisDone).
+ */
+public class FrameScheduler {
+    private static final double SMOOTHING = 0.2; // weight of the newest sample in the averages
+
+    private final double dutyCycle;
+    private final int maxInterval;
+
+    private long lastTimestamp = -1;
+    private double frameNanos;   // average frame interval, 0 until two frames were seen
+    private double latencyNanos; // average analysis latency, 0 until the first analysis finished
+    private int interval = 1;
+    private int sinceLast;
+
+    // stats
+    private long frames;
+    private long analysed;
+    private long skippedBySchedule;
+    private long skippedBusy;
+
+    public FrameScheduler(double dutyCycle, int maxInterval) {
+        if (dutyCycle <= 0 || dutyCycle > 1) throw new IllegalArgumentException("dutyCycle must be in (0, 1]");
+        this.dutyCycle = dutyCycle;
+        this.maxInterval = Math.max(1, maxInterval);
+    }
+
+    /** Returns true when this frame should be analysed. The caller must then report {@link #onAnalysisDone}. */
+    public synchronized boolean onFrame(long timestampNanos, boolean analyserIdle) {
+        frames++;
+        if (lastTimestamp >= 0) frameNanos = average(frameNanos, timestampNanos - lastTimestamp);
+        lastTimestamp = timestampNanos;
+
+        sinceLast++;
+        if (!analyserIdle) {
+            skippedBusy++;
+            return false;
+        }
+        if (sinceLast < interval) {
+            skippedBySchedule++;
+            return false;
+        }
+        sinceLast = 0;
+        analysed++;
+        return true;
+    }
+
+    public synchronized void onAnalysisDone(long latency) {
+        latencyNanos = average(latencyNanos, latency);
+        if (frameNanos > 0) {
+            int wanted = (int) Math.ceil(latencyNanos / (frameNanos * dutyCycle));
+            interval = Math.max(1, Math.min(maxInterval, wanted));
+        }
+    }
+
+    private static double average(double current, long sample) {
+        return current == 0 ? sample : current + SMOOTHING * (sample - current);
+    }
+
+    /** Frames between two analysed frames, 1 = every frame. */
+    public synchronized int interval() {
+        return interval;
+    }
+
+    public synchronized double averageLatencyMillis() {
+        return latencyNanos / 1e6;
+    }
+
+    public synchronized double averageFrameMillis() {
+        return frameNanos / 1e6;
+    }
+
+    public synchronized long frames() {
+        return frames;
+    }
+
+    public synchronized long analysed() {
+        return analysed;
+    }
+
+    public synchronized long skippedBySchedule() {
+        return skippedBySchedule;
+    }
+
+    public synchronized long skippedBusy() {
+        return skippedBusy;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("frames %d, analysed %d, skipped %d (schedule) + %d (busy), 1 in %d, latency %.1f ms, frame %.1f ms",
+                frames, analysed, skippedBySchedule, skippedBusy, interval, latencyNanos / 1e6, frameNanos / 1e6);
+    }
+}
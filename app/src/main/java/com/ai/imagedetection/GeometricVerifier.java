@@ -0,0 +1,264 @@
+package com.ai.imagedetection;
+
+import android.util.Log;
+
+import org.opencv.calib3d.Calib3d;
+import org.opencv.calib3d.UsacParams;
+import org.opencv.core.BufferMat;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.MatScope;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Confirms shortlisted brands by fitting a homography between query and reference keypoints.
+ *
+ * Brands are tried in shortlist order and verification stops at the first one with enough
+ * inliers, so the common case costs a single RANSAC run. Each brand's tentative matches are cut
+ * down to the {@link #setMatchBudget closest few} by Hamming distance first: RANSAC iterations
+ * needed grow quickly with the outlier ratio, and the closest matches are the likeliest inliers.
+ * USAC stops as soon as the confidence is reached, capped at {@link #setMaxIterations maxIterations}.
+ *
+ * Stores built without keypoint coordinates cannot be verified geometrically; brands are then
+ * accepted on match count alone, still in shortlist order.
+ *
+ * Not thread safe, the USAC parameters and the point buffers are reused across calls.
+ */
+public class GeometricVerifier {
+    private static final String TAG = "GeometricVerifier";
+
+    public static final int DEFAULT_MATCH_BUDGET = 80;
+    public static final int DEFAULT_MIN_INLIERS = 12;
+    public static final int DEFAULT_MIN_MATCHES = 20;  // used when there are no reference keypoints
+    public static final double DEFAULT_CONFIDENCE = 0.995;
+    public static final int DEFAULT_MAX_ITERATIONS = 500;
+    public static final double DEFAULT_REPROJ_THRESHOLD = 5.0; // pixels
+
+    private static final int MAX_DISTANCE = HammingMatcher.LANES * 64;
+
+    private final OrbDescriptorStore store;
+    private final HammingMatcher matcher;
+    private final UsacParams usac = new UsacParams();
+    private final int[] histogram = new int[MAX_DISTANCE + 1];
+    private float ratio = 0.75f;
+    private int matchBudget = DEFAULT_MATCH_BUDGET;
+    private int minInliers = DEFAULT_MIN_INLIERS;
+    private int minMatches = DEFAULT_MIN_MATCHES;
+
+    // homography input and output, sized for the match budget and reused for every brand
+    private BufferMat srcPoints;
+    private BufferMat dstPoints;
+    private BufferMat inlierMask;
+    private int pointCapacity;
+
+    public GeometricVerifier(OrbDescriptorStore store, HammingMatcher matcher) {
+        this.store = store;
+        this.matcher = matcher;
+        usac.set_confidence(DEFAULT_CONFIDENCE);
+        usac.set_maxIterations(DEFAULT_MAX_ITERATIONS);
+        usac.set_threshold(DEFAULT_REPROJ_THRESHOLD);
+    }
+
+    public void setRatio(float ratio) {
+        this.ratio = ratio;
+    }
+
+    /** Tentative matches kept per brand, closest first. */
+    public void setMatchBudget(int matchBudget) {
+        this.matchBudget = Math.max(4, matchBudget);
+    }
+
+    public void setMinInliers(int minInliers) {
+        this.minInliers = minInliers;
+    }
+
+    public void setMinMatches(int minMatches) {
+        this.minMatches = minMatches;
+    }
+
+    public void setConfidence(double confidence) {
+        usac.set_confidence(confidence);
+    }
+
+    public void setMaxIterations(int maxIterations) {
+        usac.set_maxIterations(maxIterations);
+    }
+
+    public void setReprojThreshold(double pixels) {
+        usac.set_threshold(pixels);
+    }
+
+    public boolean isGeometric() {
+        return store.hasKeypoints();
+    }
+
+    /**
+     * @param query       packed query descriptors
+     * @param queryPoints x, y of each query descriptor's keypoint
+     * @param brands      candidate brands, best first
+     */
+    public Verification verify(long[] query, float[] queryPoints, int[] brands, int brandCount) {
+        Verification v = new Verification(brandCount);
+        for (int i = 0; i < brandCount; i++) {
+            int brand = brands[i];
+            long t0 = System.nanoTime();
+
+            // best reference image of the brand by ratio-test survivors
+            HammingMatcher.Matches best = null;
+            int first = store.brandFirstImage(brand);
+            for (int image = first; image < first + store.brandImageCount(brand); image++) {
+                int from = store.imageFirstDescriptor(image);
+                HammingMatcher.Matches m = matcher.knnRatioMatch(query, from,
+                        from + store.imageDescriptorCount(image), ratio);
+                if (best == null || m.count > best.count) best = m;
+            }
+            int matches = best == null ? 0 : best.count;
+
+            int inliers = -1;
+            boolean accepted;
+            if (store.hasKeypoints()) {
+                inliers = 0;
+                if (matches >= Math.max(4, minInliers)) {
+                    keepClosest(best, matchBudget, histogram);
+                    inliers = countInliers(best, queryPoints, v.region);
+                }
+                accepted = inliers >= minInliers;
+            } else {
+                accepted = matches >= minMatches;
+            }
+
+            long nanos = System.nanoTime() - t0;
+            v.record(brand, matches, inliers, nanos);
+            Log.d(TAG, store.brandName(brand) + ": " + matches + " matches, "
+                    + (inliers < 0 ? "no keypoints" : inliers + " inliers") + " in " + nanos / 1000 + " us");
+            if (accepted) {
+                v.brand = brand;
+                break;
+            }
+        }
+        return v;
+    }
+
+    /** Counts homography inliers and puts their bounding box in the query image into region. */
+    private int countInliers(HammingMatcher.Matches m, float[] queryPoints, float[] region) {
+        int n = m.count;
+        ensurePointCapacity(n);
+        // straight into the Mats' memory, no put() copies
+        FloatBuffer src = srcPoints.floatBuffer();
+        FloatBuffer dst = dstPoints.floatBuffer();
+        for (int i = 0; i < n; i++) {
+            int t = m.trainIdx[i];
+            int q = m.queryIdx[i];
+            src.put(i * 2, store.keypointX(t));
+            src.put(i * 2 + 1, store.keypointY(t));
+            dst.put(i * 2, queryPoints[q * 2]);
+            dst.put(i * 2 + 1, queryPoints[q * 2 + 1]);
+        }
+
+        // releases the headers over the first n points and the homography findHomography() returns
+        try (MatScope scope = MatScope.open()) {
+            Mat mask = inlierMask.rowRange(0, n);
+            Mat homography = Calib3d.findHomography(new MatOfPoint2f(srcPoints.rowRange(0, n)),
+                    new MatOfPoint2f(dstPoints.rowRange(0, n)), mask, usac);
+            if (homography.empty() || mask.empty()) return 0;
+
+            ByteBuffer inlier;
+            if (mask.dataAddr() == inlierMask.dataAddr() && mask.total() == n) {
+                inlier = inlierMask.byteBuffer();
+            } else {
+                // came back in another shape, so it was reallocated instead of written into our buffer
+                byte[] copy = new byte[(int) mask.total()];
+                mask.get(0, 0, copy);
+                inlier = ByteBuffer.wrap(copy);
+            }
+            int count = 0;
+            region[0] = region[1] = Float.MAX_VALUE;
+            region[2] = region[3] = -Float.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                if (inlier.get(i) == 0) continue;
+                count++;
+                region[0] = Math.min(region[0], dst.get(i * 2));
+                region[1] = Math.min(region[1], dst.get(i * 2 + 1));
+                region[2] = Math.max(region[2], dst.get(i * 2));
+                region[3] = Math.max(region[3], dst.get(i * 2 + 1));
+            }
+            return count;
+        }
+    }
+
+    private void ensurePointCapacity(int n) {
+        if (n <= pointCapacity) return;
+        pointCapacity = Math.max(n, matchBudget);
+        srcPoints = BufferMat.allocate(pointCapacity, 1, CvType.CV_32FC2);
+        dstPoints = BufferMat.allocate(pointCapacity, 1, CvType.CV_32FC2);
+        inlierMask = BufferMat.allocate(pointCapacity, 1, CvType.CV_8UC1);
+    }
+
+    /**
+     * Keeps the {@code budget} lowest-distance matches, compacting them to the front in their
+     * original order. Distances are small integers, so a counting pass finds the cut-off without
+     * sorting.
+     */
+    static void keepClosest(HammingMatcher.Matches m, int budget, int[] histogram) {
+        if (m.count <= budget) return;
+        Arrays.fill(histogram, 0);
+        for (int i = 0; i < m.count; i++) histogram[(int) m.distance[i]]++;
+
+        int cutoff = 0, below = 0;
+        while (below + histogram[cutoff] < budget) below += histogram[cutoff++];
+        int tiesAllowed = budget - below; // matches at exactly the cut-off distance that still fit
+
+        int n = 0;
+        for (int i = 0; i < m.count; i++) {
+            int d = (int) m.distance[i];
+            if (d > cutoff || (d == cutoff && tiesAllowed-- <= 0)) continue;
+            m.queryIdx[n] = m.queryIdx[i];
+            m.trainIdx[n] = m.trainIdx[i];
+            m.distance[n] = m.distance[i];
+            n++;
+        }
+        m.count = n;
+    }
+
+    /** Outcome of one {@link #verify} call plus per-brand timings, in the order tried. */
+    public static final class Verification {
+        public int brand = -1; // accepted brand or -1
+        public final int[] brands;
+        public final int[] matches;
+        public final int[] inliers; // -1 when checked by match count only
+        public final long[] nanos;
+        public int tried;
+        // x0, y0, x1, y1 of the last checked brand's inliers in the query image, valid while its inliers > 0
+        public final float[] region = new float[4];
+
+        Verification(int capacity) {
+            brands = new int[capacity];
+            matches = new int[capacity];
+            inliers = new int[capacity];
+            nanos = new long[capacity];
+        }
+
+        void record(int brand, int matchCount, int inlierCount, long elapsed) {
+            brands[tried] = brand;
+            matches[tried] = matchCount;
+            inliers[tried] = inlierCount;
+            nanos[tried] = elapsed;
+            tried++;
+        }
+
+        /** Index into the per-brand arrays of the accepted brand, or the last one tried. */
+        public int last() {
+            return tried - 1;
+        }
+
+        public long totalNanos() {
+            long total = 0;
+            for (int i = 0; i < tried; i++) total += nanos[i];
+            return total;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.ai.imagedetection;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.TiledExecutor;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Brute-force k=2 Hamming matcher for 256-bit ORB descriptors, done in Java instead of
+ * BFMatcher so a whole scan costs no JNI round trips and no DMatch objects.
+ *
+ * Descriptors are packed into four longs each (one flat long[] per set) and compared with
+ * Long.bitCount. Query rows are split across the pool TiledExecutor's default bands run on, so
+ * the scan's parallel work shares one set of threads (ForkJoinPool.commonPool() needs API 24).
+ */
+public final class HammingMatcher {
+    public static final int LANES = 4; // 4 x 64 bit = 256 bit ORB descriptor
+
+    private static final int SPLIT_THRESHOLD = 64; // query rows per fork-join leaf
+
+    private final long[] train;
+    private final int trainCount;
+    private final ForkJoinPool pool;
+
+    public HammingMatcher(long[] packedTrain) {
+        this(packedTrain, TiledExecutor.getDefault().getPool());
+    }
+
+    public HammingMatcher(long[] packedTrain, ForkJoinPool pool) {
+        if (packedTrain.length % LANES != 0)
+            throw new IllegalArgumentException("Packed descriptors must be a multiple of " + LANES + " longs");
+        this.train = packedTrain;
+        this.trainCount = packedTrain.length / LANES;
+        this.pool = pool;
+    }
+
+    public static HammingMatcher forStore(OrbDescriptorStore store) {
+        return new HammingMatcher(pack(store.descriptors(), store.descriptorCount()));
+    }
+
+    public int trainCount() {
+        return trainCount;
+    }
+
+    long[] packedTrain() {
+        return train;
+    }
+
+    /** Packs {@code count} 32-byte rows starting at the buffer's position. */
+    public static long[] pack(ByteBuffer rows, int count) {
+        ByteBuffer buf = rows.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        long[] packed = new long[count * LANES];
+        for (int i = 0; i < packed.length; i++) packed[i] = buf.getLong();
+        return packed;
+    }
+
+    public static long[] pack(byte[] rows, int count) {
+        return pack(ByteBuffer.wrap(rows, 0, count * OrbDescriptorStore.DESCRIPTOR_BYTES), count);
+    }
+
+    /** Packs a CV_8UC1 N x 32 descriptor Mat as returned by ORB.detectAndCompute. */
+    public static long[] pack(Mat descriptors) {
+        if (descriptors.empty()) return new long[0];
+        if (descriptors.type() != CvType.CV_8UC1 || descriptors.cols() != OrbDescriptorStore.DESCRIPTOR_BYTES)
+            throw new IllegalArgumentException("Expected CV_8UC1 N x 32 ORB descriptors: " + descriptors);
+        int rows = descriptors.rows();
+        byte[] bytes = new byte[rows * OrbDescriptorStore.DESCRIPTOR_BYTES];
+        descriptors.get(0, 0, bytes);
+        return pack(bytes, rows);
+    }
+
+    public static int distance(long[] a, int ai, long[] b, int bi) {
+        int ao = ai * LANES, bo = bi * LANES;
+        return Long.bitCount(a[ao] ^ b[bo])
+                + Long.bitCount(a[ao + 1] ^ b[bo + 1])
+                + Long.bitCount(a[ao + 2] ^ b[bo + 2])
+                + Long.bitCount(a[ao + 3] ^ b[bo + 3]);
+    }
+
+    /** Ratio-test matches of every query row against the whole train set. */
+    public Matches knnRatioMatch(long[] query, float ratio) {
+        return knnRatioMatch(query, 0, trainCount, ratio);
+    }
+
+    /**
+     * Two nearest neighbours of every query row within train rows [trainFrom, trainTo), keeping
+     * the best one when best &lt; ratio * second (Lowe's test). A lone candidate always passes.
+     */
+    public Matches knnRatioMatch(long[] query, int trainFrom, int trainTo, float ratio) {
+        if (trainFrom < 0 || trainTo > trainCount || trainFrom > trainTo)
+            throw new IllegalArgumentException("Train range [" + trainFrom + ", " + trainTo + ") out of bounds");
+        int queryCount = query.length / LANES;
+        int[] best = new int[queryCount];
+        int[] bestDist = new int[queryCount];
+        int[] secondDist = new int[queryCount];
+        if (queryCount > 0) {
+            pool.invoke(new KnnTask(query, 0, queryCount, trainFrom, trainTo, best, bestDist, secondDist));
+        }
+
+        Matches out = new Matches(queryCount);
+        for (int q = 0; q < queryCount; q++) {
+            if (best[q] < 0) continue;
+            if (secondDist[q] == Integer.MAX_VALUE || bestDist[q] < ratio * secondDist[q]) {
+                out.queryIdx[out.count] = q;
+                out.trainIdx[out.count] = best[q];
+                out.distance[out.count] = bestDist[q];
+                out.count++;
+            }
+        }
+        return out;
+    }
+
+    private final class KnnTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] query;
+        private final int from, to, trainFrom, trainTo;
+        private final int[] best, bestDist, secondDist;
+
+        KnnTask(long[] query, int from, int to, int trainFrom, int trainTo,
+                int[] best, int[] bestDist, int[] secondDist) {
+            this.query = query;
+            this.from = from;
+            this.to = to;
+            this.trainFrom = trainFrom;
+            this.trainTo = trainTo;
+            this.best = best;
+            this.bestDist = bestDist;
+            this.secondDist = secondDist;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new KnnTask(query, from, mid, trainFrom, trainTo, best, bestDist, secondDist),
+                        new KnnTask(query, mid, to, trainFrom, trainTo, best, bestDist, secondDist));
+                return;
+            }
+            final long[] t = train;
+            for (int q = from; q < to; q++) {
+                int qo = q * LANES;
+                long q0 = query[qo], q1 = query[qo + 1], q2 = query[qo + 2], q3 = query[qo + 3];
+                int b = -1, d1 = Integer.MAX_VALUE, d2 = Integer.MAX_VALUE;
+                for (int i = trainFrom, to4 = trainFrom * LANES; i < trainTo; i++, to4 += LANES) {
+                    int d = Long.bitCount(q0 ^ t[to4])
+                            + Long.bitCount(q1 ^ t[to4 + 1])
+                            + Long.bitCount(q2 ^ t[to4 + 2])
+                            + Long.bitCount(q3 ^ t[to4 + 3]);
+                    if (d < d1) {
+                        d2 = d1;
+                        d1 = d;
+                        b = i;
+                    } else if (d < d2) {
+                        d2 = d;
+                    }
+                }
+                best[q] = b;
+                bestDist[q] = d1;
+                secondDist[q] = d2;
+            }
+        }
+    }
+
+    /** Flat match list: entry i pairs query row queryIdx[i] with train row trainIdx[i]. */
+    public static final class Matches {
+        public final int[] queryIdx;
+        public final int[] trainIdx;
+        public final float[] distance;
+        public int count;
+
+        Matches(int capacity) {
+            queryIdx = new int[capacity];
+            trainIdx = new int[capacity];
+            distance = new float[capacity];
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.ai.imagedetection;
+
+import org.opencv.core.ByteCursor;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.TiledExecutor;
+
+// The visual sanity checks LogoClassifier runs next to the model, over ARGB pixels as
+// Bitmap.getPixels() returns them, or over a CV_8UC4 RGBA Mat where the scan has no bitmap (a camera
+// frame). Both compute the same gray and red values, so the tuned thresholds hold for either. Each
+// pass is split into row bands that run on all cores.
+final class ImageHeuristics {
+    static final double FLAT_VARIANCE = 20;  // tweak
+    static final int EDGE_STEP_DIVISOR = 50; // ~50 samples along the shorter side
+    static final int EDGE_DIFF = 20;         // red difference that counts as an edge
+
+    private ImageHeuristics() {}
+
+    static boolean isFlat(int[] argb, int w, int h) {
+        return grayVariance(argb, w, h, TiledExecutor.getDefault()) < FLAT_VARIANCE;
+    }
+
+    static boolean isFlat(Mat rgba) {
+        return grayVariance(rgba, TiledExecutor.getDefault()) < FLAT_VARIANCE;
+    }
+
+    static float edgeDensity(int[] argb, int w, int h) {
+        return edgeDensity(argb, w, h, TiledExecutor.getDefault());
+    }
+
+    static float edgeDensity(Mat rgba) {
+        return edgeDensity(rgba, TiledExecutor.getDefault());
+    }
+
+    private static int gray(int r, int g, int b) {
+        return (int) (0.3 * r + 0.59 * g + 0.11 * b);
+    }
+
+    private static double variance(long[] sums, double n) {
+        if (sums == null) return 0;
+        double mean = sums[0] / n;
+        return (sums[1] / n) - mean * mean;
+    }
+
+    static double grayVariance(int[] argb, int w, int h, TiledExecutor executor) {
+        long[] sums = executor.forRows(h, 0, band -> {
+            long sum = 0, sumSq = 0;
+            for (int i = band.y0 * w, end = band.y1 * w; i < end; i++) {
+                int c = argb[i];
+                int gray = gray((c >> 16) & 0xFF, (c >> 8) & 0xFF, c & 0xFF);
+                sum += gray;
+                sumSq += gray * gray;
+            }
+            return new long[]{sum, sumSq};
+        }, (a, b) -> new long[]{a[0] + b[0], a[1] + b[1]});
+        return variance(sums, (double) w * h);
+    }
+
+    static double grayVariance(Mat rgba, TiledExecutor executor) {
+        checkRgba(rgba);
+        int w = rgba.cols();
+        // each band reads its submat one row at a time, the pixels are never copied as a whole
+        long[] sums = executor.forMat(rgba, 0, band -> {
+            long sum = 0, sumSq = 0;
+            ByteCursor cursor = new ByteCursor(band.mat, new Rect(0, band.offset(), w, band.rows()));
+            for (int y = 0; y < cursor.rows(); y++) {
+                cursor.row(y);
+                for (int x = 0; x < w; x++) {
+                    int gray = gray(cursor.get(x, 0), cursor.get(x, 1), cursor.get(x, 2));
+                    sum += gray;
+                    sumSq += gray * gray;
+                }
+            }
+            return new long[]{sum, sumSq};
+        }, (a, b) -> new long[]{a[0] + b[0], a[1] + b[1]});
+        return variance(sums, (double) w * rgba.rows());
+    }
+
+    // share of sample points whose red differs from the sample one step to the right; NaN when
+    // the image is too small to sample
+    static float edgeDensity(int[] argb, int w, int h, TiledExecutor executor) {
+        int step = Math.max(1, Math.min(w, h) / EDGE_STEP_DIVISOR);
+        int[] counts = executor.forRows(h, 0, band -> {
+            int edges = 0, total = 0;
+            for (int y = firstSampledRow(band.y0, step), last = Math.min(band.y1, h - step); y < last; y += step) {
+                int row = y * w;
+                for (int x = step; x < w - step; x += step) {
+                    int diff = Math.abs(((argb[row + x] >> 16) & 0xFF) - ((argb[row + x + step] >> 16) & 0xFF));
+                    if (diff > EDGE_DIFF) edges++;
+                    total++;
+                }
+            }
+            return new int[]{edges, total};
+        }, (a, b) -> new int[]{a[0] + b[0], a[1] + b[1]});
+        if (counts == null) return Float.NaN;
+        return (float) counts[0] / counts[1];
+    }
+
+    static float edgeDensity(Mat rgba, TiledExecutor executor) {
+        checkRgba(rgba);
+        int w = rgba.cols(), h = rgba.rows();
+        int step = Math.max(1, Math.min(w, h) / EDGE_STEP_DIVISOR);
+        int[] counts = executor.forMat(rgba, 0, band -> {
+            int edges = 0, total = 0;
+            ByteCursor cursor = new ByteCursor(band.mat);
+            for (int y = firstSampledRow(band.y0, step), last = Math.min(band.y1, h - step); y < last; y += step) {
+                cursor.row(y - band.top);
+                for (int x = step; x < w - step; x += step) {
+                    if (Math.abs(cursor.get(x, 0) - cursor.get(x + step, 0)) > EDGE_DIFF) edges++;
+                    total++;
+                }
+            }
+            return new int[]{edges, total};
+        }, (a, b) -> new int[]{a[0] + b[0], a[1] + b[1]});
+        if (counts == null) return Float.NaN;
+        return (float) counts[0] / counts[1];
+    }
+
+    // the sampled rows are step, 2 * step, ... below h - step, whichever band they fall in
+    private static int firstSampledRow(int y0, int step) {
+        return Math.max(step, (y0 + step - 1) / step * step);
+    }
+
+    private static void checkRgba(Mat rgba) {
+        if (rgba.type() != CvType.CV_8UC4)
+            throw new IllegalArgumentException("Expected RGBA, got a " + CvType.typeToString(rgba.type()) + " Mat");
+    }
+}
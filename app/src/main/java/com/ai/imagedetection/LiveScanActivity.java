@@ -0,0 +1,309 @@
+package com.ai.imagedetection;
+
+import android.content.pm.ApplicationInfo;
+import android.os.Bundle;
+import android.util.Log;
+import android.view.SurfaceView;
+import android.view.WindowManager;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import org.opencv.android.CameraActivity;
+import org.opencv.android.CameraBridgeViewBase;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatPool;
+import org.opencv.core.NativeCleaner;
+import org.opencv.core.NativeMemoryTracker;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Continuous scanning on the camera preview instead of single shots. Frames come in on the camera
+ * thread; a {@link MotionGate} holds recognition back until the picture has been still for a few
+ * frames, then a {@link FrameScheduler} picks which of them get copied over to a single analysis
+ * thread, so the preview never waits on TFLite/ORB. Once the same brand was recognised on
+ * {@link #CONFIRMATIONS} analysed frames in a row, a {@link LogoTracker} follows it instead and the
+ * classifier only runs again when tracking gets unsure or every {@link #REFRESH_MILLIS} ms.
+ */
+public class LiveScanActivity extends CameraActivity implements CameraBridgeViewBase.CvCameraViewListener2 {
+    private static final String TAG = "LiveScan";
+    private static final int MAX_FRAME_WIDTH = 1280;
+    private static final int MAX_FRAME_HEIGHT = 720;
+    private static final double ANALYSIS_DUTY_CYCLE = 0.5; // share of wall time recognition may use
+    private static final int MAX_FRAME_INTERVAL = 30;      // analyse at least ~once a second at 30 fps
+    private static final int CONFIRMATIONS = 2;
+    private static final double MOTION_THRESHOLD = 4.0;   // mean gray level change on the thumbnail
+    private static final int STABLE_FRAMES = 5;           // ~170 ms still at 30 fps before recognising
+    private static final long REFRESH_MILLIS = 1500;      // tracking time before the brand is checked again
+    private static final double MIN_TRACKING_SCORE = 0.5; // TrackerNano only
+    private static final double MIN_CORRELATION = 0.6;    // MIL: tracked patch against the classified one
+    private static final double MAX_SCALE_CHANGE = 2.0;   // box area change that makes MIL's box suspect
+    private static final String NANO_BACKBONE = "nanotrack_backbone.onnx";
+    private static final String NANO_NECKHEAD = "nanotrack_head.onnx";
+
+    private CameraBridgeViewBase cameraView;
+    private TextView statusText;
+    private LogoClassifier logoClassifier;
+    private volatile OrbLogoMatcher orbMatcher; // built off the main thread, null until ready
+
+    private final FrameScheduler scheduler = new FrameScheduler(ANALYSIS_DUTY_CYCLE, MAX_FRAME_INTERVAL);
+    private final MotionGate motionGate = new MotionGate(MOTION_THRESHOLD, STABLE_FRAMES, CONFIRMATIONS); // camera thread only
+    private final ExecutorService analysis = Executors.newSingleThreadExecutor(r -> new Thread(r, "LiveScanAnalysis"));
+    private final AtomicBoolean busy = new AtomicBoolean();
+    private volatile LogoTracker tracker;   // set up with OpenCV, used by the analysis thread
+    private volatile boolean tracking;      // a confirmed logo is being followed
+
+    // owned by the analysis thread while busy is set, reused for every analysed frame
+    private volatile Mat frameCopy; // also read by the camera thread
+    private Mat frameGray;
+    private String lastBrand;
+    private float[] lastRegion;
+    private int agreeing;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
+        setContentView(R.layout.activity_live_scan);
+
+        statusText = findViewById(R.id.live_status);
+        cameraView = findViewById(R.id.camera_view);
+        cameraView.setVisibility(SurfaceView.VISIBLE);
+        cameraView.setMaxFrameSize(MAX_FRAME_WIDTH, MAX_FRAME_HEIGHT);
+        cameraView.setCvCameraViewListener(this);
+        cameraView.enableFrameTimings(); // percentiles get logged every few seconds
+        // debug builds count native objects per class; the report is logged when the camera stops
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) NativeMemoryTracker.enable();
+
+        try {
+            logoClassifier = new LogoClassifier(getAssets());
+        } catch (IOException e) {
+            Log.e(TAG, "❌ Failed to load model: " + e.getMessage());
+        }
+
+        if (OpenCVLoader.initDebug()) {
+            new Thread(() -> {
+                tracker = new LogoTracker(trackerFactory(), REFRESH_MILLIS, MIN_TRACKING_SCORE, MIN_CORRELATION, MAX_SCALE_CHANGE);
+                try {
+                    orbMatcher = new OrbLogoMatcher(getAssets());
+                } catch (IOException e) {
+                    Log.e(TAG, "❌ Failed to load ORB descriptors: " + e.getMessage());
+                }
+            }, "OrbMatcherInit").start();
+        } else {
+            Log.e(TAG, "❌ Unable to load OpenCV!");
+            statusText.setText("⚠️ OpenCV not available");
+        }
+    }
+
+    // TrackerNano if its models are bundled (they have to be plain files for OpenCV), MIL otherwise
+    private LogoTracker.TrackerFactory trackerFactory() {
+        try {
+            File backbone = copyAsset(NANO_BACKBONE);
+            File neckhead = copyAsset(NANO_NECKHEAD);
+            Log.d(TAG, "Tracking with TrackerNano");
+            return LogoTracker.nano(backbone.getPath(), neckhead.getPath());
+        } catch (IOException e) {
+            Log.d(TAG, "Tracking with TrackerMIL, no NanoTrack models");
+            return LogoTracker.mil();
+        }
+    }
+
+    private File copyAsset(String name) throws IOException {
+        File file = new File(getCacheDir(), name);
+        if (file.exists()) return file;
+        try (InputStream in = getAssets().open(name); OutputStream out = new FileOutputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) out.write(buffer, 0, n);
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+        return file;
+    }
+
+    @Override
+    protected List<? extends CameraBridgeViewBase> getCameraViewList() {
+        return Collections.singletonList(cameraView);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        cameraView.enableView();
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        cameraView.disableView();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // idle pooled Mats are only a cache: the camera leases its shapes again when it comes back
+        MatPool.getDefault().clear();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        cameraView.disableView();
+        // the analysis thread may still hold the buffers, free them there
+        analysis.execute(() -> {
+            MatPool.getDefault().recycle(frameCopy);
+            if (frameGray != null) frameGray.release();
+            if (tracker != null) tracker.release();
+            // last task: nothing on this thread constructs Mats after it
+            NativeMemoryTracker.disable();
+        });
+        analysis.shutdown();
+    }
+
+    @Override
+    public void onCameraViewStarted(int width, int height) {
+        Log.d(TAG, "Camera started " + width + "x" + height);
+        analysis.execute(() -> {
+            if (frameCopy == null || frameCopy.cols() != width || frameCopy.rows() != height) {
+                MatPool.getDefault().recycle(frameCopy); // rotating back finds it again
+                frameCopy = MatPool.getDefault().lease(height, width, CvType.CV_8UC4);
+                if (frameGray == null) frameGray = new Mat();
+            }
+        });
+    }
+
+    @Override
+    public void onCameraViewStopped() {
+        Log.d(TAG, "Camera stopped, " + scheduler + ", gate: " + motionGate + ", timings: " + cameraView.getFrameTimings()
+                + ", native: " + NativeCleaner.getStatistics() + ", pool: " + MatPool.getDefault());
+        if (NativeMemoryTracker.isEnabled()) Log.d(TAG, "Native memory: " + NativeMemoryTracker.snapshot());
+        motionGate.release(); // no more frames are delivered now
+        analysis.execute(() -> {
+            // the logo may be anywhere when the camera comes back
+            if (tracker != null) {
+                Log.d(TAG, "Tracking: " + tracker);
+                tracker.stop();
+            }
+            tracking = false;
+            agreeing = 0;
+            lastBrand = null;
+        });
+    }
+
+    @Override
+    public Mat onCameraFrame(CameraBridgeViewBase.CvCameraViewFrame inputFrame) {
+        NativeMemoryTracker.onFrame();
+        Mat rgba = inputFrame.rgba();
+        if (orbMatcher == null || logoClassifier == null) return rgba;
+
+        // following a confirmed logo, motion is expected now; otherwise a moving camera or a still
+        // scene that was already looked at is not worth an inference
+        boolean following = tracking;
+        if (!following && !motionGate.onFrame(inputFrame.gray())) return rgba;
+
+        if (scheduler.onFrame(System.nanoTime(), !busy.get()) && busy.compareAndSet(false, true)) {
+            // the frame is only valid during this callback, hand a copy to the analysis thread
+            Mat copy = frameCopy;
+            if (copy != null && copy.size().equals(rgba.size())) {
+                rgba.copyTo(copy);
+                if (!following) motionGate.onTriggered();
+                analysis.execute(this::analyse);
+            } else {
+                busy.set(false);
+            }
+        }
+
+        int[] box = following ? tracker.region() : null;
+        if (box != null) { // after the copy, the tracker must not see the box
+            Imgproc.rectangle(rgba, new Point(box[0], box[1]), new Point(box[0] + box[2], box[1] + box[3]),
+                    new Scalar(0, 255, 0, 255), 4);
+        }
+        return rgba;
+    }
+
+    private void analyse() {
+        long t0 = System.nanoTime();
+        try {
+            Imgproc.cvtColor(frameCopy, frameGray, Imgproc.COLOR_RGBA2GRAY);
+            if (tracking) {
+                int reason = tracker.onFrame(frameGray);
+                if (reason == LogoTracker.TRACKED) return; // one inference call avoided
+                Log.d(TAG, "Reclassifying (" + reason + "), " + tracker);
+            }
+
+            String prediction;
+            String brand = null;
+            lastRegion = null; // the classifier looks at the whole frame, the tracker starts on its centre
+            // the frame's own Mats are the scan's pixels, only the classifier input is converted
+            try (ScanImage scan = ScanImage.of(frameCopy, frameGray)) {
+                prediction = logoClassifier.classify(scan);
+                if (!prediction.startsWith("⚠️")) {
+                    brand = prediction.substring(0, Math.max(0, prediction.lastIndexOf(" (")));
+                } else {
+                    OrbLogoMatcher.Result orb = orbMatcher.match(scan);
+                    if (orb.brand != null) {
+                        brand = orb.brand;
+                        prediction = orb.toString();
+                        lastRegion = orb.region;
+                    }
+                }
+            }
+            if (tracking) {
+                onReclassified(brand, prediction);
+            } else {
+                onRecognised(brand, prediction);
+            }
+        } finally {
+            scheduler.onAnalysisDone(System.nanoTime() - t0);
+            busy.set(false);
+        }
+    }
+
+    private void onRecognised(String brand, String prediction) {
+        agreeing = brand != null && brand.equals(lastBrand) ? agreeing + 1 : (brand != null ? 1 : 0);
+        lastBrand = brand;
+        Log.d(TAG, "Frame result: " + prediction + " (" + agreeing + "/" + CONFIRMATIONS + "), " + scheduler);
+
+        if (agreeing >= CONFIRMATIONS) {
+            tracker.start(frameGray, lastRegion, brand);
+            tracking = true;
+            runOnUiThread(() -> {
+                statusText.setText("✅ Live match: " + prediction);
+                Toast.makeText(this, prediction, Toast.LENGTH_LONG).show();
+            });
+        } else {
+            String status = brand != null ? "🔍 Seeing " + brand + "..." : "🔍 Scanning...";
+            runOnUiThread(() -> statusText.setText(status));
+        }
+    }
+
+    // the full check while tracking: same brand keeps following it from here, anything else starts over
+    private void onReclassified(String brand, String prediction) {
+        if (brand != null && brand.equals(tracker.brand())) {
+            tracker.start(frameGray, lastRegion, brand);
+            return;
+        }
+        Log.d(TAG, "Lost " + tracker.brand() + " (now " + prediction + "), " + tracker);
+        tracker.stop();
+        tracking = false;
+        agreeing = 0;
+        lastBrand = null;
+        onRecognised(brand, prediction);
+    }
+}
@@ -56,8 +56,8 @@ public class LogoClassifier {
         return labels;
     }
 
-private ByteBuffer convertBitmapToByteBuffer(Bitmap bitmap) {
-    Bitmap resized = Bitmap.createScaledBitmap(bitmap, imageSize, imageSize, true);
+private ByteBuffer convertBitmapToByteBuffer(ScanImage image) {
+    Bitmap resized = image.scaled(imageSize, imageSize); // shared with getEmbedding() on the same scan
 
     int bytesPerChannel = isQuantized ? 1 : 4;
     ByteBuffer buffer = ByteBuffer.allocateDirect(bytesPerChannel * imageSize * imageSize * 3);
@@ -93,7 +93,13 @@ private ByteBuffer convertBitmapToByteBuffer(Bitmap bitmap) {
 
 
     public String classify(Bitmap bitmap) {
-        ByteBuffer input = convertBitmapToByteBuffer(bitmap);
+        try (ScanImage image = ScanImage.wrap(bitmap)) {
+            return classify(image);
+        }
+    }
+
+    public String classify(ScanImage image) {
+        ByteBuffer input = convertBitmapToByteBuffer(image);
         Object output = isQuantized ? new byte[1][labels.size()] : new float[1][labels.size()];
         interpreter.run(input, output);
 
@@ -155,8 +161,9 @@ private ByteBuffer convertBitmapToByteBuffer(Bitmap bitmap) {
         Log.d(TAG, "=====================");
 
         // --- new sanity layer ---
-        Log.d(TAG, "EdgeDensity value: " + getEdgeDensity(bitmap));
-        boolean looksLogoLike = !isFlatImage(bitmap) && getEdgeDensity(bitmap) > 0.015f;
+        float edgeDensity = getEdgeDensity(image);
+        Log.d(TAG, "EdgeDensity value: " + edgeDensity);
+        boolean looksLogoLike = !isFlatImage(image) && edgeDensity > 0.015f;
         if (!looksLogoLike) {
             Log.d(TAG, "Reject → Visual cues do not match a printed logo");
             return "⚠️ No logo detected (visual mismatch)";
@@ -187,34 +194,15 @@ private ByteBuffer convertBitmapToByteBuffer(Bitmap bitmap) {
         return result;
     }
 
-    private boolean isFlatImage(Bitmap bmp) {
-        int[] pixels = new int[bmp.getWidth() * bmp.getHeight()];
-        bmp.getPixels(pixels, 0, bmp.getWidth(), 0, 0, bmp.getWidth(), bmp.getHeight());
-        long sum = 0, sumSq = 0;
-        for (int c : pixels) {
-            int gray = (int)(0.3 * ((c >> 16) & 0xFF) + 0.59 * ((c >> 8) & 0xFF) + 0.11 * (c & 0xFF));
-            sum += gray;
-            sumSq += gray * gray;
-        }
-        double mean = sum / (double)pixels.length;
-        double var = (sumSq / (double)pixels.length) - mean * mean;
-        return var < 20; // tweak
+    // a camera scan has no bitmap, read its RGBA Mat instead of making ARGB ints of the whole frame
+    private boolean isFlatImage(ScanImage image) {
+        if (!image.hasBitmap()) return ImageHeuristics.isFlat(image.rgba());
+        return ImageHeuristics.isFlat(image.argb(), image.width(), image.height());
     }
 
-    private float getEdgeDensity(Bitmap bmp) {
-        int w = bmp.getWidth(), h = bmp.getHeight();
-        int step = Math.max(1, Math.min(w, h) / 50);
-        int edgeCount = 0, total = 0;
-        for (int y = step; y < h - step; y += step) {
-            for (int x = step; x < w - step; x += step) {
-                int c1 = bmp.getPixel(x, y);
-                int c2 = bmp.getPixel(x + step, y);
-                int diff = Math.abs(((c1 >> 16) & 0xFF) - ((c2 >> 16) & 0xFF));
-                if (diff > 20) edgeCount++;
-                total++;
-            }
-        }
-        return (float) edgeCount / total;
+    private float getEdgeDensity(ScanImage image) {
+        if (!image.hasBitmap()) return ImageHeuristics.edgeDensity(image.rgba());
+        return ImageHeuristics.edgeDensity(image.argb(), image.width(), image.height());
     }
 
 
@@ -229,7 +217,13 @@ private ByteBuffer convertBitmapToByteBuffer(Bitmap bitmap) {
 
     // Get 128D or feature vector (assuming penultimate layer output)
     public float[] getEmbedding(Bitmap bitmap) {
-        ByteBuffer input = convertBitmapToByteBuffer(bitmap);
+        try (ScanImage image = ScanImage.wrap(bitmap)) {
+            return getEmbedding(image);
+        }
+    }
+
+    public float[] getEmbedding(ScanImage image) {
+        ByteBuffer input = convertBitmapToByteBuffer(image);
 
         // Let's assume your model output can be treated as an embedding
         // If your model has a softmax layer at the end, you can still
@@ -0,0 +1,294 @@
+package com.ai.imagedetection;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.video.Tracker;
+import org.opencv.video.TrackerMIL;
+import org.opencv.video.TrackerNano;
+import org.opencv.video.TrackerNano_Params;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows a confirmed logo from frame to frame so it doesn't have to be recognised again on every
+ * one. The tracker runs on a copy of the frame shrunk to {@link #TRACK_WIDTH} pixels wide; each
+ * {@link #onFrame} either moves the box along (an inference call avoided) or asks for a full
+ * classification because
+ * <ul>
+ *   <li>the tracker lost the target,</li>
+ *   <li>confidence dropped: TrackerNano's score below {@code minScore}, or for trackers without a
+ *       score (TrackerMIL) the tracked patch no longer correlates with the one captured at
+ *       {@link #start} (normalised cross-correlation below {@code minCorrelation}), the box
+ *       grew/shrank by more than {@code maxScaleChange} or left the frame,</li>
+ *   <li>or {@code refreshMillis} passed since the last classification.</li>
+ * </ul>
+ * MIL keeps the size of its box, so the area check alone would hardly ever fire for it: the
+ * correlation is what notices it sliding onto something else. The refresh goes by time rather than
+ * tracked frames because the analysed frame rate varies with the scheduler's duty cycle.
+ * Call {@link #start} again with the fresh result to keep tracking, or {@link #stop} if it didn't
+ * confirm the brand.
+ *
+ * Not thread safe, use it from one thread (the analysis thread in {@link LiveScanActivity}).
+ */
+public class LogoTracker {
+    static final int TRACK_WIDTH = 320;
+
+    // why onFrame() asked for a classification
+    public static final int TRACKED = 0;
+    public static final int LOST = 1;
+    public static final int LOW_CONFIDENCE = 2;
+    public static final int REFRESH = 3;
+
+    /** Makes the OpenCV tracker for each start; java.util.function.Supplier needs API 24. */
+    public interface TrackerFactory {
+        Tracker create();
+    }
+
+    private final TrackerFactory trackerFactory;
+    private final long refreshNanos;
+    private final double minScore;
+    private final double minCorrelation;
+    private final double maxScaleChange;
+
+    private Tracker tracker;
+    // allocated on start, so the policy runs without OpenCV
+    private Mat small;
+    private Mat template; // the box at start, for trackers without a score
+    private Mat patch;    // the tracked box resized to the template
+    private Mat ncc;
+    private final Rect box = new Rect();
+    private double scale = 1; // frame pixels per tracking pixel
+    private int trackWidth;
+    private int trackHeight;
+    private double startArea;
+    private long classifiedAt; // System.nanoTime()
+    private String brand;
+    private volatile int[] region; // x, y, width, height in the frame, read by the camera thread for drawing
+
+    // stats
+    private long frames;
+    private long tracked;
+    private long lost;
+    private long lowConfidence;
+    private long refreshed;
+
+    /**
+     * @param trackerFactory makes a new tracker per {@link #start}, see {@link #mil()} and {@link #nano}
+     * @param refreshMillis  time after which the logo is classified again anyway
+     * @param minScore       lowest tracking score still trusted, for trackers reporting one
+     * @param minCorrelation lowest correlation of the tracked patch with the classified one still
+     *                       trusted, for trackers without a score
+     * @param maxScaleChange largest factor the box area may change by relative to the classified one
+     */
+    public LogoTracker(TrackerFactory trackerFactory, long refreshMillis, double minScore, double minCorrelation,
+                       double maxScaleChange) {
+        if (maxScaleChange <= 1) throw new IllegalArgumentException("maxScaleChange must be above 1");
+        this.trackerFactory = trackerFactory;
+        this.refreshNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, refreshMillis));
+        this.minScore = minScore;
+        this.minCorrelation = minCorrelation;
+        this.maxScaleChange = maxScaleChange;
+    }
+
+    public static TrackerFactory mil() {
+        return TrackerMIL::create;
+    }
+
+    /** TrackerNano, needs its two ONNX models as files (not assets). */
+    public static TrackerFactory nano(String backbonePath, String neckheadPath) {
+        return () -> {
+            TrackerNano_Params params = new TrackerNano_Params();
+            params.set_backbone(backbonePath);
+            params.set_neckhead(neckheadPath);
+            return TrackerNano.create(params);
+        };
+    }
+
+    /**
+     * Starts following a logo that was just classified.
+     *
+     * @param gray   the frame it was classified on
+     * @param region x0, y0, x1, y1 of the logo in that frame, e.g. the ORB inliers; null for the
+     *               centre half of the frame, where the classifier looks
+     */
+    public void start(Mat gray, float[] region, String brand) {
+        if (small == null) {
+            small = new Mat();
+            template = new Mat();
+            patch = new Mat();
+            ncc = new Mat();
+        }
+        int trackWidth = Math.min(TRACK_WIDTH, gray.cols());
+        scale = (double) gray.cols() / trackWidth;
+        int trackHeight = Math.max(1, (int) Math.round(gray.rows() / scale));
+        Imgproc.resize(gray, small, new Size(trackWidth, trackHeight), 0, 0, Imgproc.INTER_AREA);
+
+        if (region != null) {
+            box.x = (int) (region[0] / scale);
+            box.y = (int) (region[1] / scale);
+            box.width = (int) Math.ceil((region[2] - region[0]) / scale);
+            box.height = (int) Math.ceil((region[3] - region[1]) / scale);
+        } else {
+            box.x = trackWidth / 4;
+            box.y = trackHeight / 4;
+            box.width = trackWidth / 2;
+            box.height = trackHeight / 2;
+        }
+        clip(box, trackWidth, trackHeight);
+
+        tracker = trackerFactory.create(); // a fresh model for the new appearance
+        tracker.init(small, box);
+        Mat classified = small.submat(box);
+        classified.copyTo(template);
+        classified.release();
+        onStarted(brand, trackWidth, trackHeight, box.width, box.height, System.nanoTime());
+    }
+
+    /** Resets the policy for a newly classified box of the given size, all in tracking pixels. */
+    void onStarted(String brand, int trackWidth, int trackHeight, int width, int height, long now) {
+        this.brand = brand;
+        this.trackWidth = trackWidth;
+        this.trackHeight = trackHeight;
+        startArea = Math.max(1.0, (double) width * height);
+        classifiedAt = now;
+        publishRegion();
+    }
+
+    /**
+     * Tracks the logo into the next frame.
+     *
+     * @return {@link #TRACKED} if the box was followed and no classification is needed, otherwise
+     * the reason to classify again ({@link #LOST}, {@link #LOW_CONFIDENCE}, {@link #REFRESH})
+     */
+    public int onFrame(Mat gray) {
+        if (brand == null) throw new IllegalStateException("not tracking");
+        Imgproc.resize(gray, small, new Size(trackWidth, trackHeight), 0, 0, Imgproc.INTER_AREA);
+        boolean ok = tracker.update(small, box);
+        double score = Double.NaN;
+        double correlation = Double.NaN;
+        if (tracker instanceof TrackerNano) score = ((TrackerNano) tracker).getTrackingScore();
+        else if (ok) correlation = correlation();
+        return onTrackResult(ok, score, correlation, box.x, box.y, box.width, box.height, System.nanoTime());
+    }
+
+    // normalised cross-correlation of the tracked box with the template, NaN if it is (nearly) out of the frame
+    private double correlation() {
+        int x0 = Math.max(0, box.x), y0 = Math.max(0, box.y);
+        int x1 = Math.min(trackWidth, box.x + box.width), y1 = Math.min(trackHeight, box.y + box.height);
+        if (x1 - x0 < 2 || y1 - y0 < 2) return Double.NaN;
+        Mat tracked = small.submat(y0, y1, x0, x1);
+        Imgproc.resize(tracked, patch, template.size(), 0, 0, Imgproc.INTER_AREA);
+        tracked.release();
+        Imgproc.matchTemplate(patch, template, ncc, Imgproc.TM_CCOEFF_NORMED); // same size: a single value
+        return ncc.get(0, 0)[0];
+    }
+
+    /**
+     * The policy, given what the tracker said. NaN score means the tracker doesn't report one, NaN
+     * correlation that it wasn't measured.
+     */
+    int onTrackResult(boolean ok, double score, double correlation, int x, int y, int width, int height, long now) {
+        frames++;
+        if (!ok || width <= 0 || height <= 0) {
+            lost++;
+            return LOST;
+        }
+        box.x = x;
+        box.y = y;
+        box.width = width;
+        box.height = height;
+        double areaChange = width * (double) height / startArea;
+        boolean outside = x < 0 || y < 0 || x + width > trackWidth || y + height > trackHeight;
+        boolean unsure = Double.isNaN(score)
+                ? correlation < minCorrelation || areaChange > maxScaleChange || areaChange < 1 / maxScaleChange || outside
+                : score < minScore;
+        if (unsure) {
+            lowConfidence++;
+            return LOW_CONFIDENCE;
+        }
+        publishRegion();
+        if (now - classifiedAt >= refreshNanos) {
+            refreshed++;
+            return REFRESH;
+        }
+        tracked++;
+        return TRACKED;
+    }
+
+    private void publishRegion() {
+        region = new int[] {
+                (int) Math.round(box.x * scale), (int) Math.round(box.y * scale),
+                (int) Math.round(box.width * scale), (int) Math.round(box.height * scale) };
+    }
+
+    private static void clip(Rect r, int width, int height) {
+        r.x = Math.max(0, Math.min(r.x, width - 2));
+        r.y = Math.max(0, Math.min(r.y, height - 2));
+        r.width = Math.max(2, Math.min(r.width, width - r.x));
+        r.height = Math.max(2, Math.min(r.height, height - r.y));
+    }
+
+    public boolean isTracking() {
+        return brand != null;
+    }
+
+    public String brand() {
+        return brand;
+    }
+
+    /** x, y, width, height of the tracked logo in frame pixels, null when not tracking. Any thread. */
+    public int[] region() {
+        return region;
+    }
+
+    /** Stops tracking, e.g. because the classification didn't confirm the brand. */
+    public void stop() {
+        brand = null;
+        region = null;
+        tracker = null;
+    }
+
+    public void release() {
+        stop();
+        if (small != null) {
+            small.release();
+            template.release();
+            patch.release();
+            ncc.release();
+            small = template = patch = ncc = null;
+        }
+    }
+
+    public long frames() {
+        return frames;
+    }
+
+    /** Frames followed by the tracker instead of being classified: inference calls avoided. */
+    public long inferenceAvoided() {
+        return tracked;
+    }
+
+    public long reclassified() {
+        return lost + lowConfidence + refreshed;
+    }
+
+    public long reclassifiedLost() {
+        return lost;
+    }
+
+    public long reclassifiedLowConfidence() {
+        return lowConfidence;
+    }
+
+    public long reclassifiedRefresh() {
+        return refreshed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("tracked %d frames, inference avoided %d, reclassified %d (lost) + %d (low confidence) + %d (refresh)",
+                frames, tracked, lost, lowConfidence, refreshed);
+    }
+}
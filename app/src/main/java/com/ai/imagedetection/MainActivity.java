@@ -248,6 +248,8 @@ import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.MatPool;
 
 import java.io.File;
 import java.io.IOException;
@@ -261,9 +263,10 @@ public class MainActivity extends AppCompatActivity {
     private ImageView scannedImage;
     private TextRecognizer recognizer;
     private TextView statusText;
-    private Bitmap lastCapturedBitmap;
+    private ScanImage lastScan; // pixels shared by OCR, classifier and ORB for the current picture
     private static final int CAMERA_PERMISSION_CODE = 101;
     private LogoClassifier logoClassifier;
+    private volatile OrbLogoMatcher orbMatcher; // built off the main thread, null until ready
 
     // Launchers
     private ActivityResultLauncher<Void> cameraLauncher;
@@ -281,6 +284,7 @@ public class MainActivity extends AppCompatActivity {
         statusText = findViewById(R.id.status);
         Button btnCapture = findViewById(R.id.scan);
         Button btnGallery = findViewById(R.id.pick_gallery); // ✅ Add this button in your layout XML
+        Button btnLiveScan = findViewById(R.id.live_scan);
 
         recognizer = TextRecognition.getClient(TextRecognizerOptions.DEFAULT_OPTIONS);
 
@@ -291,13 +295,26 @@ public class MainActivity extends AppCompatActivity {
             Log.e("TFLite", "❌ Failed to load model: " + e.getMessage());
         }
 
+        if (OpenCVLoader.initDebug()) {
+            // BoW vocabulary training takes a few hundred ms, keep it off the UI thread
+            new Thread(() -> {
+                try {
+                    orbMatcher = new OrbLogoMatcher(getAssets());
+                    Log.d("OpenCV", "✅ ORB reference descriptors loaded");
+                } catch (IOException e) {
+                    Log.e("OpenCV", "❌ Failed to load ORB descriptors: " + e.getMessage());
+                }
+            }, "OrbMatcherInit").start();
+        } else {
+            Log.e("OpenCV", "❌ Unable to load OpenCV!");
+        }
+
         // ✅ Camera launcher
         cameraLauncher = registerForActivityResult(
                 new ActivityResultContracts.TakePicturePreview(),
                 bitmap -> {
                     if (bitmap != null) {
                         scannedImage.setImageBitmap(bitmap);
-                        lastCapturedBitmap = bitmap;
                         processImage(bitmap);
                     }
                 });
@@ -310,7 +327,6 @@ public class MainActivity extends AppCompatActivity {
                         try {
                             Bitmap bitmap = MediaStore.Images.Media.getBitmap(this.getContentResolver(), uri);
                             scannedImage.setImageBitmap(bitmap);
-                            lastCapturedBitmap = bitmap;
                             processImage(bitmap);
                         } catch (IOException e) {
                             e.printStackTrace();
@@ -331,10 +347,15 @@ public class MainActivity extends AppCompatActivity {
 
         // ✅ Open gallery button
         btnGallery.setOnClickListener(v -> galleryLauncher.launch("image/*"));
+
+        // Live scan: continuous recognition on the camera preview (handles its own permission)
+        btnLiveScan.setOnClickListener(v -> startActivity(new Intent(this, LiveScanActivity.class)));
     }
 
     private void processImage(Bitmap bitmap) {
-        InputImage image = InputImage.fromBitmap(bitmap, 0);
+        if (lastScan != null) lastScan.close();
+        lastScan = ScanImage.wrap(bitmap);
+        InputImage image = InputImage.fromBitmap(lastScan.bitmap(), 0);
 
         recognizer.process(image)
                 .addOnSuccessListener(visionText -> {
@@ -370,10 +391,19 @@ public class MainActivity extends AppCompatActivity {
         } else {
             Toast.makeText(this, "🔍 No text match found. Checking logo...", Toast.LENGTH_SHORT).show();
             statusText.setText("🔍 No text match found. Checking logo...");
-            if (logoClassifier != null && lastCapturedBitmap != null) {
-                String prediction = logoClassifier.classify(lastCapturedBitmap);
+            if (logoClassifier != null && lastScan != null) {
+                String prediction = logoClassifier.classify(lastScan);
+                OrbLogoMatcher matcher = orbMatcher;
+                if (prediction.startsWith("⚠️") && matcher != null) {
+                    // classifier is unsure → fall back to ORB matching against the reference logos
+                    OrbLogoMatcher.Result orb = matcher.match(lastScan);
+                    Log.d("LOGOCAT", "ORB fallback: " + orb);
+                    if (orb.brand != null) prediction = orb.toString();
+                }
                 statusText.setText("🧠 Predicted: " + prediction);
                 Toast.makeText(this, prediction, Toast.LENGTH_LONG).show();
+                Log.d("LOGOCAT", "Scan image: " + lastScan);
+                lastScan.close(); // every stage is done, don't keep a photo's worth of Mats around
             } else {
                 statusText.setText("⚠️ Model not ready or no image");
             }
@@ -414,5 +444,12 @@ public class MainActivity extends AppCompatActivity {
             }
         }
     }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // idle pooled Mats are only a cache, give their native memory back
+        MatPool.getDefault().clear();
+    }
 }
 
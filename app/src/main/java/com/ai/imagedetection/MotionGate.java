@@ -0,0 +1,157 @@
+package com.ai.imagedetection;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Holds recognition back while the camera moves. Every frame is shrunk to a thumbnail
+ * {@link #THUMB_WIDTH} pixels wide and compared with the previous one; the mean absolute
+ * difference is the motion score. Only after {@code stableFrames} still frames in a row does the
+ * gate open, and then for {@code triggersPerStill} analyses at most - pointing the camera at the
+ * same non-logo for a minute costs one round of inference, not hundreds. Moving again re-arms it.
+ *
+ * Called from the camera thread only.
+ */
+public class MotionGate {
+    static final int THUMB_WIDTH = 64;
+
+    private final double threshold;
+    private final int stableFrames;
+    private final int triggersPerStill;
+
+    private Mat thumb;     // allocated on the first frame, so the counting logic runs without OpenCV
+    private Mat previous;
+    private Mat diff;
+    private boolean havePrevious;
+
+    private int stable;
+    private int triggers;
+    private double lastScore;
+
+    // stats
+    private long frames;
+    private long skippedMoving;
+    private long skippedSettling;
+    private long skippedSeen;
+    private long triggered;
+
+    /**
+     * @param threshold        mean gray level difference between thumbnails above which a frame counts as moving
+     * @param stableFrames     still frames in a row before the gate opens (K)
+     * @param triggersPerStill analyses allowed per still period
+     */
+    public MotionGate(double threshold, int stableFrames, int triggersPerStill) {
+        if (threshold <= 0) throw new IllegalArgumentException("threshold must be positive");
+        this.threshold = threshold;
+        this.stableFrames = Math.max(1, stableFrames);
+        this.triggersPerStill = Math.max(1, triggersPerStill);
+    }
+
+    /**
+     * Scores the frame against the previous one. Returns true if recognition may run on it; call
+     * {@link #onTriggered()} if it actually does.
+     */
+    public boolean onFrame(Mat gray) {
+        if (thumb == null) {
+            thumb = new Mat();
+            previous = new Mat();
+            diff = new Mat();
+        }
+        int height = Math.max(1, gray.rows() * THUMB_WIDTH / Math.max(1, gray.cols()));
+        Imgproc.resize(gray, thumb, new Size(THUMB_WIDTH, height), 0, 0, Imgproc.INTER_AREA);
+
+        double score;
+        if (havePrevious && previous.size().equals(thumb.size())) {
+            Core.absdiff(thumb, previous, diff);
+            score = Core.mean(diff).val[0];
+        } else {
+            score = Double.MAX_VALUE; // nothing to compare with yet, treat as motion
+        }
+        // swap instead of copying, the old previous becomes the next thumbnail buffer
+        Mat t = previous;
+        previous = thumb;
+        thumb = t;
+        havePrevious = true;
+        return onMotionScore(score);
+    }
+
+    /** The gate decision for a frame with the given motion score. */
+    boolean onMotionScore(double score) {
+        frames++;
+        lastScore = score;
+        if (score > threshold) {
+            stable = 0;
+            triggers = 0;
+            skippedMoving++;
+            return false;
+        }
+        stable++;
+        if (stable < stableFrames) {
+            skippedSettling++;
+            return false;
+        }
+        if (triggers >= triggersPerStill) {
+            skippedSeen++;
+            return false;
+        }
+        return true;
+    }
+
+    /** Recognition was started on the last frame the gate let through. */
+    public void onTriggered() {
+        triggers++;
+        triggered++;
+    }
+
+    /** Opens the gate again for the current still scene, e.g. when the previous result was inconclusive. */
+    public void rearm() {
+        triggers = 0;
+    }
+
+    public void release() {
+        if (thumb != null) {
+            thumb.release();
+            previous.release();
+            diff.release();
+            thumb = previous = diff = null;
+        }
+        havePrevious = false;
+    }
+
+    public double lastScore() {
+        return lastScore;
+    }
+
+    public long frames() {
+        return frames;
+    }
+
+    public long triggered() {
+        return triggered;
+    }
+
+    /** Frames the gate held back, for whatever reason. */
+    public long skipped() {
+        return skippedMoving + skippedSettling + skippedSeen;
+    }
+
+    public long skippedMoving() {
+        return skippedMoving;
+    }
+
+    public long skippedSettling() {
+        return skippedSettling;
+    }
+
+    public long skippedSeen() {
+        return skippedSeen;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("frames %d, triggered %d, skipped %d (moving) + %d (settling) + %d (already seen)",
+                frames, triggered, skippedMoving, skippedSettling, skippedSeen);
+    }
+}
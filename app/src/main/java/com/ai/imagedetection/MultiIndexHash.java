@@ -0,0 +1,257 @@
+package com.ai.imagedetection;
+
+import java.util.Arrays;
+
+/**
+ * Multi-index hashing (Norouzi et al.) over 256-bit descriptors packed by {@link HammingMatcher}.
+ *
+ * Each descriptor is cut into {@code m} disjoint substrings and every substring gets its own
+ * direct-addressed table. If two descriptors are within Hamming distance r, at least one of their
+ * substrings is within floor(r / m) of each other (pigeonhole), so probing every table within that
+ * sub-radius and verifying the candidates with a full popcount gives exact results.
+ *
+ * Memory is m * (2^(256/m) + 1) ints for bucket offsets plus m * n ints for ids: 16 substrings
+ * of 16 bits is about 4 MB of offsets, 32 substrings of 8 bits is negligible but less selective.
+ */
+public final class MultiIndexHash {
+    public static final int DEFAULT_SUBSTRINGS = 16;
+
+    private static final int BITS = HammingMatcher.LANES * 64;
+
+    private final long[] train;
+    private final int count;
+    private final int substrings;
+    private final int subBits;
+    private final int subMask;
+    private final int[][] bucketStart; // [table][key] -> offset into ids, CSR style
+    private final int[][] ids;         // [table][offset] -> train row
+    private final int[] masks;         // every subBits-wide mask ordered by popcount
+    private final int[] masksUpTo;     // masksUpTo[s] = number of masks with popcount <= s
+
+    public MultiIndexHash(long[] packedTrain) {
+        this(packedTrain, DEFAULT_SUBSTRINGS);
+    }
+
+    public MultiIndexHash(long[] packedTrain, int substrings) {
+        // direct-addressed tables only make sense for 16- or 8-bit substrings
+        if (substrings != 16 && substrings != 32)
+            throw new IllegalArgumentException("Substrings must be 16 or 32, got " + substrings);
+        this.train = packedTrain;
+        this.count = packedTrain.length / HammingMatcher.LANES;
+        this.substrings = substrings;
+        this.subBits = BITS / substrings;
+        this.subMask = (1 << subBits) - 1;
+
+        int keys = 1 << subBits;
+        bucketStart = new int[substrings][];
+        ids = new int[substrings][];
+        for (int t = 0; t < substrings; t++) {
+            int[] start = new int[keys + 1];
+            for (int i = 0; i < count; i++) start[key(train, i, t) + 1]++;
+            for (int k = 0; k < keys; k++) start[k + 1] += start[k];
+            int[] fill = new int[keys];
+            int[] rows = new int[count];
+            for (int i = 0; i < count; i++) {
+                int k = key(train, i, t);
+                rows[start[k] + fill[k]++] = i;
+            }
+            bucketStart[t] = start;
+            ids[t] = rows;
+        }
+
+        masks = new int[keys];
+        masksUpTo = new int[subBits + 1];
+        int n = 0;
+        for (int pop = 0; pop <= subBits; pop++) {
+            for (int v = 0; v < keys; v++) {
+                if (Integer.bitCount(v) == pop) masks[n++] = v;
+            }
+            masksUpTo[pop] = n;
+        }
+    }
+
+    public static MultiIndexHash forStore(OrbDescriptorStore store) {
+        return new MultiIndexHash(HammingMatcher.pack(store.descriptors(), store.descriptorCount()));
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int substrings() {
+        return substrings;
+    }
+
+    private int key(long[] d, int row, int table) {
+        int bit = table * subBits;
+        return (int) (d[row * HammingMatcher.LANES + (bit >>> 6)] >>> (bit & 63)) & subMask;
+    }
+
+    /** Searchers hold per-thread scratch space; create one per worker thread. */
+    public Searcher newSearcher() {
+        return new Searcher();
+    }
+
+    public final class Searcher {
+        private final int[] seen = new int[count]; // generation stamp per train row, avoids re-verifying
+        private final int[] queryKeys = new int[substrings];
+        private int generation;
+        private int[] results = new int[64];
+        private int[] distances = new int[64];
+        private int resultCount;
+
+        // stats
+        private long queries;
+        private long candidates;
+        private long lastCandidates;
+
+        private int best, bestDist, secondDist;
+
+        /**
+         * All train rows within {@code radius} of query row {@code q}, exactly. Results are in
+         * {@link #results()} / {@link #distances()}, in no particular order.
+         */
+        public int rangeSearch(long[] query, int q, int radius) {
+            beginQuery();
+            resultCount = 0;
+            int sub = radius / substrings;
+            if (sub >= subBits) {
+                for (int i = 0; i < count; i++) visit(query, q, i, radius);
+            } else {
+                for (int t = 0; t < substrings; t++) {
+                    int qk = key(query, q, t);
+                    for (int m = 0; m < masksUpTo[sub]; m++) probe(query, q, t, qk ^ masks[m], radius);
+                }
+            }
+            endQuery();
+            return resultCount;
+        }
+
+        /**
+         * Exact two nearest neighbours among rows within {@code maxRadius}. Probing grows one
+         * sub-radius at a time and stops as soon as both neighbours are provably found. Returns the
+         * best row or -1; a second neighbour beyond maxRadius is reported as Integer.MAX_VALUE.
+         */
+        public int nearestTwo(long[] query, int q, int maxRadius) {
+            beginQuery();
+            best = -1;
+            bestDist = Integer.MAX_VALUE;
+            secondDist = Integer.MAX_VALUE;
+            int maxSub = Math.min(maxRadius / substrings, subBits);
+            int[] qk = queryKeys;
+            for (int t = 0; t < substrings; t++) qk[t] = key(query, q, t);
+            for (int sub = 0; sub <= maxSub; sub++) {
+                int from = sub == 0 ? 0 : masksUpTo[sub - 1];
+                for (int t = 0; t < substrings; t++) {
+                    for (int m = from; m < masksUpTo[sub]; m++) probeNearest(query, q, t, qk[t] ^ masks[m]);
+                }
+                // everything with distance <= substrings * (sub + 1) - 1 has now been seen
+                if (secondDist <= substrings * (sub + 1) - 1) break;
+            }
+            if (bestDist > maxRadius) {
+                best = -1;
+                bestDist = Integer.MAX_VALUE;
+            }
+            if (secondDist > maxRadius) secondDist = Integer.MAX_VALUE;
+            endQuery();
+            return best;
+        }
+
+        public int bestDistance() {
+            return bestDist;
+        }
+
+        public int secondDistance() {
+            return secondDist;
+        }
+
+        public int[] results() {
+            return results;
+        }
+
+        public int[] distances() {
+            return distances;
+        }
+
+        public int resultCount() {
+            return resultCount;
+        }
+
+        /** Candidates verified by the last query; brute force would verify {@link #size()}. */
+        public long lastCandidates() {
+            return lastCandidates;
+        }
+
+        public long totalCandidates() {
+            return candidates;
+        }
+
+        public long queries() {
+            return queries;
+        }
+
+        /** Distance computations a brute-force scan would have done, per candidate actually verified. */
+        public double speedupOverBruteForce() {
+            return candidates == 0 ? Double.POSITIVE_INFINITY : (double) queries * count / candidates;
+        }
+
+        public void resetStats() {
+            queries = 0;
+            candidates = 0;
+            lastCandidates = 0;
+        }
+
+        private void beginQuery() {
+            if (++generation == 0) { // wrapped, clear stamps
+                Arrays.fill(seen, 0);
+                generation = 1;
+            }
+            lastCandidates = 0;
+        }
+
+        private void endQuery() {
+            queries++;
+            candidates += lastCandidates;
+        }
+
+        private void probe(long[] query, int q, int table, int key, int radius) {
+            int[] rows = ids[table];
+            for (int i = bucketStart[table][key], end = bucketStart[table][key + 1]; i < end; i++) {
+                visit(query, q, rows[i], radius);
+            }
+        }
+
+        private void visit(long[] query, int q, int row, int radius) {
+            if (seen[row] == generation) return;
+            seen[row] = generation;
+            lastCandidates++;
+            int d = HammingMatcher.distance(query, q, train, row);
+            if (d > radius) return;
+            if (resultCount == results.length) {
+                results = Arrays.copyOf(results, resultCount * 2);
+                distances = Arrays.copyOf(distances, resultCount * 2);
+            }
+            results[resultCount] = row;
+            distances[resultCount] = d;
+            resultCount++;
+        }
+
+        private void probeNearest(long[] query, int q, int table, int key) {
+            int[] rows = ids[table];
+            for (int i = bucketStart[table][key], end = bucketStart[table][key + 1]; i < end; i++) {
+                int row = rows[i];
+                if (seen[row] == generation) continue;
+                seen[row] = generation;
+                lastCandidates++;
+                int d = HammingMatcher.distance(query, q, train, row);
+                if (d < bestDist) {
+                    secondDist = bestDist;
+                    bestDist = d;
+                    best = row;
+                } else if (d < secondDist) {
+                    secondDist = d;
+                }
+            }
+        }
+    }
+}
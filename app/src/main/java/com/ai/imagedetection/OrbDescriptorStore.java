@@ -0,0 +1,216 @@
+package com.ai.imagedetection;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read-only view over orb_features.bin, the binary replacement for orb_features.json.
+ *
+ * Layout (little endian):
+ * <pre>
+ *   header   magic "ORBD", version, flags, descriptorBytes, brandCount, imageCount,
+ *            descriptorCount, descriptorOffset                          (8 x int32)
+ *   brands   firstImage, imageCount, firstDescriptor, descriptorCount,
+ *            nameLength (int32 each), name (UTF-8)                       (per brand)
+ *   images   firstDescriptor, descriptorCount (int32 each)               (per image)
+ *   padding  up to a 16 byte boundary
+ *   block    descriptorCount x descriptorBytes, brand by brand, image by image
+ *   keypoints descriptorCount x (x, y) float32, only when flags has FLAG_KEYPOINTS
+ * </pre>
+ * The descriptor block is used in place: {@link #descriptorsMat()} wraps it as a CV_8UC1 Mat
+ * without copying or parsing. Use {@link OrbFeatureConverter} to produce the file.
+ */
+public final class OrbDescriptorStore {
+    public static final String ASSET_NAME = "orb_features.bin";
+
+    static final int MAGIC = 'O' | ('R' << 8) | ('B' << 16) | ('D' << 24);
+    static final int VERSION = 1;
+    static final int FLAG_KEYPOINTS = 1;
+    static final int DESCRIPTOR_BYTES = 32;
+    static final int HEADER_BYTES = 8 * 4;
+    static final int BRAND_ENTRY_BYTES = 5 * 4;
+    static final int IMAGE_ENTRY_BYTES = 2 * 4;
+    static final int KEYPOINT_BYTES = 2 * 4;
+    static final int BLOCK_ALIGNMENT = 16;
+
+    private final ByteBuffer descriptors;
+    private final FloatBuffer keypoints; // null when the store was built without keypoints
+    private final int descriptorCount;
+    private final String[] brandNames;
+    private final int[] brandFirstImage;
+    private final int[] brandImageCount;
+    private final int[] brandFirstDescriptor;
+    private final int[] brandDescriptorCount;
+    private final int[] imageFirstDescriptor;
+    private final int[] imageDescriptorCount;
+
+    /** Maps the asset directly; it must be stored uncompressed (see noCompress in app/build.gradle). */
+    public static OrbDescriptorStore open(AssetManager assetManager, String assetName) throws IOException {
+        try (AssetFileDescriptor fd = assetManager.openFd(assetName);
+             FileInputStream in = new FileInputStream(fd.getFileDescriptor())) {
+            FileChannel channel = in.getChannel();
+            return new OrbDescriptorStore(channel.map(FileChannel.MapMode.READ_ONLY,
+                    fd.getStartOffset(), fd.getDeclaredLength()));
+        }
+    }
+
+    public static OrbDescriptorStore open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            return new OrbDescriptorStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public OrbDescriptorStore(ByteBuffer data) throws IOException {
+        ByteBuffer buf = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.remaining() < HEADER_BYTES || buf.getInt() != MAGIC)
+            throw new IOException("Not an ORB descriptor store");
+        int version = buf.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported ORB descriptor store version " + version);
+        int flags = buf.getInt();
+        int descriptorBytes = buf.getInt();
+        if (descriptorBytes != DESCRIPTOR_BYTES)
+            throw new IOException("Unsupported descriptor size " + descriptorBytes);
+        int brandCount = buf.getInt();
+        int imageCount = buf.getInt();
+        descriptorCount = buf.getInt();
+        int descriptorOffset = buf.getInt();
+
+        brandNames = new String[brandCount];
+        brandFirstImage = new int[brandCount];
+        brandImageCount = new int[brandCount];
+        brandFirstDescriptor = new int[brandCount];
+        brandDescriptorCount = new int[brandCount];
+        for (int i = 0; i < brandCount; i++) {
+            brandFirstImage[i] = buf.getInt();
+            brandImageCount[i] = buf.getInt();
+            brandFirstDescriptor[i] = buf.getInt();
+            brandDescriptorCount[i] = buf.getInt();
+            byte[] name = new byte[buf.getInt()];
+            buf.get(name);
+            brandNames[i] = new String(name, StandardCharsets.UTF_8);
+        }
+
+        imageFirstDescriptor = new int[imageCount];
+        imageDescriptorCount = new int[imageCount];
+        for (int i = 0; i < imageCount; i++) {
+            imageFirstDescriptor[i] = buf.getInt();
+            imageDescriptorCount[i] = buf.getInt();
+        }
+
+        long end = (long) descriptorOffset + (long) descriptorCount * DESCRIPTOR_BYTES;
+        long keypointEnd = (flags & FLAG_KEYPOINTS) != 0 ? end + (long) descriptorCount * KEYPOINT_BYTES : end;
+        if (descriptorOffset < buf.position() || keypointEnd > buf.limit())
+            throw new IOException("Truncated ORB descriptor store");
+        if (keypointEnd != end) {
+            buf.limit((int) keypointEnd).position((int) end);
+            keypoints = buf.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        } else {
+            keypoints = null;
+        }
+        buf.limit((int) end).position(descriptorOffset);
+        descriptors = buf.slice().asReadOnlyBuffer();
+    }
+
+    public int brandCount() {
+        return brandNames.length;
+    }
+
+    public String brandName(int brand) {
+        return brandNames[brand];
+    }
+
+    public int brandIndex(String name) {
+        for (int i = 0; i < brandNames.length; i++) {
+            if (brandNames[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    public int brandFirstImage(int brand) {
+        return brandFirstImage[brand];
+    }
+
+    public int brandImageCount(int brand) {
+        return brandImageCount[brand];
+    }
+
+    public int brandFirstDescriptor(int brand) {
+        return brandFirstDescriptor[brand];
+    }
+
+    public int brandDescriptorCount(int brand) {
+        return brandDescriptorCount[brand];
+    }
+
+    public int imageCount() {
+        return imageFirstDescriptor.length;
+    }
+
+    public int imageFirstDescriptor(int image) {
+        return imageFirstDescriptor[image];
+    }
+
+    public int imageDescriptorCount(int image) {
+        return imageDescriptorCount[image];
+    }
+
+    public int descriptorCount() {
+        return descriptorCount;
+    }
+
+    /** Brand owning the given descriptor row. Brands are few, so a linear walk is fine. */
+    public int brandOfDescriptor(int row) {
+        for (int i = brandNames.length - 1; i >= 0; i--) {
+            if (row >= brandFirstDescriptor[i]) return i;
+        }
+        return -1;
+    }
+
+    /** The raw descriptor block, row-major, {@link #DESCRIPTOR_BYTES} per row. Position/limit are independent per call. */
+    public ByteBuffer descriptors() {
+        return descriptors.duplicate();
+    }
+
+    /** Whether reference keypoint coordinates are available for geometric verification. */
+    public boolean hasKeypoints() {
+        return keypoints != null;
+    }
+
+    public float keypointX(int row) {
+        return keypoints.get(row * 2);
+    }
+
+    public float keypointY(int row) {
+        return keypoints.get(row * 2 + 1);
+    }
+
+    /**
+     * All descriptors as a CV_8UC1 Mat of descriptorCount x 32 that points straight into the mapped
+     * file. The Mat is only valid while this store is reachable and must never be written to.
+     */
+    public Mat descriptorsMat() {
+        // OpenCV only needs the address; a read-only duplicate is still a direct buffer over the same pages
+        return new Mat(descriptorCount, DESCRIPTOR_BYTES, CvType.CV_8UC1, descriptors.duplicate());
+    }
+
+    /** Rows of a single brand, as a header into {@link #descriptorsMat()}. */
+    public Mat brandDescriptorsMat(Mat all, int brand) {
+        int first = brandFirstDescriptor[brand];
+        return all.rowRange(first, first + brandDescriptorCount[brand]);
+    }
+}
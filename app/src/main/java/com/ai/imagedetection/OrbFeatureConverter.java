@@ -0,0 +1,320 @@
+package com.ai.imagedetection;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Converts the legacy orb_features.json (kept in app/orb, outside the assets so it does not ship)
+ * into the binary layout read by {@link OrbDescriptorStore}. The JSON looks like
+ * {"Brand": [[[32 ints], [32 ints], ...], ...], ...} — brand -> reference image -> descriptors.
+ * An image may instead be {"keypoints": [[x, y], ...], "descriptors": [[32 ints], ...]}; when every
+ * image carries keypoints they are written too and enable geometric verification.
+ *
+ * Host usage: java com.ai.imagedetection.OrbFeatureConverter orb/orb_features.json src/main/assets/orb_features.bin
+ */
+public final class OrbFeatureConverter {
+
+    private OrbFeatureConverter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: OrbFeatureConverter <orb_features.json> <orb_features.bin>");
+            System.exit(2);
+        }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(args[0]));
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(args[1]))) {
+            convert(in, out);
+        }
+    }
+
+    public static void convert(InputStream json, OutputStream out) throws IOException {
+        List<Brand> brands = parse(json);
+        out.write(encode(brands));
+    }
+
+    static byte[] encode(List<Brand> brands) {
+        int imageCount = 0, descriptorCount = 0, tableBytes = 0, withKeypoints = 0;
+        for (Brand b : brands) {
+            imageCount += b.images.size();
+            for (Image image : b.images) {
+                descriptorCount += image.rows();
+                if (image.keypoints != null) withKeypoints++;
+            }
+            tableBytes += OrbDescriptorStore.BRAND_ENTRY_BYTES + b.name.getBytes(StandardCharsets.UTF_8).length;
+        }
+        tableBytes += imageCount * OrbDescriptorStore.IMAGE_ENTRY_BYTES;
+        if (withKeypoints != 0 && withKeypoints != imageCount)
+            throw new IllegalArgumentException("Either all reference images carry keypoints or none do");
+        boolean keypoints = imageCount > 0 && withKeypoints == imageCount;
+
+        int descriptorOffset = align(OrbDescriptorStore.HEADER_BYTES + tableBytes, OrbDescriptorStore.BLOCK_ALIGNMENT);
+        int total = descriptorOffset + descriptorCount * OrbDescriptorStore.DESCRIPTOR_BYTES;
+        if (keypoints) total += descriptorCount * OrbDescriptorStore.KEYPOINT_BYTES;
+
+        ByteBuffer buf = ByteBuffer.allocate(total).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(OrbDescriptorStore.MAGIC);
+        buf.putInt(OrbDescriptorStore.VERSION);
+        buf.putInt(keypoints ? OrbDescriptorStore.FLAG_KEYPOINTS : 0);
+        buf.putInt(OrbDescriptorStore.DESCRIPTOR_BYTES);
+        buf.putInt(brands.size());
+        buf.putInt(imageCount);
+        buf.putInt(descriptorCount);
+        buf.putInt(descriptorOffset);
+
+        // brand table
+        int image = 0, row = 0;
+        for (Brand b : brands) {
+            int rows = 0;
+            for (Image img : b.images) rows += img.rows();
+            byte[] name = b.name.getBytes(StandardCharsets.UTF_8);
+            buf.putInt(image);
+            buf.putInt(b.images.size());
+            buf.putInt(row);
+            buf.putInt(rows);
+            buf.putInt(name.length);
+            buf.put(name);
+            image += b.images.size();
+            row += rows;
+        }
+
+        // image table
+        row = 0;
+        for (Brand b : brands) {
+            for (Image img : b.images) {
+                int rows = img.rows();
+                buf.putInt(row);
+                buf.putInt(rows);
+                row += rows;
+            }
+        }
+
+        // contiguous descriptor block
+        buf.position(descriptorOffset);
+        for (Brand b : brands) {
+            for (Image img : b.images) buf.put(img.descriptors);
+        }
+
+        // optional keypoint block, x/y float pairs in descriptor order
+        if (keypoints) {
+            for (Brand b : brands) {
+                for (Image img : b.images) {
+                    for (float v : img.keypoints) buf.putFloat(v);
+                }
+            }
+        }
+        return buf.array();
+    }
+
+    private static int align(int value, int alignment) {
+        return (value + alignment - 1) / alignment * alignment;
+    }
+
+    static final class Brand {
+        final String name;
+        final List<Image> images = new ArrayList<>();
+
+        Brand(String name) {
+            this.name = name;
+        }
+    }
+
+    static final class Image {
+        final byte[] descriptors;
+        final float[] keypoints; // x0, y0, x1, y1, ... or null
+
+        Image(byte[] descriptors, float[] keypoints) {
+            this.descriptors = descriptors;
+            this.keypoints = keypoints;
+        }
+
+        int rows() {
+            return descriptors.length / OrbDescriptorStore.DESCRIPTOR_BYTES;
+        }
+    }
+
+    // --- minimal streaming parser for the nested int arrays, avoids building a 2 MB String ---
+
+    static List<Brand> parse(InputStream in) throws IOException {
+        Lexer lx = new Lexer(in);
+        List<Brand> brands = new ArrayList<>();
+        lx.expect('{');
+        if (lx.peek() == '}') {
+            lx.next();
+            return brands;
+        }
+        do {
+            Brand brand = new Brand(lx.string());
+            lx.expect(':');
+            lx.expect('[');
+            if (lx.peek() != ']') {
+                do {
+                    brand.images.add(parseImage(lx));
+                } while (lx.comma(']'));
+            } else {
+                lx.next();
+            }
+            brands.add(brand);
+        } while (lx.comma('}'));
+        return brands;
+    }
+
+    private static Image parseImage(Lexer lx) throws IOException {
+        if (lx.peek() != '{') return new Image(parseDescriptors(lx), null);
+
+        lx.next();
+        byte[] descriptors = null;
+        float[] keypoints = null;
+        do {
+            String key = lx.string();
+            lx.expect(':');
+            if (key.equals("descriptors")) {
+                descriptors = parseDescriptors(lx);
+            } else if (key.equals("keypoints")) {
+                keypoints = parseKeypoints(lx);
+            } else {
+                throw new IOException("Unknown image field '" + key + "'");
+            }
+        } while (lx.comma('}'));
+        if (descriptors == null) throw new IOException("Image without descriptors");
+        if (keypoints != null && keypoints.length / 2 != descriptors.length / OrbDescriptorStore.DESCRIPTOR_BYTES)
+            throw new IOException("Keypoint and descriptor counts differ");
+        return new Image(descriptors, keypoints);
+    }
+
+    private static float[] parseKeypoints(Lexer lx) throws IOException {
+        float[] xy = new float[64];
+        int n = 0;
+        lx.expect('[');
+        if (lx.peek() == ']') {
+            lx.next();
+            return new float[0];
+        }
+        do {
+            lx.expect('[');
+            if (n + 2 > xy.length) xy = Arrays.copyOf(xy, xy.length * 2);
+            xy[n++] = (float) lx.number();
+            lx.expect(',');
+            xy[n++] = (float) lx.number();
+            lx.expect(']');
+        } while (lx.comma(']'));
+        return Arrays.copyOf(xy, n);
+    }
+
+    private static byte[] parseDescriptors(Lexer lx) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        lx.expect('[');
+        if (lx.peek() == ']') {
+            lx.next();
+            return bytes.toByteArray();
+        }
+        do {
+            lx.expect('[');
+            int n = 0;
+            do {
+                int v = lx.integer();
+                if (v < 0 || v > 255) throw new IOException("Descriptor byte out of range: " + v);
+                bytes.write(v);
+                n++;
+            } while (lx.comma(']'));
+            if (n != OrbDescriptorStore.DESCRIPTOR_BYTES)
+                throw new IOException("Expected " + OrbDescriptorStore.DESCRIPTOR_BYTES + "-byte descriptor, got " + n);
+        } while (lx.comma(']'));
+        return bytes.toByteArray();
+    }
+
+    private static final class Lexer {
+        private final InputStream in;
+        private int la = -2;
+
+        Lexer(InputStream in) {
+            this.in = in;
+        }
+
+        int peek() throws IOException {
+            if (la == -2) {
+                int c;
+                do {
+                    c = in.read();
+                } while (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+                la = c;
+            }
+            return la;
+        }
+
+        int next() throws IOException {
+            int c = peek();
+            la = -2;
+            return c;
+        }
+
+        void expect(char c) throws IOException {
+            int got = next();
+            if (got != c) throw new IOException("Expected '" + c + "' but found '" + (char) got + "'");
+        }
+
+        // consumes ',' (returns true) or the closing bracket (returns false)
+        boolean comma(char close) throws IOException {
+            int c = next();
+            if (c == ',') return true;
+            if (c == close) return false;
+            throw new IOException("Expected ',' or '" + close + "' but found '" + (char) c + "'");
+        }
+
+        int integer() throws IOException {
+            int c = next();
+            boolean neg = c == '-';
+            if (neg) c = in.read();
+            if (c < '0' || c > '9') throw new IOException("Expected digit but found '" + (char) c + "'");
+            int v = 0;
+            while (c >= '0' && c <= '9') {
+                v = v * 10 + (c - '0');
+                c = in.read();
+            }
+            // push back the terminator, skipping whitespace
+            while (c == ' ' || c == '\n' || c == '\r' || c == '\t') c = in.read();
+            la = c;
+            return neg ? -v : v;
+        }
+
+        double number() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            int c = next();
+            while ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                sb.append((char) c);
+                c = in.read();
+            }
+            while (c == ' ' || c == '\n' || c == '\r' || c == '\t') c = in.read();
+            la = c;
+            try {
+                return Double.parseDouble(sb.toString());
+            } catch (NumberFormatException e) {
+                throw new IOException("Bad number '" + sb + "'");
+            }
+        }
+
+        String string() throws IOException {
+            expect('"');
+            ByteArrayOutputStream raw = new ByteArrayOutputStream();
+            int c;
+            while ((c = in.read()) != '"') {
+                if (c == -1) throw new IOException("Unterminated string");
+                if (c == '\\') c = in.read();
+                raw.write(c);
+            }
+            return new String(raw.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
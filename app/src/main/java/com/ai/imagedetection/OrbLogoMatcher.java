@@ -0,0 +1,170 @@
+package com.ai.imagedetection;
+
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import org.opencv.android.Utils;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfKeyPoint;
+import org.opencv.core.MatScope;
+import org.opencv.features2d.ORB;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.utils.Converters;
+import org.opencv.utils.KeyPointArrays;
+
+import java.io.IOException;
+
+public class OrbLogoMatcher {
+    private static final String TAG = "OrbLogoMatcher";
+    private static final int MAX_FEATURES = 500;     // same budget the reference set was built with
+    private static final float RATIO = 0.75f;        // Lowe's ratio test
+    private static final int MIN_GOOD_MATCHES = 20;  // tweak, only used without reference keypoints
+    private static final int SHORTLIST_SIZE = 5;     // brands that go on to per-image matching
+
+    private final OrbDescriptorStore store;
+    private final HammingMatcher matcher;
+    private final BowIndex bow;
+    private final GeometricVerifier verifier;
+    private final ORB orb;
+    private final KeyPointArrays keypointArrays = new KeyPointArrays(); // reused, like orb this is one thread's
+
+    public OrbLogoMatcher(AssetManager assetManager) throws IOException {
+        this(OrbDescriptorStore.open(assetManager, OrbDescriptorStore.ASSET_NAME));
+    }
+
+    public OrbLogoMatcher(OrbDescriptorStore store) {
+        this.store = store;
+        this.matcher = HammingMatcher.forStore(store);
+        long t0 = System.nanoTime();
+        this.bow = BowIndex.build(store);
+        Log.d(TAG, "BoW vocabulary of " + bow.words() + " words over " + bow.documents()
+                + " reference images built in " + (System.nanoTime() - t0) / 1000000 + " ms");
+        this.verifier = new GeometricVerifier(store, matcher);
+        verifier.setRatio(RATIO);
+        verifier.setMinMatches(MIN_GOOD_MATCHES);
+        this.orb = ORB.create(MAX_FEATURES);
+        Log.d(TAG, "Loaded " + store.descriptorCount() + " reference descriptors for "
+                + store.brandCount() + " brand(s)"
+                + (store.hasKeypoints() ? "" : ", no keypoints so no geometric verification"));
+    }
+
+    public OrbDescriptorStore store() {
+        return store;
+    }
+
+    public HammingMatcher matcher() {
+        return matcher;
+    }
+
+    public GeometricVerifier verifier() {
+        return verifier;
+    }
+
+    /** Detects ORB features on the bitmap: descriptors packed for {@link HammingMatcher} plus keypoint positions. */
+    public Features extract(Bitmap bitmap) {
+        // photos come in all sizes, pooling them would mostly keep dead buffers: free them right away
+        try (MatScope scope = MatScope.open()) {
+            Mat rgba = new Mat();
+            Utils.bitmapToMat(bitmap, rgba);
+            Mat gray = new Mat();
+            Imgproc.cvtColor(rgba, gray, Imgproc.COLOR_RGBA2GRAY);
+            return extract(gray);
+        }
+    }
+
+    /** Same as {@link #extract(Bitmap)} on the gray Mat the scan already shares with the other stages. */
+    public Features extract(ScanImage image) {
+        return extract(image.gray());
+    }
+
+    /** Same as {@link #extract(Bitmap)} for an 8-bit single channel image, e.g. a camera frame's gray(). */
+    public Features extract(Mat gray) {
+        try (MatScope scope = MatScope.open()) {
+            MatOfKeyPoint keypoints = new MatOfKeyPoint();
+            Mat descriptors = new Mat();
+            orb.detectAndCompute(gray, new Mat(), keypoints, descriptors);
+            return new Features(HammingMatcher.pack(descriptors), points(keypoints));
+        }
+    }
+
+    private float[] points(MatOfKeyPoint keypoints) {
+        Converters.Mat_to_KeyPointArrays(keypoints, keypointArrays);
+        float[] xy = new float[keypointArrays.count * 2];
+        keypointArrays.points(xy);
+        return xy;
+    }
+
+    public Result match(Bitmap bitmap) {
+        return match(extract(bitmap));
+    }
+
+    public Result match(ScanImage image) {
+        return match(extract(image));
+    }
+
+    /**
+     * Shortlists brands with the BoW index, then verifies them in shortlist order, stopping at the
+     * first that passes. Each brand is matched per reference image (the same logo shows up in many
+     * reference images, so a global 2-NN would fail the ratio test between them) and its best image
+     * goes on to geometric verification.
+     */
+    public Result match(Features query) {
+        long t0 = System.nanoTime();
+        BowIndex.Shortlist shortlist = bow.shortlist(query.descriptors, SHORTLIST_SIZE);
+        Log.d(TAG, "BoW shortlist of " + shortlist.count + " brand(s) in "
+                + (System.nanoTime() - t0) / 1000 + " us");
+
+        GeometricVerifier.Verification v = verifier.verify(query.descriptors, query.points,
+                shortlist.brands, shortlist.count);
+        Log.d(TAG, "Verified " + v.tried + " of " + shortlist.count + " brand(s) in "
+                + v.totalNanos() / 1000 + " us");
+
+        int queryCount = query.count();
+        if (v.brand < 0) {
+            int best = 0;
+            for (int i = 0; i < v.tried; i++) best = Math.max(best, v.matches[i]);
+            return new Result(null, best, -1, queryCount, null);
+        }
+        int i = v.last();
+        return new Result(store.brandName(v.brand), v.matches[i], v.inliers[i], queryCount,
+                v.inliers[i] > 0 ? v.region.clone() : null);
+    }
+
+    public static class Features {
+        public final long[] descriptors; // packed, HammingMatcher.LANES longs per row
+        public final float[] points;     // x, y per descriptor row
+
+        public Features(long[] descriptors, float[] points) {
+            this.descriptors = descriptors;
+            this.points = points;
+        }
+
+        public int count() {
+            return descriptors.length / HammingMatcher.LANES;
+        }
+    }
+
+    public static class Result {
+        public final String brand; // null when nothing passed the threshold
+        public final int goodMatches;
+        public final int inliers;  // -1 when not verified geometrically
+        public final int queryDescriptors;
+        public final float[] region; // x0, y0, x1, y1 of the inliers in the query image, null when not verified geometrically
+
+        Result(String brand, int goodMatches, int inliers, int queryDescriptors, float[] region) {
+            this.brand = brand;
+            this.goodMatches = goodMatches;
+            this.inliers = inliers;
+            this.queryDescriptors = queryDescriptors;
+            this.region = region;
+        }
+
+        @Override
+        public String toString() {
+            if (brand == null) return "⚠️ No logo matched (ORB " + goodMatches + "/" + queryDescriptors + ")";
+            if (inliers >= 0) return brand + " (ORB " + goodMatches + "/" + queryDescriptors + " matches, " + inliers + " inliers)";
+            return brand + " (ORB " + goodMatches + "/" + queryDescriptors + " matches)";
+        }
+    }
+}
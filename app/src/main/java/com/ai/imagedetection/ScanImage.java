@@ -0,0 +1,220 @@
+package com.ai.imagedetection;
+
+import android.graphics.Bitmap;
+
+import org.opencv.android.Utils;
+import org.opencv.core.BufferMat;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * One scanned picture shared by the OCR, classifier and ORB stages. Every representation a stage
+ * needs (the ARGB ints, an RGBA or gray Mat, the classifier sized bitmap) is made the first time
+ * it is asked for and then handed to every later stage, so a scan converts the pixels once per
+ * representation instead of once per stage.
+ *
+ * An ARGB_8888 bitmap is copied into the RGBA Mat with one copyPixelsToBuffer() straight into the
+ * Mat's direct buffer (a BufferMat): no Utils.bitmapToMat() round trip. Other configs go through
+ * Utils.bitmapToMat(). Changing the bitmap (its generation id) drops the cached representations.
+ * The Mats are plain allocations, not MatPool leases: picture sizes vary too much for a pooled
+ * buffer to be hit again, so close() frees them.
+ *
+ * A camera frame is scanned with of(rgba, gray) instead: the Mats it already has are the pixel
+ * source, there is no bitmap, and only what a stage asks for beyond them (the classifier sized
+ * bitmap) is converted. Stages that can read Mats should check hasBitmap() rather than ask for
+ * argb(), which would copy the whole frame.
+ *
+ * Not thread safe beyond the synchronized getters; close() when the scan is done.
+ */
+public class ScanImage implements AutoCloseable {
+    private final Bitmap bitmap;  // null for a scan of Mats
+    private int generation;
+    private final boolean ownsRgba;
+    private final boolean ownsGray;
+
+    private int[] argb;
+    private Mat rgba;
+    private Mat gray;
+    private Bitmap scaled;
+
+    private int conversions; // representations made
+    private int reuses;      // requests answered from the cache
+
+    private ScanImage(Bitmap bitmap) {
+        this.bitmap = bitmap;
+        this.generation = bitmap.getGenerationId();
+        this.ownsRgba = true;
+        this.ownsGray = true;
+    }
+
+    private ScanImage(Mat rgba, Mat gray) {
+        this.bitmap = null;
+        this.rgba = rgba;
+        this.gray = gray;
+        this.ownsRgba = false;
+        this.ownsGray = gray == null;
+    }
+
+    public static ScanImage wrap(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) throw new IllegalArgumentException("No bitmap to scan");
+        return new ScanImage(bitmap);
+    }
+
+    /**
+     * A scan of pixels that already are Mats, e.g. a camera frame: CV_8UC4 RGBA and, if at hand,
+     * its CV_8UC1 gray (null to have it converted on first use). Neither is copied nor released by
+     * close(); they must not change while the scan is in use.
+     */
+    public static ScanImage of(Mat rgba, Mat gray) {
+        if (rgba == null || rgba.empty() || rgba.type() != CvType.CV_8UC4)
+            throw new IllegalArgumentException("No RGBA Mat to scan");
+        if (gray != null && (gray.type() != CvType.CV_8UC1 || !gray.size().equals(rgba.size())))
+            throw new IllegalArgumentException("Gray Mat does not match the RGBA one");
+        return new ScanImage(rgba, gray);
+    }
+
+    /** The source bitmap itself, e.g. for OCR, null for a scan of Mats. Not copied and not recycled by close(). */
+    public Bitmap bitmap() {
+        return bitmap;
+    }
+
+    /** False for a scan of Mats, where argb() is a full frame conversion rather than a getPixels() away. */
+    public boolean hasBitmap() {
+        return bitmap != null;
+    }
+
+    public int width() {
+        return bitmap != null ? bitmap.getWidth() : rgba.cols();
+    }
+
+    public int height() {
+        return bitmap != null ? bitmap.getHeight() : rgba.rows();
+    }
+
+    /** Pixels as getPixels() returns them: unpremultiplied ARGB, row by row. Do not modify. */
+    public synchronized int[] argb() {
+        checkGeneration();
+        if (argb != null) {
+            reuses++;
+            return argb;
+        }
+        int w = width(), h = height();
+        argb = new int[w * h];
+        if (bitmap != null) {
+            bitmap.getPixels(argb, 0, w, 0, 0, w, h);
+        } else {
+            byte[] bytes = new byte[w * h * 4];
+            rgba.get(0, 0, bytes);
+            for (int i = 0; i < argb.length; i++) {
+                argb[i] = (bytes[4 * i + 3] & 0xFF) << 24 | (bytes[4 * i] & 0xFF) << 16
+                        | (bytes[4 * i + 1] & 0xFF) << 8 | (bytes[4 * i + 2] & 0xFF);
+            }
+        }
+        conversions++;
+        return argb;
+    }
+
+    /** CV_8UC4 RGBA, alpha premultiplied like Utils.bitmapToMat(bmp, mat). Do not release: owned by this image or, if passed to of(), by its caller. */
+    public synchronized Mat rgba() {
+        checkGeneration();
+        if (rgba != null) {
+            reuses++;
+            return rgba;
+        }
+        int w = bitmap.getWidth(), h = bitmap.getHeight();
+        if (bitmap.getConfig() == Bitmap.Config.ARGB_8888 && bitmap.getRowBytes() == w * 4) {
+            // ARGB_8888 is laid out as RGBA bytes in memory, exactly a CV_8UC4 row
+            BufferMat m = BufferMat.allocate(h, w, CvType.CV_8UC4);
+            bitmap.copyPixelsToBuffer(m.byteBuffer());
+            rgba = m;
+        } else {
+            rgba = new Mat();
+            Utils.bitmapToMat(bitmap, rgba);
+        }
+        conversions++;
+        return rgba;
+    }
+
+    /** CV_8UC1 gray of rgba(). Do not release: owned by this image or, if passed to of(), by its caller. */
+    public synchronized Mat gray() {
+        checkGeneration();
+        if (gray != null) {
+            reuses++;
+            return gray;
+        }
+        Mat src = rgba();
+        gray = new Mat();
+        Imgproc.cvtColor(src, gray, Imgproc.COLOR_RGBA2GRAY);
+        conversions++;
+        return gray;
+    }
+
+    /** The bitmap filtered to width x height; the last size asked for is kept. Do not recycle. */
+    public synchronized Bitmap scaled(int width, int height) {
+        checkGeneration();
+        if (scaled != null && scaled.getWidth() == width && scaled.getHeight() == height) {
+            reuses++;
+            return scaled;
+        }
+        dropScaled();
+        if (bitmap != null) {
+            scaled = Bitmap.createScaledBitmap(bitmap, width, height, true);
+        } else {
+            // bilinear like the filtered createScaledBitmap(), and only the small result becomes a bitmap
+            Mat small = new Mat();
+            Imgproc.resize(rgba, small, new Size(width, height), 0, 0, Imgproc.INTER_LINEAR);
+            scaled = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            Utils.matToBitmap(small, scaled);
+            small.release();
+        }
+        conversions++;
+        return scaled;
+    }
+
+    public synchronized int conversions() {
+        return conversions;
+    }
+
+    public synchronized int reuses() {
+        return reuses;
+    }
+
+    private void checkGeneration() {
+        if (bitmap == null) return; // the owner of the Mats keeps them unchanged
+        int current = bitmap.getGenerationId();
+        if (current == generation) return;
+        release(); // someone drew into the bitmap, nothing cached shows it any more
+        generation = current;
+    }
+
+    private void dropScaled() {
+        if (scaled != null && scaled != bitmap) scaled.recycle(); // createScaledBitmap returns the source when the size matches
+        scaled = null;
+    }
+
+    private void release() {
+        argb = null;
+        if (ownsRgba && rgba != null) {
+            rgba.release();
+            rgba = null;
+        }
+        if (ownsGray && gray != null) {
+            gray.release();
+            gray = null;
+        }
+        dropScaled();
+    }
+
+    /** Releases the cached representations; the source bitmap stays usable. */
+    @Override
+    public synchronized void close() {
+        release();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%dx%d, conversions %d, reused %d", width(), height(), conversions, reuses);
+    }
+}
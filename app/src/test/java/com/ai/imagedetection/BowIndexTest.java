@@ -0,0 +1,49 @@
+package com.ai.imagedetection;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BowIndexTest {
+
+    @Test
+    public void shortlistsBrandOfNoisyQuery() {
+        Random rnd = new Random(3);
+        int brands = 6, imagesPerBrand = 3, perImage = 120;
+        int docs = brands * imagesPerBrand;
+        long[] descriptors = new long[docs * perImage * 4];
+        int[] docFirst = new int[docs + 1];
+        int[] docBrand = new int[docs];
+
+        // each brand has its own pool of features; its images are noisy subsets of that pool
+        long[][] pools = new long[brands][perImage * 4];
+        for (long[] pool : pools) for (int i = 0; i < pool.length; i++) pool[i] = rnd.nextLong();
+        int row = 0;
+        for (int doc = 0; doc < docs; doc++) {
+            docBrand[doc] = doc / imagesPerBrand;
+            docFirst[doc] = row;
+            for (int i = 0; i < perImage; i++, row++) {
+                int src = rnd.nextInt(perImage);
+                for (int l = 0; l < 4; l++) {
+                    descriptors[row * 4 + l] = pools[docBrand[doc]][src * 4 + l] ^ (1L << rnd.nextInt(64));
+                }
+            }
+        }
+        docFirst[docs] = row;
+
+        BowIndex index = BowIndex.build(descriptors, docFirst, docBrand, brands, 256, 1);
+        assertEquals(256, index.words());
+
+        long[] query = new long[80 * 4];
+        for (int i = 0; i < 80; i++) {
+            int src = rnd.nextInt(perImage);
+            for (int l = 0; l < 4; l++) query[i * 4 + l] = pools[4][src * 4 + l] ^ (1L << rnd.nextInt(64));
+        }
+        BowIndex.Shortlist shortlist = index.shortlist(query, 3);
+        assertTrue(shortlist.count > 0);
+        assertEquals(4, shortlist.brands[0]);
+        for (int i = 1; i < shortlist.count; i++) assertTrue(shortlist.scores[i] <= shortlist.scores[i - 1]);
+    }
+}
@@ -0,0 +1,44 @@
+package com.ai.imagedetection;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FrameSchedulerTest {
+    private static final long FRAME = 33_000_000L; // ~30 fps
+
+    @Test
+    public void analysesEveryIdleFrameUntilLatencyIsKnown() {
+        FrameScheduler s = new FrameScheduler(0.5, 30);
+        assertTrue(s.onFrame(0, true));
+        assertFalse(s.onFrame(FRAME, false));
+        assertEquals(1, s.skippedBusy());
+        assertEquals(1, s.interval());
+    }
+
+    @Test
+    public void intervalFollowsLatency() {
+        FrameScheduler s = new FrameScheduler(0.5, 30);
+        long t = 0;
+        for (int i = 0; i < 5; i++) s.onFrame(t += FRAME, true);
+        // 165 ms analysis at 50 % duty cycle of 33 ms frames -> every 10th frame
+        for (int i = 0; i < 20; i++) s.onAnalysisDone(165_000_000L);
+        assertEquals(10, s.interval());
+
+        int analysed = 0;
+        for (int i = 0; i < 100; i++) {
+            if (s.onFrame(t += FRAME, true)) analysed++;
+        }
+        assertEquals(10, analysed);
+        assertEquals(90, s.skippedBySchedule());
+    }
+
+    @Test
+    public void intervalIsCapped() {
+        FrameScheduler s = new FrameScheduler(0.25, 8);
+        s.onFrame(0, true);
+        s.onFrame(FRAME, true);
+        s.onAnalysisDone(5_000_000_000L);
+        assertEquals(8, s.interval());
+    }
+}
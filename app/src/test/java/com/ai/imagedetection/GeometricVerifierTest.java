@@ -0,0 +1,47 @@
+package com.ai.imagedetection;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class GeometricVerifierTest {
+
+    private static HammingMatcher.Matches matches(int... distances) {
+        HammingMatcher.Matches m = new HammingMatcher.Matches(distances.length);
+        for (int i = 0; i < distances.length; i++) {
+            m.queryIdx[i] = i;
+            m.trainIdx[i] = 100 + i;
+            m.distance[i] = distances[i];
+        }
+        m.count = distances.length;
+        return m;
+    }
+
+    @Test
+    public void keepsClosestMatchesInOriginalOrder() {
+        HammingMatcher.Matches m = matches(40, 10, 30, 10, 50, 20);
+        GeometricVerifier.keepClosest(m, 3, new int[257]);
+        assertEquals(3, m.count);
+        assertArrayEquals(new int[]{1, 3, 5}, Arrays.copyOf(m.queryIdx, 3));
+        assertEquals(103, m.trainIdx[1]);
+        assertEquals(20f, m.distance[2], 0f);
+    }
+
+    @Test
+    public void cutsTiesAtTheBudget() {
+        HammingMatcher.Matches m = matches(7, 3, 7, 7, 3);
+        GeometricVerifier.keepClosest(m, 3, new int[257]);
+        assertEquals(3, m.count);
+        assertArrayEquals(new int[]{0, 1, 4}, Arrays.copyOf(m.queryIdx, 3));
+    }
+
+    @Test
+    public void leavesSmallSetsAlone() {
+        HammingMatcher.Matches m = matches(9, 1);
+        GeometricVerifier.keepClosest(m, 80, new int[257]);
+        assertEquals(2, m.count);
+        assertEquals(0, m.queryIdx[0]);
+    }
+}
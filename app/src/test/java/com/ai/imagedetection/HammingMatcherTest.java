@@ -0,0 +1,78 @@
+package com.ai.imagedetection;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HammingMatcherTest {
+
+    private static long[] random(Random rnd, int count) {
+        long[] d = new long[count * HammingMatcher.LANES];
+        for (int i = 0; i < d.length; i++) d[i] = rnd.nextLong();
+        return d;
+    }
+
+    @Test
+    public void packsBytesAsLittleEndianLanes() {
+        byte[] row = new byte[32];
+        row[0] = 1;
+        row[9] = (byte) 0x80;
+        long[] packed = HammingMatcher.pack(row, 1);
+        assertEquals(1L, packed[0]);
+        assertEquals(0x8000L, packed[1]);
+        assertEquals(2, Long.bitCount(packed[0]) + Long.bitCount(packed[1]));
+    }
+
+    @Test
+    public void matchesBruteForceReference() {
+        Random rnd = new Random(42);
+        long[] train = random(rnd, 700);
+        long[] query = random(rnd, 300);
+        // plant near-duplicates so the ratio test has something to accept
+        for (int q = 0; q < 300; q += 3) {
+            int t = (q * 7) % 700;
+            System.arraycopy(train, t * 4, query, q * 4, 4);
+            query[q * 4 + 2] ^= 0x11L;
+        }
+
+        HammingMatcher matcher = new HammingMatcher(train);
+        HammingMatcher.Matches m = matcher.knnRatioMatch(query, 0.8f);
+
+        int expected = 0;
+        for (int q = 0; q < 300; q++) {
+            int best = -1, d1 = Integer.MAX_VALUE, d2 = Integer.MAX_VALUE;
+            for (int t = 0; t < 700; t++) {
+                int d = HammingMatcher.distance(query, q, train, t);
+                if (d < d1) {
+                    d2 = d1;
+                    d1 = d;
+                    best = t;
+                } else if (d < d2) {
+                    d2 = d;
+                }
+            }
+            if (d1 < 0.8f * d2) {
+                assertEquals(q, m.queryIdx[expected]);
+                assertEquals(best, m.trainIdx[expected]);
+                assertEquals(d1, m.distance[expected], 0f);
+                expected++;
+            }
+        }
+        assertEquals(expected, m.count);
+        assertTrue(m.count >= 100);
+    }
+
+    @Test
+    public void restrictsToTrainRange() {
+        Random rnd = new Random(7);
+        long[] train = random(rnd, 50);
+        long[] query = new long[4];
+        System.arraycopy(train, 10 * 4, query, 0, 4);
+
+        assertEquals(10, new HammingMatcher(train).knnRatioMatch(query, 0.75f).trainIdx[0]);
+        HammingMatcher.Matches outside = new HammingMatcher(train).knnRatioMatch(query, 20, 50, 0.75f);
+        assertTrue(outside.count == 0 || outside.trainIdx[0] >= 20);
+    }
+}
@@ -0,0 +1,96 @@
+package com.ai.imagedetection;
+
+import org.junit.Test;
+import org.opencv.core.TiledExecutor;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ImageHeuristicsTest {
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    private static int[] image(int w, int h, long seed) {
+        Random random = new Random(seed);
+        int[] argb = new int[w * h];
+        for (int i = 0; i < argb.length; i++) argb[i] = 0xFF000000 | random.nextInt(0x1000000);
+        return argb;
+    }
+
+    // the single threaded loops the bands replaced
+    private static double serialVariance(int[] pixels) {
+        long sum = 0, sumSq = 0;
+        for (int c : pixels) {
+            int gray = (int) (0.3 * ((c >> 16) & 0xFF) + 0.59 * ((c >> 8) & 0xFF) + 0.11 * (c & 0xFF));
+            sum += gray;
+            sumSq += gray * gray;
+        }
+        double mean = sum / (double) pixels.length;
+        return (sumSq / (double) pixels.length) - mean * mean;
+    }
+
+    private static float serialEdgeDensity(int[] pixels, int w, int h) {
+        int step = Math.max(1, Math.min(w, h) / 50);
+        int edgeCount = 0, total = 0;
+        for (int y = step; y < h - step; y += step) {
+            for (int x = step; x < w - step; x += step) {
+                int diff = Math.abs(((pixels[y * w + x] >> 16) & 0xFF) - ((pixels[y * w + x + step] >> 16) & 0xFF));
+                if (diff > 20) edgeCount++;
+                total++;
+            }
+        }
+        return (float) edgeCount / total;
+    }
+
+    @Test
+    public void bandsMatchTheSerialLoops() {
+        TiledExecutor executor = new TiledExecutor(POOL, 8);
+        int[][] sizes = {{640, 480}, {97, 331}, {300, 33}, {5, 5}};
+        for (int[] size : sizes) {
+            int w = size[0], h = size[1];
+            int[] argb = image(w, h, w * 31L + h);
+            assertEquals(serialVariance(argb), ImageHeuristics.grayVariance(argb, w, h, executor), 1e-6);
+            assertEquals(serialEdgeDensity(argb, w, h), ImageHeuristics.edgeDensity(argb, w, h, executor), 1e-6f);
+        }
+    }
+
+    @Test
+    public void bandsCoverEveryRowOnce() {
+        TiledExecutor executor = new TiledExecutor(POOL, 8);
+        int rows = 203;
+        assertEquals(4, executor.bandCount(rows));
+        int[] seen = executor.forRows(rows, 3, band -> {
+            assertTrue(band.top == Math.max(0, band.y0 - 3));
+            assertTrue(band.bottom == Math.min(rows, band.y1 + 3));
+            int[] counts = new int[rows];
+            for (int y = band.y0; y < band.y1; y++) counts[y]++;
+            return counts;
+        }, (a, b) -> {
+            for (int i = 0; i < a.length; i++) a[i] += b[i];
+            return a;
+        });
+        for (int count : seen) assertEquals(1, count);
+    }
+
+    @Test
+    public void smallImagesRunInline() {
+        TiledExecutor executor = new TiledExecutor(POOL, 64);
+        Thread caller = Thread.currentThread();
+        Thread ran = executor.forRows(100, 2, band -> {
+            assertEquals(0, band.y0);
+            assertEquals(100, band.y1);
+            return Thread.currentThread();
+        }, (a, b) -> a);
+        assertSame(caller, ran);
+    }
+
+    @Test
+    public void flatImageIsFlat() {
+        int[] gray = new int[64 * 64];
+        Arrays.fill(gray, 0xFF808080);
+        assertTrue(ImageHeuristics.isFlat(gray, 64, 64));
+        assertFalse(ImageHeuristics.isFlat(image(64, 64, 1), 64, 64));
+    }
+}
@@ -0,0 +1,83 @@
+package com.ai.imagedetection;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LogoTrackerTest {
+    private static final double NO_SCORE = Double.NaN;
+    private static final double MATCHES = 0.9; // correlation with the classified patch
+    private static final long MS = 1_000_000L;
+
+    private static LogoTracker started(long refreshMillis) {
+        LogoTracker tracker = new LogoTracker(LogoTracker.mil(), refreshMillis, 0.5, 0.6, 2.0);
+        tracker.onStarted("nike", 320, 240, 100, 50, 0);
+        return tracker;
+    }
+
+    @Test
+    public void followsUntilRefresh() {
+        LogoTracker tracker = started(1000);
+        assertEquals(LogoTracker.TRACKED, tracker.onTrackResult(true, NO_SCORE, MATCHES, 10, 10, 100, 50, 100 * MS));
+        assertEquals(LogoTracker.TRACKED, tracker.onTrackResult(true, NO_SCORE, MATCHES, 12, 11, 100, 50, 999 * MS));
+        assertEquals(LogoTracker.REFRESH, tracker.onTrackResult(true, NO_SCORE, MATCHES, 14, 12, 100, 50, 1000 * MS));
+        assertEquals(2, tracker.inferenceAvoided());
+        assertEquals(1, tracker.reclassifiedRefresh());
+
+        // a confirmed classification restarts the clock
+        tracker.onStarted("nike", 320, 240, 100, 50, 1000 * MS);
+        assertEquals(LogoTracker.TRACKED, tracker.onTrackResult(true, NO_SCORE, MATCHES, 14, 12, 100, 50, 1500 * MS));
+        assertEquals(3, tracker.inferenceAvoided());
+    }
+
+    @Test
+    public void refreshDoesNotDependOnFrameRate() {
+        // one analysed frame every 800 ms: a frame count would let this run for seconds
+        LogoTracker tracker = started(1000);
+        assertEquals(LogoTracker.TRACKED, tracker.onTrackResult(true, NO_SCORE, MATCHES, 10, 10, 100, 50, 800 * MS));
+        assertEquals(LogoTracker.REFRESH, tracker.onTrackResult(true, NO_SCORE, MATCHES, 10, 10, 100, 50, 1600 * MS));
+    }
+
+    @Test
+    public void lostTargetReclassifies() {
+        LogoTracker tracker = started(1000);
+        assertEquals(LogoTracker.LOST, tracker.onTrackResult(false, NO_SCORE, NO_SCORE, 0, 0, 0, 0, MS));
+        assertEquals(1, tracker.reclassifiedLost());
+        assertEquals(0, tracker.inferenceAvoided());
+    }
+
+    @Test
+    public void scaleJumpOrLeavingFrameIsLowConfidence() {
+        LogoTracker tracker = started(1000);
+        assertEquals(LogoTracker.LOW_CONFIDENCE, tracker.onTrackResult(true, NO_SCORE, MATCHES, 10, 10, 200, 60, MS));
+        assertEquals(LogoTracker.LOW_CONFIDENCE, tracker.onTrackResult(true, NO_SCORE, MATCHES, 10, 10, 50, 40, MS));
+        assertEquals(LogoTracker.LOW_CONFIDENCE, tracker.onTrackResult(true, NO_SCORE, NO_SCORE, 260, 10, 100, 50, MS));
+        assertEquals(3, tracker.reclassifiedLowConfidence());
+    }
+
+    @Test
+    public void driftOffTheLogoIsLowConfidence() {
+        // MIL keeps its box size, only the patch content tells it slid onto something else
+        LogoTracker tracker = started(1000);
+        assertEquals(LogoTracker.TRACKED, tracker.onTrackResult(true, NO_SCORE, 0.7, 30, 10, 100, 50, MS));
+        assertEquals(LogoTracker.LOW_CONFIDENCE, tracker.onTrackResult(true, NO_SCORE, 0.3, 60, 10, 100, 50, 2 * MS));
+        assertEquals(1, tracker.reclassifiedLowConfidence());
+    }
+
+    @Test
+    public void reportedScoreReplacesBoxHeuristic() {
+        LogoTracker tracker = started(1000);
+        assertEquals(LogoTracker.TRACKED, tracker.onTrackResult(true, 0.9, NO_SCORE, 10, 10, 200, 60, MS));
+        assertEquals(LogoTracker.LOW_CONFIDENCE, tracker.onTrackResult(true, 0.2, NO_SCORE, 10, 10, 100, 50, MS));
+    }
+
+    @Test
+    public void regionIsInFramePixels() {
+        LogoTracker tracker = started(1000);
+        tracker.onTrackResult(true, NO_SCORE, MATCHES, 10, 20, 100, 50, MS);
+        assertArrayEquals(new int[] { 10, 20, 100, 50 }, tracker.region());
+        tracker.stop();
+        assertNull(tracker.region());
+        assertFalse(tracker.isTracking());
+    }
+}
@@ -0,0 +1,56 @@
+package com.ai.imagedetection;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MotionGateTest {
+    private static final double STILL = 1.0;
+    private static final double MOVING = 20.0;
+
+    @Test
+    public void opensAfterStableFrames() {
+        MotionGate gate = new MotionGate(4.0, 3, 1);
+        assertFalse(gate.onMotionScore(MOVING));
+        assertFalse(gate.onMotionScore(STILL));
+        assertFalse(gate.onMotionScore(STILL));
+        assertTrue(gate.onMotionScore(STILL));
+        assertEquals(1, gate.skippedMoving());
+        assertEquals(2, gate.skippedSettling());
+    }
+
+    @Test
+    public void closesOnceTriggersAreUsed() {
+        MotionGate gate = new MotionGate(4.0, 1, 2);
+        assertTrue(gate.onMotionScore(STILL));
+        gate.onTriggered();
+        assertTrue(gate.onMotionScore(STILL));
+        gate.onTriggered();
+        for (int i = 0; i < 10; i++) assertFalse(gate.onMotionScore(STILL));
+        assertEquals(10, gate.skippedSeen());
+        assertEquals(2, gate.triggered());
+    }
+
+    @Test
+    public void untriggeredPassesDoNotCount() {
+        // analyser busy: the gate stays open until a frame is really analysed
+        MotionGate gate = new MotionGate(4.0, 1, 1);
+        assertTrue(gate.onMotionScore(STILL));
+        assertTrue(gate.onMotionScore(STILL));
+        gate.onTriggered();
+        assertFalse(gate.onMotionScore(STILL));
+    }
+
+    @Test
+    public void motionRearms() {
+        MotionGate gate = new MotionGate(4.0, 2, 1);
+        gate.onMotionScore(STILL);
+        assertTrue(gate.onMotionScore(STILL));
+        gate.onTriggered();
+        assertFalse(gate.onMotionScore(STILL));
+        assertFalse(gate.onMotionScore(MOVING));
+        assertFalse(gate.onMotionScore(STILL));
+        assertTrue(gate.onMotionScore(STILL));
+        assertEquals(1, gate.skipped() - gate.skippedMoving() - gate.skippedSettling());
+    }
+}
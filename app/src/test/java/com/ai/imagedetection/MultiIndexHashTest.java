@@ -0,0 +1,113 @@
+package com.ai.imagedetection;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MultiIndexHashTest {
+
+    private static int[] bruteForceRange(long[] train, long[] query, int q, int radius) {
+        int n = train.length / HammingMatcher.LANES;
+        int[] hits = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (HammingMatcher.distance(query, q, train, i) <= radius) hits[count++] = i;
+        }
+        return Arrays.copyOf(hits, count);
+    }
+
+    private static long[] clustered(Random rnd, int count) {
+        long[] d = new long[count * HammingMatcher.LANES];
+        for (int i = 0; i < count; i++) {
+            for (int l = 0; l < HammingMatcher.LANES; l++) {
+                // every 10th row is a noisy copy of an earlier one, like repeated logo features
+                d[i * 4 + l] = (i % 10 == 9) ? d[(i - 5) * 4 + l] ^ (1L << rnd.nextInt(64)) : rnd.nextLong();
+            }
+        }
+        return d;
+    }
+
+    @Test
+    public void rangeSearchIsExact() {
+        Random rnd = new Random(1);
+        long[] train = clustered(rnd, 3000);
+        for (int substrings : new int[]{16, 32}) {
+            MultiIndexHash index = new MultiIndexHash(train, substrings);
+            MultiIndexHash.Searcher searcher = index.newSearcher();
+            for (int radius : new int[]{0, 8, 20, 40, 70}) {
+                for (int q = 0; q < 3000; q += 37) {
+                    int n = searcher.rangeSearch(train, q, radius);
+                    int[] got = Arrays.copyOf(searcher.results(), n);
+                    Arrays.sort(got);
+                    assertArrayEquals(bruteForceRange(train, train, q, radius), got);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void nearestTwoMatchesBruteForce() {
+        Random rnd = new Random(2);
+        long[] train = clustered(rnd, 2000);
+        long[] query = clustered(rnd, 200);
+        for (int q = 0; q < 200; q += 2) System.arraycopy(train, q * 4 * 9, query, q * 4, 4);
+
+        MultiIndexHash.Searcher searcher = new MultiIndexHash(train).newSearcher();
+        for (int q = 0; q < 200; q++) {
+            int d1 = Integer.MAX_VALUE, d2 = Integer.MAX_VALUE;
+            for (int i = 0; i < 2000; i++) {
+                int d = HammingMatcher.distance(query, q, train, i);
+                if (d < d1) {
+                    d2 = d1;
+                    d1 = d;
+                } else if (d < d2) {
+                    d2 = d;
+                }
+            }
+            searcher.nearestTwo(query, q, 256);
+            assertEquals(d1, searcher.bestDistance());
+            assertEquals(d2, searcher.secondDistance());
+        }
+    }
+
+    /** Leave-one-image-out over the shipped reference set: exact, and far fewer candidates than brute force. */
+    @Test
+    public void prunesCandidatesOnShippedDescriptors() throws Exception {
+        File bin = new File("src/main/assets/" + OrbDescriptorStore.ASSET_NAME);
+        if (!bin.exists()) return;
+        OrbDescriptorStore store = OrbDescriptorStore.open(bin);
+        long[] all = HammingMatcher.pack(store.descriptors(), store.descriptorCount());
+
+        int queryRows = store.imageDescriptorCount(0);
+        long[] query = Arrays.copyOfRange(all, 0, queryRows * 4);
+        long[] train = Arrays.copyOfRange(all, queryRows * 4, all.length);
+        MultiIndexHash index = new MultiIndexHash(train);
+        MultiIndexHash.Searcher searcher = index.newSearcher();
+
+        double previousSpeedup = Double.MAX_VALUE;
+        for (int radius : new int[]{15, 31, 47, 63}) {
+            searcher.resetStats();
+            long hits = 0;
+            for (int q = 0; q < queryRows; q++) {
+                int n = searcher.rangeSearch(query, q, radius);
+                assertEquals("radius " + radius + " query " + q, bruteForceRange(train, query, q, radius).length, n);
+                hits += n;
+            }
+            assertEquals(queryRows, searcher.queries());
+            assertTrue("radius " + radius + ": candidates include every hit", searcher.totalCandidates() >= hits);
+            double speedup = searcher.speedupOverBruteForce();
+            assertTrue("radius " + radius + ": speedup " + speedup, speedup > 1);
+            // a wider radius probes more buckets, so it can only check more candidates
+            assertTrue("radius " + radius + ": speedup " + speedup + " after " + previousSpeedup, speedup <= previousSpeedup);
+            previousSpeedup = speedup;
+        }
+        // the small radii the matcher lives at prune by an order of magnitude
+        searcher.resetStats();
+        for (int q = 0; q < queryRows; q++) searcher.rangeSearch(query, q, 31);
+        assertTrue("speedup at radius 31: " + searcher.speedupOverBruteForce(), searcher.speedupOverBruteForce() > 10);
+    }
+}
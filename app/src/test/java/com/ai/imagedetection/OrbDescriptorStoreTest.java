@@ -0,0 +1,83 @@
+package com.ai.imagedetection;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class OrbDescriptorStoreTest {
+
+    private static String descriptor(int fill) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 32; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append((fill + i) & 0xFF);
+        }
+        return sb.append(']').toString();
+    }
+
+    @Test
+    public void convertsJsonRoundTrip() throws Exception {
+        String json = "{\"A\": [[" + descriptor(1) + ", " + descriptor(2) + "], [" + descriptor(3) + "]],\n"
+                + " \"B\": [[" + descriptor(250) + "]]}";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OrbFeatureConverter.convert(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), out);
+
+        OrbDescriptorStore store = new OrbDescriptorStore(ByteBuffer.wrap(out.toByteArray()));
+        assertEquals(2, store.brandCount());
+        assertEquals("B", store.brandName(1));
+        assertEquals(3, store.imageCount());
+        assertEquals(4, store.descriptorCount());
+        assertEquals(2, store.brandImageCount(0));
+        assertEquals(3, store.brandFirstDescriptor(1));
+        assertEquals(2, store.imageFirstDescriptor(1));
+        assertEquals(1, store.brandOfDescriptor(3));
+
+        ByteBuffer block = store.descriptors();
+        assertEquals(4 * 32, block.remaining());
+        assertEquals(3, block.get(2 * 32) & 0xFF);       // first byte of image 1
+        assertEquals(251, block.get(3 * 32 + 1) & 0xFF); // second byte of brand B
+        assertFalse(store.hasKeypoints());
+    }
+
+    @Test
+    public void keepsKeypointsWhenEveryImageHasThem() throws Exception {
+        String json = "{\"A\": [{\"keypoints\": [[1.5, 2], [-3, 4e1]], \"descriptors\": ["
+                + descriptor(1) + ", " + descriptor(2) + "]},\n"
+                + " {\"descriptors\": [" + descriptor(3) + "], \"keypoints\": [[5, 6]]}]}";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OrbFeatureConverter.convert(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), out);
+
+        OrbDescriptorStore store = new OrbDescriptorStore(ByteBuffer.wrap(out.toByteArray()));
+        assertTrue(store.hasKeypoints());
+        assertEquals(3, store.descriptorCount());
+        assertEquals(1.5f, store.keypointX(0), 0f);
+        assertEquals(40f, store.keypointY(1), 0f);
+        assertEquals(5f, store.keypointX(2), 0f);
+        assertEquals(3, store.descriptors().get(2 * 32) & 0xFF);
+    }
+
+    @Test
+    public void shippedBinaryMatchesJson() throws Exception {
+        File json = new File("orb/orb_features.json");
+        File bin = new File("src/main/assets/" + OrbDescriptorStore.ASSET_NAME);
+        if (!json.exists() || !bin.exists()) return;
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (InputStream in = new FileInputStream(json)) {
+            OrbFeatureConverter.convert(in, expected);
+        }
+        OrbDescriptorStore store = OrbDescriptorStore.open(bin);
+        OrbDescriptorStore fresh = new OrbDescriptorStore(ByteBuffer.wrap(expected.toByteArray()));
+        assertEquals(fresh.descriptorCount(), store.descriptorCount());
+        assertEquals(fresh.imageCount(), store.imageCount());
+        assertTrue(fresh.descriptors().equals(store.descriptors()));
+    }
+}
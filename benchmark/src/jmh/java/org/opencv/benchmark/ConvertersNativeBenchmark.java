@@ -0,0 +1,130 @@
+package org.opencv.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.DMatch;
+import org.opencv.core.KeyPoint;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDMatch;
+import org.opencv.core.MatOfKeyPoint;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+import org.opencv.utils.Converters;
+import org.opencv.utils.DMatchArrays;
+import org.opencv.utils.KeyPointArrays;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Converters between Mats and Java collections: the object lists against the primitive array
+ * variants, both directions, for count key points / matches / points.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConvertersNativeBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int count;
+
+    private MatOfKeyPoint keypoints;
+    private MatOfDMatch matches;
+    private MatOfPoint2f points;
+    private List<KeyPoint> keypointList;
+    private final List<DMatch> matchList = new ArrayList<DMatch>();
+    private final List<Point> pointList = new ArrayList<Point>();
+    private final KeyPointArrays keypointArrays = new KeyPointArrays();
+    private final DMatchArrays matchArrays = new DMatchArrays();
+    private float[] xy;
+    private Mat out;
+
+    @Setup
+    public void setUp() {
+        NativeLibrary.load();
+        Random random = new Random(42);
+        KeyPoint[] kp = new KeyPoint[count];
+        DMatch[] dm = new DMatch[count];
+        Point[] pt = new Point[count];
+        for (int i = 0; i < count; i++) {
+            kp[i] = new KeyPoint(random.nextFloat() * 640, random.nextFloat() * 480, 31, random.nextFloat() * 360,
+                    random.nextFloat(), random.nextInt(8), -1);
+            dm[i] = new DMatch(i, random.nextInt(count), 0, random.nextFloat() * 256);
+            pt[i] = new Point(random.nextFloat() * 640, random.nextFloat() * 480);
+        }
+        keypoints = new MatOfKeyPoint(kp);
+        matches = new MatOfDMatch(dm);
+        points = new MatOfPoint2f(pt);
+        keypointList = keypoints.toList();
+        Converters.Mat_to_KeyPointArrays(keypoints, keypointArrays);
+        out = new Mat();
+        xy = new float[2 * count];
+    }
+
+    @TearDown
+    public void tearDown() {
+        keypoints.release();
+        matches.release();
+        points.release();
+        out.release();
+    }
+
+    @Benchmark
+    public List<KeyPoint> keypointsToList() {
+        List<KeyPoint> list = new ArrayList<KeyPoint>();
+        Converters.Mat_to_vector_KeyPoint(keypoints, list);
+        return list;
+    }
+
+    @Benchmark
+    public KeyPointArrays keypointsToArrays() {
+        Converters.Mat_to_KeyPointArrays(keypoints, keypointArrays);
+        return keypointArrays;
+    }
+
+    @Benchmark
+    public void keypointsFromList() {
+        Converters.vector_KeyPoint_to_Mat(keypointList).release();
+    }
+
+    @Benchmark
+    public Mat keypointsFromArrays() {
+        Converters.KeyPointArrays_to_Mat(keypointArrays, out);
+        return out;
+    }
+
+    @Benchmark
+    public List<DMatch> matchesToList() {
+        matchList.clear();
+        Converters.Mat_to_vector_DMatch(matches, matchList);
+        return matchList;
+    }
+
+    @Benchmark
+    public DMatchArrays matchesToArrays() {
+        Converters.Mat_to_DMatchArrays(matches, matchArrays);
+        return matchArrays;
+    }
+
+    @Benchmark
+    public List<Point> pointsToList() {
+        pointList.clear();
+        Converters.Mat_to_vector_Point2f(points, pointList);
+        return pointList;
+    }
+
+    @Benchmark
+    public float[] pointsToArray() {
+        Converters.Mat_to_array_Point2f(points, xy);
+        return xy;
+    }
+}
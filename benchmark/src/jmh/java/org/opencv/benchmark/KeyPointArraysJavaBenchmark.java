@@ -0,0 +1,78 @@
+package org.opencv.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.DMatch;
+import org.opencv.core.KeyPoint;
+import org.opencv.utils.ConvertersRows;
+import org.opencv.utils.DMatchArrays;
+import org.opencv.utils.KeyPointArrays;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The Java half of the key point and match converters, without a native library: the Converters
+ * methods that turn the interleaved rows a bulk get() returns into objects, as
+ * Mat_to_vector_KeyPoint() and Mat_to_vector_DMatch() do, against the ones filling the reused
+ * primitive arrays, as Mat_to_KeyPointArrays() and Mat_to_DMatchArrays() do. They are package
+ * private, ConvertersRows reaches them from org.opencv.utils.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KeyPointArraysJavaBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int count;
+
+    private double[] keypointRows; /* 7 per key point, as in a CV_64FC7 Mat */
+    private double[] matchRows;    /* 4 per match, as in a CV_64FC4 Mat */
+    private final KeyPointArrays keypointArrays = new KeyPointArrays();
+    private final DMatchArrays matchArrays = new DMatchArrays();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        keypointRows = new double[count * 7];
+        for (int i = 0; i < keypointRows.length; i++)
+            keypointRows[i] = random.nextFloat() * 480;
+        matchRows = new double[count * 4];
+        for (int i = 0; i < matchRows.length; i++)
+            matchRows[i] = random.nextInt(count);
+    }
+
+    @Benchmark
+    public List<KeyPoint> keypointObjects() {
+        List<KeyPoint> kps = new ArrayList<KeyPoint>();
+        ConvertersRows.doubles_to_vector_KeyPoint(keypointRows, count, kps);
+        return kps;
+    }
+
+    @Benchmark
+    public KeyPointArrays keypointArrays() {
+        ConvertersRows.doubles_to_KeyPointArrays(keypointRows, count, keypointArrays);
+        return keypointArrays;
+    }
+
+    @Benchmark
+    public List<DMatch> matchObjects() {
+        List<DMatch> matches = new ArrayList<DMatch>();
+        ConvertersRows.doubles_to_vector_DMatch(matchRows, count, matches);
+        return matches;
+    }
+
+    @Benchmark
+    public DMatchArrays matchArrays() {
+        ConvertersRows.doubles_to_DMatchArrays(matchRows, count, matchArrays);
+        return matchArrays;
+    }
+}
@@ -0,0 +1,142 @@
+package org.opencv.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.BufferMat;
+import org.opencv.core.ByteCursor;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Reading (and writing) every pixel of a size x size CV_8UC1 Mat from Java: boxed Atable and
+ * per-element get() against bulk get()/put() and the cursors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MatAccessNativeBenchmark {
+
+    @Param({"64", "512"})
+    public int size;
+
+    private Mat mat;
+    private BufferMat bufferMat;
+    private byte[] row;
+    private byte[] all;
+    private final ByteCursor cursor = new ByteCursor();
+
+    @Setup
+    public void setUp() {
+        NativeLibrary.load();
+        mat = new Mat(size, size, CvType.CV_8UC1);
+        Core.randu(mat, 0, 256);
+        bufferMat = BufferMat.allocate(size, size, CvType.CV_8UC1);
+        mat.copyTo(bufferMat);
+        row = new byte[size];
+        all = new byte[size * size];
+        mat.get(0, 0, all);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mat.release();
+        bufferMat.release();
+    }
+
+    @Benchmark
+    public long atable() {
+        long sum = 0;
+        for (int r = 0; r < size; r++)
+            for (int c = 0; c < size; c++)
+                sum += mat.at(Byte.class, r, c).getV() & 0xff;
+        return sum;
+    }
+
+    @Benchmark
+    public long getElement() {
+        long sum = 0;
+        for (int r = 0; r < size; r++)
+            for (int c = 0; c < size; c++)
+                sum += (long) mat.get(r, c)[0];
+        return sum;
+    }
+
+    @Benchmark
+    public long getRow() {
+        long sum = 0;
+        for (int r = 0; r < size; r++) {
+            mat.get(r, 0, row);
+            for (int c = 0; c < size; c++)
+                sum += row[c] & 0xff;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long getAll() {
+        mat.get(0, 0, all);
+        long sum = 0;
+        for (int i = 0; i < all.length; i++)
+            sum += all[i] & 0xff;
+        return sum;
+    }
+
+    @Benchmark
+    public long cursorCopy() {
+        cursor.reset(mat);
+        long sum = 0;
+        for (int r = 0; r < size; r++) {
+            cursor.row(r);
+            for (int c = 0; c < size; c++)
+                sum += cursor.get(c);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long cursorDirect() {
+        cursor.reset(bufferMat);
+        long sum = 0;
+        for (int r = 0; r < size; r++) {
+            cursor.row(r);
+            for (int c = 0; c < size; c++)
+                sum += cursor.get(c);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public void atableInvert() {
+        for (int r = 0; r < size; r++)
+            for (int c = 0; c < size; c++) {
+                Mat.Atable<Byte> px = mat.at(Byte.class, r, c);
+                px.setV((byte) ~px.getV());
+            }
+    }
+
+    @Benchmark
+    public void cursorInvert() {
+        cursor.reset(mat);
+        for (int r = 0; r < size; r++) {
+            cursor.row(r);
+            for (int c = 0; c < size; c++)
+                cursor.set(c, ~cursor.get(c));
+        }
+        cursor.flush();
+    }
+
+    @Benchmark
+    public void putAll() {
+        mat.put(0, 0, all);
+    }
+}
@@ -0,0 +1,106 @@
+package org.opencv.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatPool;
+import org.opencv.core.MatScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The lifetime of a size x size CV_8UC4 Mat: freed explicitly, left to the cleaner thread, taken
+ * from a MatPool or a MatScope, and a bare header (empty or a submat) for the per-object cost.
+ *
+ * Mat itself no longer has a finalize() to compare the cleaner against, so allocateFinalized()
+ * puts one back on a subclass: its pixels are freed by the finalizer thread as they were before
+ * NativeCleaner. The header is still deleted by the cleaner, so that variant pays for both.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MatAllocationNativeBenchmark {
+
+    @Param({"64", "640"})
+    public int size;
+
+    private MatPool pool;
+    private Mat source;
+
+    @Setup
+    public void setUp() {
+        NativeLibrary.load();
+        pool = new MatPool(4, 64L << 20);
+        source = new Mat(size, size, CvType.CV_8UC4);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.clear();
+        source.release();
+    }
+
+    @Benchmark
+    public void allocateRelease() {
+        new Mat(size, size, CvType.CV_8UC4).release();
+    }
+
+    @Benchmark
+    public Mat allocateUnreachable() {
+        /* freed by the cleaner thread once the GC finds it */
+        return new Mat(size, size, CvType.CV_8UC4);
+    }
+
+    @Benchmark
+    public Mat allocateFinalized() {
+        /* freed by the finalizer thread once the GC finds it, the baseline for the cleaner */
+        return new FinalizedMat(size, size, CvType.CV_8UC4);
+    }
+
+    @Benchmark
+    public void pooled() {
+        pool.recycle(pool.lease(size, size, CvType.CV_8UC4));
+    }
+
+    @Benchmark
+    public void scoped() {
+        try (MatScope scope = MatScope.open()) {
+            new Mat(size, size, CvType.CV_8UC4);
+        }
+    }
+
+    @Benchmark
+    public Mat emptyHeader() {
+        return new Mat();
+    }
+
+    @Benchmark
+    public Mat submatHeader() {
+        return source.submat(0, size / 2, 0, size / 2);
+    }
+
+    /* a Mat as it was with finalize() */
+    private static final class FinalizedMat extends Mat {
+        FinalizedMat(int rows, int cols, int type) {
+            super(rows, cols, type);
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        protected void finalize() throws Throwable {
+            try {
+                release();
+            } finally {
+                super.finalize();
+            }
+        }
+    }
+}
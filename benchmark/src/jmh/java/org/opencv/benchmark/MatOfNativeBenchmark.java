@@ -0,0 +1,117 @@
+package org.opencv.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.DMatch;
+import org.opencv.core.KeyPoint;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.MatOfDMatch;
+import org.opencv.core.MatOfKeyPoint;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * toArray() and fromArray() of the MatOf* classes the feature pipeline goes through, for count
+ * elements (bytes: count ORB descriptors of 32 bytes).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MatOfNativeBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int count;
+
+    private KeyPoint[] keypoints;
+    private DMatch[] matches;
+    private Point[] points;
+    private byte[] bytes;
+    /* created in setUp(), after the native library is loaded */
+    private MatOfKeyPoint keypointMat;
+    private MatOfDMatch matchMat;
+    private MatOfPoint2f pointMat;
+    private MatOfByte byteMat;
+
+    @Setup
+    public void setUp() {
+        NativeLibrary.load();
+        Random random = new Random(42);
+        keypoints = new KeyPoint[count];
+        matches = new DMatch[count];
+        points = new Point[count];
+        for (int i = 0; i < count; i++) {
+            keypoints[i] = new KeyPoint(random.nextFloat() * 640, random.nextFloat() * 480, 31,
+                    random.nextFloat() * 360, random.nextFloat(), random.nextInt(8), -1);
+            matches[i] = new DMatch(i, random.nextInt(count), 0, random.nextFloat() * 256);
+            points[i] = new Point(random.nextFloat() * 640, random.nextFloat() * 480);
+        }
+        bytes = new byte[count * 32];
+        random.nextBytes(bytes);
+        keypointMat = new MatOfKeyPoint(keypoints);
+        matchMat = new MatOfDMatch(matches);
+        pointMat = new MatOfPoint2f(points);
+        byteMat = new MatOfByte(bytes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        keypointMat.release();
+        matchMat.release();
+        pointMat.release();
+        byteMat.release();
+    }
+
+    @Benchmark
+    public KeyPoint[] keypointsToArray() {
+        return keypointMat.toArray();
+    }
+
+    @Benchmark
+    public MatOfKeyPoint keypointsFromArray() {
+        keypointMat.fromArray(keypoints);
+        return keypointMat;
+    }
+
+    @Benchmark
+    public DMatch[] matchesToArray() {
+        return matchMat.toArray();
+    }
+
+    @Benchmark
+    public MatOfDMatch matchesFromArray() {
+        matchMat.fromArray(matches);
+        return matchMat;
+    }
+
+    @Benchmark
+    public Point[] pointsToArray() {
+        return pointMat.toArray();
+    }
+
+    @Benchmark
+    public MatOfPoint2f pointsFromArray() {
+        pointMat.fromArray(points);
+        return pointMat;
+    }
+
+    @Benchmark
+    public byte[] bytesToArray() {
+        return byteMat.toArray();
+    }
+
+    @Benchmark
+    public MatOfByte bytesFromArray() {
+        byteMat.fromArray(bytes);
+        return byteMat;
+    }
+}
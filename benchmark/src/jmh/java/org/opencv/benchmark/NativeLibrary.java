@@ -0,0 +1,26 @@
+package org.opencv.benchmark;
+
+import org.opencv.core.Core;
+
+/**
+ * Loads the desktop build of the OpenCV Java native library from java.library.path, for the
+ * *NativeBenchmark classes. build.gradle only runs those when -PopencvNativeDir points at one.
+ */
+final class NativeLibrary {
+
+    private static boolean sLoaded;
+
+    private NativeLibrary() {}
+
+    static synchronized void load() {
+        if (sLoaded)
+            return;
+        try {
+            System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+        } catch (UnsatisfiedLinkError e) {
+            throw new IllegalStateException("No " + Core.NATIVE_LIBRARY_NAME + " on java.library.path ("
+                    + System.getProperty("java.library.path") + "), run with -PopencvNativeDir=<dir>", e);
+        }
+        sLoaded = true;
+    }
+}
@@ -0,0 +1,46 @@
+package org.opencv.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.NativeMemoryTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * What NativeMemoryTracker adds to every wrapper construction: nothing but a flag check while
+ * disabled, a weak reference (and every sampleInterval-th time a stack) while enabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NativeMemoryTrackerJavaBenchmark {
+
+    /* 0: disabled */
+    @Param({"0", "1", "16"})
+    public int sampleInterval;
+
+    @Setup
+    public void setUp() {
+        if (sampleInterval > 0)
+            NativeMemoryTracker.enable(300, sampleInterval);
+    }
+
+    @TearDown
+    public void tearDown() {
+        NativeMemoryTracker.disable();
+    }
+
+    @Benchmark
+    public Object track() {
+        Object owner = new Object();
+        NativeMemoryTracker.track(owner);
+        return owner;
+    }
+}
@@ -0,0 +1,69 @@
+package org.opencv.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.TiledExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A per-pixel pass over size x size ARGB ints (gray mean and variance, as in the classifier's
+ * flatness check), on the calling thread against row bands on the default pool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TiledExecutorJavaBenchmark {
+
+    @Param({"256", "1024", "3000"})
+    public int size;
+
+    private int[] argb;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        argb = new int[size * size];
+        for (int i = 0; i < argb.length; i++)
+            argb[i] = 0xff000000 | random.nextInt(0x1000000);
+    }
+
+    private static long[] sums(int[] argb, int from, int to) {
+        long sum = 0, sumSq = 0;
+        for (int i = from; i < to; i++) {
+            int c = argb[i];
+            int gray = (int) (0.3 * ((c >> 16) & 0xff) + 0.59 * ((c >> 8) & 0xff) + 0.11 * (c & 0xff));
+            sum += gray;
+            sumSq += gray * gray;
+        }
+        return new long[] { sum, sumSq };
+    }
+
+    @Benchmark
+    public long[] serial() {
+        return sums(argb, 0, argb.length);
+    }
+
+    @Benchmark
+    public long[] bands() {
+        final int w = size;
+        return TiledExecutor.getDefault().forRows(size, 0, new TiledExecutor.BandFunction<long[]>() {
+            @Override
+            public long[] apply(TiledExecutor.Band band) {
+                return sums(argb, band.y0 * w, band.y1 * w);
+            }
+        }, new TiledExecutor.Reducer<long[]>() {
+            @Override
+            public long[] reduce(long[] upper, long[] lower) {
+                return new long[] { upper[0] + lower[0], upper[1] + lower[1] };
+            }
+        });
+    }
+}
@@ -0,0 +1,130 @@
+package org.opencv.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.utils.I420Staging;
+import org.opencv.utils.Yuv420Planes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * YUV_420_888 to RGBA as the Camera2 views do it, for every plane layout a device may deliver,
+ * on synthetic planes: whole frame, the centered half of it, and the chroma views handed out by
+ * chromaRoi(). padding is added to every row stride, as cameras do to align rows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class Yuv420NativeBenchmark {
+
+    @Param({"NV12", "NV21", "I420", "strided"})
+    public String layout;
+
+    @Param({"640x480", "1920x1080"})
+    public String resolution;
+
+    @Param({"0", "64"})
+    public int padding;
+
+    private int mLayout;
+    private final Yuv420Planes planes = new Yuv420Planes();
+    private final I420Staging fullStaging = new I420Staging();
+    private final I420Staging roiStaging = new I420Staging();
+    private Rect roi;
+    /* created in setUp(), after the native library is loaded */
+    private Mat rgba;
+
+    private static ByteBuffer random(int bytes, Random random) {
+        byte[] data = new byte[bytes];
+        random.nextBytes(data);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes);
+        buffer.put(data);
+        buffer.clear();
+        return buffer;
+    }
+
+    /* plane buffers start at their first sample, like Image.Plane.getBuffer() */
+    private static ByteBuffer slice(ByteBuffer buffer, int offset) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        return duplicate.slice();
+    }
+
+    @Setup
+    public void setUp() {
+        NativeLibrary.load();
+        String[] wh = resolution.split("x");
+        int w = Integer.parseInt(wh[0]);
+        int h = Integer.parseInt(wh[1]);
+        Random random = new Random(42);
+
+        int yStride = w + padding;
+        ByteBuffer y = random(yStride * h, random);
+        int chromaRows = h / 2;
+        if (layout.equals("NV12") || layout.equals("NV21")) {
+            /* one buffer of interleaved pairs, U and V planes one byte apart */
+            int stride = w + padding;
+            ByteBuffer uv = random(stride * chromaRows + 1, random);
+            ByteBuffer first = slice(uv, 0);
+            ByteBuffer second = slice(uv, 1);
+            boolean nv12 = layout.equals("NV12");
+            planes.set(w, h, y, yStride, nv12 ? first : second, stride, 2, nv12 ? second : first, stride, 2);
+        } else if (layout.equals("I420")) {
+            int stride = w / 2 + padding;
+            planes.set(w, h, y, yStride, random(stride * chromaRows, random), stride, 1,
+                    random(stride * chromaRows, random), stride, 1);
+        } else {
+            /* pixel stride 2 in separate buffers, which no Mat header can view as one plane pair */
+            int stride = w + padding;
+            planes.set(w, h, y, yStride, random(stride * chromaRows, random), stride, 2,
+                    random(stride * chromaRows, random), stride, 2);
+        }
+        mLayout = planes.layout();
+        if (!Yuv420Planes.layoutName(mLayout).equals(layout))
+            throw new IllegalStateException("Synthetic " + layout + " planes detected as " + Yuv420Planes.layoutName(mLayout));
+
+        roi = new Rect((w / 4) & ~1, (h / 4) & ~1, (w / 2) & ~1, (h / 2) & ~1);
+        fullStaging.ensure(w, h);
+        roiStaging.ensure(roi.width, roi.height);
+        rgba = new Mat();
+    }
+
+    @TearDown
+    public void tearDown() {
+        fullStaging.release();
+        roiStaging.release();
+        rgba.release();
+    }
+
+    @Benchmark
+    public Mat toRgba() {
+        planes.toRgba(mLayout, null, fullStaging, rgba);
+        return rgba;
+    }
+
+    @Benchmark
+    public Mat toRgbaRoi() {
+        planes.toRgba(mLayout, roi, roiStaging, rgba);
+        return rgba;
+    }
+
+    @Benchmark
+    public int chromaRoi() {
+        Mat[] chroma = planes.wrapChroma(mLayout, roi, roiStaging);
+        int n = chroma.length;
+        for (Mat m : chroma)
+            m.release();
+        return n;
+    }
+}
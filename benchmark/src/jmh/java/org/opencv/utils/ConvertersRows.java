@@ -0,0 +1,32 @@
+package org.opencv.utils;
+
+import java.util.List;
+
+import org.opencv.core.DMatch;
+import org.opencv.core.KeyPoint;
+
+/**
+ * Benchmark access to the package-private Java halves of the Converters key point and match
+ * methods, the part of Mat_to_* that runs after the bulk get() and needs no native library.
+ */
+public final class ConvertersRows {
+
+    private ConvertersRows() {
+    }
+
+    public static void doubles_to_vector_KeyPoint(double[] rows, int count, List<KeyPoint> kps) {
+        Converters.doubles_to_vector_KeyPoint(rows, count, kps);
+    }
+
+    public static void doubles_to_KeyPointArrays(double[] rows, int count, KeyPointArrays kps) {
+        Converters.doubles_to_KeyPointArrays(rows, count, kps);
+    }
+
+    public static void doubles_to_vector_DMatch(double[] rows, int count, List<DMatch> matches) {
+        Converters.doubles_to_vector_DMatch(rows, count, matches);
+    }
+
+    public static void doubles_to_DMatchArrays(double[] rows, int count, DMatchArrays matches) {
+        Converters.doubles_to_DMatchArrays(rows, count, matches);
+    }
+}
@@ -5,6 +5,7 @@ import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import android.annotation.TargetApi;
 import android.content.Context;
+import android.graphics.ImageFormat;
 import android.graphics.SurfaceTexture;
 import android.hardware.camera2.CameraAccessException;
 import android.hardware.camera2.CameraCaptureSession;
@@ -32,6 +33,7 @@ public class Camera2Renderer extends CameraGLRendererBase {
     private HandlerThread mBackgroundThread;
     private Handler mBackgroundHandler;
     private Semaphore mCameraOpenCloseLock = new Semaphore(1);
+    private ImageReaderAnalysisTap mAnalysisTap;
 
     Camera2Renderer(CameraGLSurfaceView view) {
         super(view);
@@ -152,6 +154,7 @@ public class Camera2Renderer extends CameraGLRendererBase {
                 mCameraDevice.close();
                 mCameraDevice = null;
             }
+            closeAnalysisTap();
         } catch (InterruptedException e) {
             throw new RuntimeException("Interrupted while trying to lock camera closing.", e);
         } finally {
@@ -209,12 +212,15 @@ public class Camera2Renderer extends CameraGLRendererBase {
             mSTexture.setDefaultBufferSize(w, h);
 
             Surface surface = new Surface(mSTexture);
+            Surface analysisSurface = openAnalysisTap(w, h);
 
             mPreviewRequestBuilder = mCameraDevice
                     .createCaptureRequest(CameraDevice.TEMPLATE_PREVIEW);
             mPreviewRequestBuilder.addTarget(surface);
+            if (analysisSurface != null)
+                mPreviewRequestBuilder.addTarget(analysisSurface);
 
-            mCameraDevice.createCaptureSession(Arrays.asList(surface),
+            mCameraDevice.createCaptureSession(analysisSurface == null ? Arrays.asList(surface) : Arrays.asList(surface, analysisSurface),
                     new CameraCaptureSession.StateCallback() {
                         @Override
                         public void onConfigured( CameraCaptureSession cameraCaptureSession) {
@@ -249,6 +255,70 @@ public class Camera2Renderer extends CameraGLRendererBase {
         }
     }
 
+    /*
+     * Called with mCameraOpenCloseLock held and no capture session. Returns the surface of the
+     * analysis tap for the given preview size, or null if there is no analyzer.
+     */
+    private Surface openAnalysisTap(int previewWidth, int previewHeight) {
+        CameraBridgeViewBase.CvCameraViewAnalyzer analyzer = mAnalyzer;
+        int format = mAnalysisFormat;
+        if (analyzer == null) {
+            closeAnalysisTap();
+            return null;
+        }
+        Size size = cacAnalysisSize(previewWidth, previewHeight);
+        if (size == null) {
+            closeAnalysisTap();
+            return null;
+        }
+        if (mAnalysisTap == null || mAnalysisTap.getWidth() != size.getWidth() || mAnalysisTap.getHeight() != size.getHeight()) {
+            closeAnalysisTap();
+            mAnalysisTap = new ImageReaderAnalysisTap(analyzer, format, size.getWidth(), size.getHeight());
+            mAnalysisTap.start();
+        }
+        return mAnalysisTap.getSurface();
+    }
+
+    private void closeAnalysisTap() {
+        if (mAnalysisTap != null) {
+            mAnalysisTap.close();
+            Log.i(LOGTAG, "Analysis " + mAnalysisTap.getStatistics());
+            mAnalysisTap = null;
+        }
+    }
+
+    /*
+     * The biggest YUV output within the analysis size limits with about the preview's aspect ratio,
+     * so both outputs show the same field of view.
+     */
+    private Size cacAnalysisSize(int previewWidth, int previewHeight) {
+        CameraManager manager = (CameraManager) mView.getContext()
+                .getSystemService(Context.CAMERA_SERVICE);
+        try {
+            StreamConfigurationMap map = manager.getCameraCharacteristics(mCameraID)
+                    .get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+            int maxWidth  = mMaxAnalysisWidth  > 0 ? mMaxAnalysisWidth  : previewWidth;
+            int maxHeight = mMaxAnalysisHeight > 0 ? mMaxAnalysisHeight : previewHeight;
+            float aspect = (float)previewWidth / previewHeight;
+            Size best = null;
+            for (Size psize : map.getOutputSizes(ImageFormat.YUV_420_888)) {
+                int w = psize.getWidth(), h = psize.getHeight();
+                if (w <= maxWidth && h <= maxHeight &&
+                    Math.abs(aspect - (float)w/h) < 0.2 &&
+                    (best == null || w * h > best.getWidth() * best.getHeight()))
+                    best = psize;
+            }
+            if (best == null)
+                Log.e(LOGTAG, "No YUV output within " + maxWidth + "x" + maxHeight + " for frame analysis");
+            return best;
+        } catch (CameraAccessException e) {
+            Log.e(LOGTAG, "cacAnalysisSize - Camera Access Exception");
+        } catch (IllegalArgumentException e) {
+            Log.e(LOGTAG, "cacAnalysisSize - Illegal Argument Exception");
+        }
+        return null;
+    }
+
     private void startBackgroundThread() {
         Log.i(LOGTAG, "startBackgroundThread");
         stopBackgroundThread();
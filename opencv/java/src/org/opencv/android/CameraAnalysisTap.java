@@ -0,0 +1,155 @@
+package org.opencv.android;
+
+import java.util.concurrent.locks.LockSupport;
+
+import android.util.Log;
+
+import org.opencv.android.CameraBridgeViewBase.CvCameraViewAnalyzer;
+import org.opencv.core.Mat;
+
+/**
+ * Hands camera frames to a CvCameraViewAnalyzer on a thread of its own. The producer (a camera
+ * callback, the drawing thread) only copies each frame into a small ring of preallocated buffers and
+ * never waits; the analyzer always takes the newest frame, older ones are dropped. Used by
+ * CameraBridgeViewBase and, through ImageReaderAnalysisTap, by the OpenGL camera renderers.
+ *
+ * The tap does not depend on a camera: without start() frames can be offered directly (decoded
+ * images, a video, test data) and analysed on the calling thread with analyzeLatest(), which makes
+ * it the headless stand-in for the camera backed taps.
+ */
+public class CameraAnalysisTap {
+    private static final String TAG = "CameraAnalysisTap";
+    private static final int SLOTS = 3;
+
+    private final CvCameraViewAnalyzer mAnalyzer;
+    private final FrameChain mChain = new FrameChain(SLOTS);
+    private final Mat[] mFrames = new Mat[SLOTS];
+    private final String mThreadName;
+    private volatile Thread mThread;
+    private volatile boolean mStop;
+    private volatile long mAnalyzed;
+
+    /**
+     * @param analyzer - receives the frames
+     * @param threadName - name of the analysis thread started by start()
+     */
+    public CameraAnalysisTap(CvCameraViewAnalyzer analyzer, String threadName) {
+        if (analyzer == null)
+            throw new IllegalArgumentException("Analyzer must not be null");
+        mAnalyzer = analyzer;
+        mThreadName = threadName;
+        for (int i = 0; i < SLOTS; i++)
+            mFrames[i] = new Mat(); // sized by the first frame written into it
+    }
+
+    /**
+     * Starts the analysis thread. Without it frames are only analysed by analyzeLatest().
+     */
+    public synchronized void start() {
+        if (mThread != null)
+            return;
+        mStop = false;
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!mStop) {
+                    if (!analyzeLatest())
+                        LockSupport.parkNanos(this, 100000000L);
+                }
+                Log.d(TAG, "Finish " + mThreadName + " thread, " + getStatistics());
+            }
+        }, mThreadName);
+        mThread.start();
+    }
+
+    /**
+     * Producer: claims a buffer to write the next frame into, or returns -1 if the tap is closed.
+     * The buffer is reallocated by whatever writes into it if the frame size changes.
+     */
+    public int beginFrame() {
+        return mChain.acquireWrite();
+    }
+
+    public Mat frameBuffer(int slot) {
+        return mFrames[slot];
+    }
+
+    /** Producer: passes a written buffer on to the analyzer. */
+    public void publishFrame(int slot) {
+        mChain.publish(slot);
+        Thread thread = mThread;
+        if (thread != null)
+            LockSupport.unpark(thread);
+    }
+
+    /**
+     * Producer: copies frame into the ring. Returns false if the tap is closed.
+     */
+    public boolean offer(Mat frame) {
+        int slot = beginFrame();
+        if (slot < 0)
+            return false;
+        frame.copyTo(mFrames[slot]);
+        publishFrame(slot);
+        return true;
+    }
+
+    /**
+     * Consumer: runs the analyzer on the newest frame not analysed yet, on the calling thread.
+     * Returns false if there was none. Only for taps that were not started.
+     */
+    public boolean analyzeLatest() {
+        if (mStop)
+            return false;
+        int slot = mChain.acquireLatest();
+        if (slot < 0)
+            return false;
+        try {
+            mAnalyzer.onAnalyzeFrame(mFrames[slot]);
+            mAnalyzed++;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Frame analysis failed", e);
+        } finally {
+            mChain.releaseRead(slot);
+        }
+        return true;
+    }
+
+    /** Frames offered so far. */
+    public long getFrameCount() {
+        return mChain.getPublishedCount();
+    }
+
+    /** Frames the analyzer did not get to because newer ones arrived first. */
+    public long getDroppedFrameCount() {
+        return mChain.getDroppedCount();
+    }
+
+    public long getAnalyzedFrameCount() {
+        return mAnalyzed;
+    }
+
+    public String getStatistics() {
+        return "frames: " + getFrameCount() + ", analysed: " + mAnalyzed + ", dropped: " + getDroppedFrameCount();
+    }
+
+    /**
+     * Stops the analysis thread and frees the buffers. Waits for a frame being written or analysed
+     * to finish, afterwards offers are refused.
+     */
+    public synchronized void close() {
+        mChain.close();
+        mStop = true;
+        if (mThread != null) {
+            LockSupport.unpark(mThread);
+            try {
+                mThread.join();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+            mThread = null;
+        }
+        for (Mat m : mFrames)
+            m.release();
+    }
+}
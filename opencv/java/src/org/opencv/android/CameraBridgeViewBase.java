@@ -1,11 +1,13 @@
 package org.opencv.android;
 
+import java.util.ArrayList;
 import java.util.List;
 
-import org.opencv.BuildConfig;
 import org.opencv.R;
+import org.opencv.core.Core;
 import org.opencv.core.Mat;
 import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
 
 import android.app.Activity;
 import android.app.AlertDialog;
@@ -49,7 +51,28 @@ public abstract class CameraBridgeViewBase extends SurfaceView implements Surfac
     protected int mCameraIndex = CAMERA_ID_ANY;
     protected boolean mEnabled;
     protected boolean mCameraPermissionGranted = false;
+    /**
+     * @deprecated no longer created by enableFpsMeter(), which shows the FrameTimings summary
+     * instead. Still measured and drawn if a subclass sets it.
+     */
+    @Deprecated
     protected FpsMeter mFpsMeter = null;
+    protected volatile FrameTimings mFrameTimings = null;
+    private volatile boolean mShowFps;
+    private long mLastDroppedCount;    // drawing thread only
+
+    private CvCameraViewAnalyzer mAnalyzer;
+    private int mAnalysisFormat = RGBA;
+    private volatile CameraAnalysisTap mAnalysisTap; // non-null while the analysis thread runs
+    private volatile CvCameraViewOverlay mOverlay;
+
+    private volatile RoiRequest mRoiRequest;
+    private volatile boolean mConvertRoiOnly;
+    private RoiRequest mResolvedRequest;          // resolution cache, drawing thread only
+    private int mResolvedWidth;
+    private int mResolvedHeight;
+    private org.opencv.core.Rect mResolvedRoi;
+    private final RoiFrame mRoiFrame = new RoiFrame(); // drawing thread only
 
     public static final int CAMERA_ID_ANY   = -1;
     public static final int CAMERA_ID_BACK  = 99;
@@ -177,6 +200,8 @@ public abstract class CameraBridgeViewBase extends SurfaceView implements Surfac
     /**
      * This class interface is abstract representation of single frame from camera for onCameraFrame callback
      * Attention: Do not use objects, that represents this interface out of onCameraFrame callback!
+     * Conversions are done on first use and cached until the next frame, so calling rgba() or gray()
+     * several times is cheap - and returns the same Mat, including anything drawn on it meanwhile.
      */
     public interface CvCameraViewFrame {
 
@@ -189,6 +214,98 @@ public abstract class CameraBridgeViewBase extends SurfaceView implements Surfac
          * This method returns single channel gray scale Mat with frame
          */
         public Mat gray();
+
+        /**
+         * This method returns the gray scale frame shrunk by factor in both directions, for detectors
+         * that do not need full resolution. Frames of the bundled camera views cache the result like
+         * rgba() and gray(); this fallback allocates a new Mat on each call.
+         * @param factor - integer shrink factor, 1 returns gray()
+         */
+        public default Mat grayDownscaled(int factor) {
+            if (factor < 1)
+                throw new IllegalArgumentException("Downscale factor must be positive: " + factor);
+            Mat gray = gray();
+            if (factor == 1)
+                return gray;
+            Mat small = new Mat();
+            Imgproc.resize(gray, small, new Size(gray.cols() / factor, gray.rows() / factor), 0, 0, Imgproc.INTER_AREA);
+            return small;
+        }
+
+        /**
+         * This method returns the region of interest set with setFrameRoi() or setCenteredFrameRoi(),
+         * in frame coordinates. Without one it covers the whole frame.
+         */
+        public default org.opencv.core.Rect roi() {
+            Mat gray = gray();
+            return new org.opencv.core.Rect(0, 0, gray.cols(), gray.rows());
+        }
+
+        /**
+         * This method returns a gray scale view (submat) of roi(), nothing is copied.
+         */
+        public default Mat grayRoi() {
+            return gray().submat(roi());
+        }
+
+        /**
+         * This method returns the chroma samples covering roi(), half its size in both directions:
+         * a single interleaved CV_8UC2 Mat for semi-planar frames (NV21, NV12) or two CV_8UC1 planes in
+         * the order the camera stores them (V, U for YV12). They are views where the frame layout allows.
+         * Frames that keep no camera chroma derive U and V planes from rgbaRoi(); this fallback
+         * allocates new Mats on each call.
+         */
+        public default Mat[] chromaRoi() {
+            Mat rgba = rgbaRoi();
+            Mat half = new Mat();
+            Imgproc.resize(rgba, half, new Size(rgba.cols() / 2, rgba.rows() / 2), 0, 0, Imgproc.INTER_AREA);
+            Mat yuv = new Mat();
+            Imgproc.cvtColor(half, yuv, Imgproc.COLOR_RGB2YUV);
+            half.release();
+            List<Mat> planes = new ArrayList<Mat>(3);
+            Core.split(yuv, planes);
+            yuv.release();
+            planes.get(0).release();
+            return new Mat[] { planes.get(1), planes.get(2) };
+        }
+
+        /**
+         * This method returns RGBA Mat with the roi() part of the frame. The bundled camera views
+         * convert only that region, so it costs in proportion to its area.
+         */
+        public default Mat rgbaRoi() {
+            return rgba().submat(roi());
+        }
+    };
+
+    /**
+     * Receives camera frames on a dedicated analysis thread, so slow processing does not hold up
+     * drawing. See setCvCameraViewAnalyzer().
+     */
+    public interface CvCameraViewAnalyzer {
+        /**
+         * Called on the analysis thread with a private copy of the most recent frame. Frames arriving
+         * while this runs are not queued up: only the newest one is analysed next.
+         * @param frame - RGBA or gray snapshot, as selected in setCvCameraViewAnalyzer(). Valid until
+         *              this method returns.
+         */
+        public void onAnalyzeFrame(Mat frame);
+    };
+
+    /**
+     * Drawn on top of every displayed frame until replaced, typically the latest analysis result.
+     * See postOverlay().
+     */
+    public interface CvCameraViewOverlay {
+        /**
+         * Called on the drawing thread after the frame itself has been drawn.
+         * @param canvas - the view canvas
+         * @param frameBounds - where the frame was drawn: frame pixel x maps to
+         *                    frameBounds.left + x * frameBounds.width() / frameWidth, same for y
+         * @param frameWidth - width of the camera frame
+         * @param frameHeight - height of the camera frame
+         */
+        public void draw(Canvas canvas, Rect frameBounds, int frameWidth, int frameHeight);
     };
 
     public void surfaceChanged(SurfaceHolder arg0, int arg1, int arg2, int arg3) {
@@ -258,17 +375,46 @@ public abstract class CameraBridgeViewBase extends SurfaceView implements Surfac
     }
 
     /**
-     * This method enables label with fps value on the screen
+     * This method enables label with fps value on the screen. It shows the line of the last
+     * FrameTimings summary, so it also enables frame timings.
      */
     public void enableFpsMeter() {
-        if (mFpsMeter == null) {
-            mFpsMeter = new FpsMeter();
-            mFpsMeter.setResolution(mFrameWidth, mFrameHeight);
-        }
+        enableFrameTimings();
+        mShowFps = true;
     }
 
     public void disableFpsMeter() {
-            mFpsMeter = null;
+        mShowFps = false;
+    }
+
+    /**
+     * Starts recording how long each frame spends in capture, conversion, the listener and drawing.
+     * See FrameTimings for the recorded stages; a summary is logged periodically.
+     * @return the timings, to query percentiles or change the dump interval
+     */
+    public FrameTimings enableFrameTimings() {
+        if (mFrameTimings == null)
+            mFrameTimings = new FrameTimings();
+        return mFrameTimings;
+    }
+
+    public void disableFrameTimings() {
+        mShowFps = false;
+        mFrameTimings = null;
+    }
+
+    /**
+     * The frame timings, or null if they are not enabled.
+     */
+    public FrameTimings getFrameTimings() {
+        return mFrameTimings;
+    }
+
+    /**
+     * Frames lost before delivery since the camera was connected, for views that can tell.
+     */
+    public long getDroppedFrameCount() {
+        return 0;
     }
 
     /**
@@ -286,6 +432,163 @@ public abstract class CameraBridgeViewBase extends SurfaceView implements Surfac
         mListener = adapter;
     }
 
+    /**
+     * Sets an analyzer that gets frames on its own thread, independent of the drawing loop. The
+     * drawing thread only copies each frame into a small ring of buffers; the analyzer always
+     * takes the newest one and older ones are dropped, so the preview keeps its frame rate however
+     * slow the analysis is. Results are best shown through postOverlay().
+     * @param analyzer - the analyzer, or null to stop analysis
+     * @param format - RGBA or GRAY, the format of the frames handed to the analyzer
+     */
+    public void setCvCameraViewAnalyzer(CvCameraViewAnalyzer analyzer, int format) {
+        if (format != RGBA && format != GRAY)
+            throw new IllegalArgumentException("Analysis format can be RGBA or GRAY");
+        synchronized(mSyncObject) {
+            stopAnalysis();
+            mAnalyzer = analyzer;
+            mAnalysisFormat = format;
+            if (mState == STARTED)
+                startAnalysis();
+        }
+    }
+
+    /**
+     * Replaces the overlay drawn over every following frame. Can be called from any thread,
+     * typically from CvCameraViewAnalyzer.onAnalyzeFrame().
+     * @param overlay - the overlay, or null to draw nothing
+     */
+    public void postOverlay(CvCameraViewOverlay overlay) {
+        mOverlay = overlay;
+    }
+
+    /**
+     * Frames the analyzer did not get to because newer ones arrived first.
+     */
+    public long getAnalysisDroppedFrameCount() {
+        CameraAnalysisTap tap = mAnalysisTap;
+        return tap == null ? 0 : tap.getDroppedFrameCount();
+    }
+
+    /**
+     * Restricts region-aware frame access (roi(), grayRoi(), chromaRoi(), rgbaRoi()) to a part of
+     * the frame. The region is clipped to the frame and rounded to even coordinates, as chroma is
+     * stored at half resolution.
+     * @param roi - region in frame coordinates, null to use the whole frame again
+     */
+    public void setFrameRoi(org.opencv.core.Rect roi) {
+        mRoiRequest = (roi == null) ? null : new RoiRequest(roi.clone(), 0, 0);
+    }
+
+    /**
+     * Same as setFrameRoi() with a region centered in the frame, e.g. under a reticle. It is
+     * sized relative to the frame, so it stays valid when the camera resolution changes.
+     * @param widthFraction - region width as a fraction of the frame width, in (0, 1]
+     * @param heightFraction - region height as a fraction of the frame height, in (0, 1]
+     */
+    public void setCenteredFrameRoi(double widthFraction, double heightFraction) {
+        if (widthFraction <= 0 || widthFraction > 1 || heightFraction <= 0 || heightFraction > 1)
+            throw new IllegalArgumentException("ROI fractions must be in (0, 1]");
+        mRoiRequest = new RoiRequest(null, widthFraction, heightFraction);
+    }
+
+    /**
+     * When set, rgba() of the delivered frames converts only the region of interest; the rest of
+     * the frame stays black. Cuts color conversion cost by the area ratio when the preview outside
+     * the region does not matter. Anything the listener draws outside the region is not cleared
+     * between frames.
+     * @param roiOnly - whether to convert only the region set with setFrameRoi()
+     */
+    public void setConvertFrameRoiOnly(boolean roiOnly) {
+        mConvertRoiOnly = roiOnly;
+    }
+
+    /*
+     * The requested region for the current frame size, clipped and aligned, or null for the whole
+     * frame. Recomputed only when the request or the frame size changes.
+     */
+    private org.opencv.core.Rect resolveFrameRoi() {
+        RoiRequest request = mRoiRequest;
+        if (request == null)
+            return null;
+        if (request == mResolvedRequest && mFrameWidth == mResolvedWidth && mFrameHeight == mResolvedHeight)
+            return mResolvedRoi;
+
+        int x, y, w, h;
+        if (request.mRect != null) {
+            x = request.mRect.x;
+            y = request.mRect.y;
+            w = request.mRect.width;
+            h = request.mRect.height;
+        } else {
+            w = (int) (mFrameWidth * request.mWidthFraction);
+            h = (int) (mFrameHeight * request.mHeightFraction);
+            x = (mFrameWidth - w) / 2;
+            y = (mFrameHeight - h) / 2;
+        }
+        int x0 = Math.max(0, x) & ~1;
+        int y0 = Math.max(0, y) & ~1;
+        int x1 = Math.min(mFrameWidth, x + w) & ~1;
+        int y1 = Math.min(mFrameHeight, y + h) & ~1;
+        org.opencv.core.Rect roi = null;
+        if (x1 <= x0 || y1 <= y0)
+            Log.w(TAG, "Frame ROI " + request.mRect + " is outside the " + mFrameWidth + "x" + mFrameHeight + " frame, ignored");
+        else if (x1 - x0 < mFrameWidth || y1 - y0 < mFrameHeight)
+            roi = new org.opencv.core.Rect(x0, y0, x1 - x0, y1 - y0);
+
+        mResolvedRequest = request;
+        mResolvedWidth = mFrameWidth;
+        mResolvedHeight = mFrameHeight;
+        mResolvedRoi = roi;
+        return roi;
+    }
+
+    /*
+     * Gives frames that are not LazyCameraFrames the view's region of interest: region access
+     * goes through the interface defaults, which all start from roi().
+     */
+    private static final class RoiFrame implements CvCameraViewFrame {
+        private CvCameraViewFrame mFrame;
+        private org.opencv.core.Rect mRoi; // null for the whole frame
+
+        RoiFrame wrap(CvCameraViewFrame frame, org.opencv.core.Rect roi) {
+            mFrame = frame;
+            mRoi = roi;
+            return this;
+        }
+
+        @Override
+        public Mat rgba() {
+            return mFrame.rgba();
+        }
+
+        @Override
+        public Mat gray() {
+            return mFrame.gray();
+        }
+
+        @Override
+        public Mat grayDownscaled(int factor) {
+            return mFrame.grayDownscaled(factor);
+        }
+
+        @Override
+        public org.opencv.core.Rect roi() {
+            return (mRoi == null) ? mFrame.roi() : mRoi.clone();
+        }
+    }
+
+    private static final class RoiRequest {
+        final org.opencv.core.Rect mRect;   // explicit region, or null for a centered one
+        final double mWidthFraction;
+        final double mHeightFraction;
+
+        RoiRequest(org.opencv.core.Rect rect, double widthFraction, double heightFraction) {
+            mRect = rect;
+            mWidthFraction = widthFraction;
+            mHeightFraction = heightFraction;
+        }
+    }
+
     /**
      * This method sets the maximum size that camera frame is allowed to be. When selecting
      * size - the biggest size which less or equal the size set will be selected.
@@ -372,6 +675,8 @@ public abstract class CameraBridgeViewBase extends SurfaceView implements Surfac
     // Bitmap must be constructed before surface
     private void onEnterStartedState() {
         Log.d(TAG, "call onEnterStartedState");
+        startAnalysis();
+        mLastDroppedCount = 0; // the view's drop counter starts over with the new connection
         /* Connect camera */
         if (!connectCamera(getWidth(), getHeight())) {
             AlertDialog ad = new AlertDialog.Builder(getContext()).create();
@@ -390,11 +695,50 @@ public abstract class CameraBridgeViewBase extends SurfaceView implements Surfac
 
     private void onExitStartedState() {
         disconnectCamera();
+        stopAnalysis();
         if (mCacheBitmap != null) {
             mCacheBitmap.recycle();
         }
     }
 
+    /**
+     * Called when mSyncObject lock is held
+     */
+    private void startAnalysis() {
+        if (mAnalyzer == null || mAnalysisTap != null)
+            return;
+        CameraAnalysisTap tap = new CameraAnalysisTap(mAnalyzer, "CameraAnalysis");
+        tap.start();
+        mAnalysisTap = tap;
+    }
+
+    /**
+     * Called when mSyncObject lock is held
+     */
+    private void stopAnalysis() {
+        CameraAnalysisTap tap = mAnalysisTap;
+        if (tap == null)
+            return;
+        /* The drawing thread may still be running (analyzer replaced while started); close() waits
+         * until it is done with the buffers */
+        mAnalysisTap = null;
+        tap.close();
+        mOverlay = null;
+    }
+
+    /*
+     * Copies the frame into a free analysis slot. Runs on the drawing thread, before the listener
+     * gets the frame and possibly draws on it.
+     */
+    private void snapshotForAnalysis(CvCameraViewFrame frame, CameraAnalysisTap tap) {
+        int slot = tap.beginFrame();
+        if (slot < 0)
+            return;
+        Mat src = (mAnalysisFormat == GRAY) ? frame.gray() : frame.rgba();
+        src.copyTo(tap.frameBuffer(slot));
+        tap.publishFrame(slot);
+    }
+
     /**
      * This method shall be called by the subclasses when they have valid
      * object and want it to be delivered to external client (via callback) and
@@ -404,11 +748,39 @@ public abstract class CameraBridgeViewBase extends SurfaceView implements Surfac
     protected void deliverAndDrawFrame(CvCameraViewFrame frame) {
         Mat modified;
 
+        FrameTimings timings = mFrameTimings;
+        long start = System.nanoTime();
+        LazyCameraFrame lazyFrame = (frame instanceof LazyCameraFrame) ? (LazyCameraFrame) frame : null;
+        if (lazyFrame != null)
+            lazyFrame.setRoi(resolveFrameRoi(), mConvertRoiOnly);
+        else
+            frame = mRoiFrame.wrap(frame, resolveFrameRoi());
+        if (timings != null) {
+            if (lazyFrame != null && lazyFrame.getCaptureTime() != 0)
+                timings.record(FrameTimings.CAPTURE_LATENCY, start - lazyFrame.getCaptureTime());
+            long dropped = getDroppedFrameCount();
+            timings.addDroppedFrames(dropped - mLastDroppedCount);
+            mLastDroppedCount = dropped;
+        }
+
+        CameraAnalysisTap analysis = mAnalysisTap;
+        if (analysis != null)
+            snapshotForAnalysis(frame, analysis);
+
+        long listenerStart = System.nanoTime();
+        long conversionBefore = (lazyFrame != null) ? lazyFrame.getConversionTime() : 0;
         if (mListener != null) {
             modified = mListener.onCameraFrame(frame);
         } else {
             modified = frame.rgba();
         }
+        long drawStart = System.nanoTime();
+        if (timings != null) {
+            long conversion = (lazyFrame != null) ? lazyFrame.getConversionTime() : 0;
+            timings.record(FrameTimings.LISTENER, drawStart - listenerStart - (conversion - conversionBefore));
+            if (conversion > 0)
+                timings.record(FrameTimings.CONVERSION, conversion);
+        }
 
         boolean bmpValid = true;
         if (modified != null) {
@@ -426,30 +798,40 @@ public abstract class CameraBridgeViewBase extends SurfaceView implements Surfac
             Canvas canvas = getHolder().lockCanvas();
             if (canvas != null) {
                 canvas.drawColor(0, android.graphics.PorterDuff.Mode.CLEAR);
-                if (BuildConfig.DEBUG)
-                    Log.d(TAG, "mStretch value: " + mScale);
 
+                Rect dst;
                 if (mScale != 0) {
-                    canvas.drawBitmap(mCacheBitmap, new Rect(0,0,mCacheBitmap.getWidth(), mCacheBitmap.getHeight()),
-                         new Rect((int)((canvas.getWidth() - mScale*mCacheBitmap.getWidth()) / 2),
+                    dst = new Rect((int)((canvas.getWidth() - mScale*mCacheBitmap.getWidth()) / 2),
                          (int)((canvas.getHeight() - mScale*mCacheBitmap.getHeight()) / 2),
                          (int)((canvas.getWidth() - mScale*mCacheBitmap.getWidth()) / 2 + mScale*mCacheBitmap.getWidth()),
-                         (int)((canvas.getHeight() - mScale*mCacheBitmap.getHeight()) / 2 + mScale*mCacheBitmap.getHeight())), null);
+                         (int)((canvas.getHeight() - mScale*mCacheBitmap.getHeight()) / 2 + mScale*mCacheBitmap.getHeight()));
                 } else {
-                     canvas.drawBitmap(mCacheBitmap, new Rect(0,0,mCacheBitmap.getWidth(), mCacheBitmap.getHeight()),
-                         new Rect((canvas.getWidth() - mCacheBitmap.getWidth()) / 2,
+                    dst = new Rect((canvas.getWidth() - mCacheBitmap.getWidth()) / 2,
                          (canvas.getHeight() - mCacheBitmap.getHeight()) / 2,
                          (canvas.getWidth() - mCacheBitmap.getWidth()) / 2 + mCacheBitmap.getWidth(),
-                         (canvas.getHeight() - mCacheBitmap.getHeight()) / 2 + mCacheBitmap.getHeight()), null);
+                         (canvas.getHeight() - mCacheBitmap.getHeight()) / 2 + mCacheBitmap.getHeight());
                 }
+                canvas.drawBitmap(mCacheBitmap, new Rect(0,0,mCacheBitmap.getWidth(), mCacheBitmap.getHeight()), dst, null);
 
-                if (mFpsMeter != null) {
+                CvCameraViewOverlay overlay = mOverlay;
+                if (overlay != null)
+                    overlay.draw(canvas, dst, mCacheBitmap.getWidth(), mCacheBitmap.getHeight());
+
+                if (timings != null && mShowFps)
+                    timings.draw(canvas, 20, 30);
+                else if (mFpsMeter != null) {
                     mFpsMeter.measure();
                     mFpsMeter.draw(canvas, 20, 30);
                 }
                 getHolder().unlockCanvasAndPost(canvas);
             }
         }
+
+        if (timings != null) {
+            long end = System.nanoTime();
+            timings.record(FrameTimings.DRAW, end - drawStart);
+            timings.onFrameDone(end);
+        }
     }
 
     /**
@@ -84,6 +84,12 @@ public abstract class CameraGLRendererBase implements GLSurfaceView.Renderer, Su
 
     protected CameraGLSurfaceView mView;
 
+    /* set on the UI thread, read where the camera session is (re)created: mAnalysisFormat is
+     * written first, so whoever reads mAnalyzer first gets the format that came with it */
+    protected volatile CameraBridgeViewBase.CvCameraViewAnalyzer mAnalyzer;
+    protected volatile int mAnalysisFormat = CameraBridgeViewBase.RGBA;
+    protected int mMaxAnalysisWidth = -1, mMaxAnalysisHeight = -1;
+
     protected abstract void openCamera(int id);
     protected abstract void closeCamera();
     protected abstract void setCameraPreviewSize(int width, int height); // updates mCameraWidth & mCameraHeight
@@ -426,6 +432,26 @@ public abstract class CameraGLRendererBase implements GLSurfaceView.Renderer, Su
         enableView();
     }
 
+    /**
+     * Sets an analyzer that gets CPU frames next to the OpenGL preview, from a second camera output
+     * at reduced resolution, on its own thread. Nothing is read back from the GPU and the render
+     * thread never waits for the analysis. Restarts the camera.
+     * @param analyzer - the analyzer, or null to stop analysis
+     * @param format - CameraBridgeViewBase.RGBA or GRAY, the format of the analysed frames
+     * @param maxWidth - the maximum width of the analysed frames
+     * @param maxHeight - the maximum height of the analysed frames
+     */
+    public void setCameraAnalyzer(CameraBridgeViewBase.CvCameraViewAnalyzer analyzer, int format, int maxWidth, int maxHeight) {
+        if (format != CameraBridgeViewBase.RGBA && format != CameraBridgeViewBase.GRAY)
+            throw new IllegalArgumentException("Analysis format can be RGBA or GRAY");
+        disableView();
+        mAnalysisFormat = format;
+        mAnalyzer = analyzer;
+        mMaxAnalysisWidth  = maxWidth;
+        mMaxAnalysisHeight = maxHeight;
+        enableView();
+    }
+
     public void onResume() {
         Log.i(LOGTAG, "onResume");
     }
@@ -79,6 +79,14 @@ public class CameraGLSurfaceView extends GLSurfaceView {
         mRenderer.setMaxCameraPreviewSize(maxWidth, maxHeight);
     }
 
+    /**
+     * Analyzes camera frames on the CPU next to the OpenGL preview, see
+     * CameraGLRendererBase.setCameraAnalyzer(). Needs API 21 (Camera2).
+     */
+    public void setCameraAnalyzer(CameraBridgeViewBase.CvCameraViewAnalyzer analyzer, int format, int maxWidth, int maxHeight) {
+        mRenderer.setCameraAnalyzer(analyzer, format, maxWidth, maxHeight);
+    }
+
     @Override
     public void surfaceCreated(SurfaceHolder holder) {
         super.surfaceCreated(holder);
@@ -37,6 +37,8 @@ public class CameraRenderer extends CameraGLRendererBase {
     protected synchronized void openCamera(int id) {
         Log.i(LOGTAG, "openCamera");
         closeCamera();
+        if (mAnalyzer != null)
+            Log.w(LOGTAG, "CPU frame analysis needs the Camera2 renderer, analyzer ignored");
         if (id == CameraBridgeViewBase.CAMERA_ID_ANY) {
             Log.d(LOGTAG, "Trying to open camera with old open()");
             try {
@@ -9,6 +9,11 @@ import android.graphics.Color;
 import android.graphics.Paint;
 import android.util.Log;
 
+/**
+ * @deprecated CameraBridgeViewBase uses FrameTimings, which also records latency, conversion,
+ * listener and draw times.
+ */
+@Deprecated
 public class FpsMeter {
     private static final String TAG               = "FpsMeter";
     private static final int    STEP              = 20;
@@ -59,7 +64,6 @@ public class FpsMeter {
     }
 
     public void draw(Canvas canvas, float offsetx, float offsety) {
-        Log.d(TAG, mStrfps);
         canvas.drawText(mStrfps, offsetx, offsety, mPaint);
     }
 
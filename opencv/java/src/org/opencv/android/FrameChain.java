@@ -0,0 +1,192 @@
+package org.opencv.android;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Slot bookkeeping for a ring of preallocated frame buffers shared between exactly one producer
+ * (the camera callback) and one consumer (the frame delivery thread). Only indices move between
+ * the threads; every hand-off is a single compare-and-set on the slot state, no locks are taken.
+ *
+ * Frames are delivered oldest first ({@link #acquireRead}) or newest only ({@link #acquireLatest}).
+ * When the consumer falls behind and every slot is full the producer recycles the oldest
+ * undelivered frame, so a slow listener sees dropped frames instead of stalling the camera.
+ */
+class FrameChain {
+    private static final int FREE = 0;
+    private static final int WRITING = 1;
+    private static final int READY = 2;
+    private static final int READING = 3;
+    private static final int MAX_SLOTS = 256;
+
+    private final AtomicIntegerArray mState;
+    private final long[] mSequence; // written by the producer before the slot turns READY
+    private long mNextSequence;      // producer only
+    private volatile boolean mClosed;
+
+    private final AtomicLong mPublished = new AtomicLong();
+    private final AtomicLong mDropped = new AtomicLong();
+
+    FrameChain(int slots) {
+        if (slots < 2 || slots > MAX_SLOTS)
+            throw new IllegalArgumentException("Frame chain needs 2.." + MAX_SLOTS + " slots");
+        mState = new AtomicIntegerArray(slots);
+        mSequence = new long[slots];
+    }
+
+    public int size() {
+        return mState.length();
+    }
+
+    /**
+     * Producer: claims a slot to write the next frame into. Reuses the oldest undelivered frame
+     * when no slot is free. Returns -1 only if nothing can be claimed, the incoming frame is then
+     * dropped.
+     */
+    public int acquireWrite() {
+        int n = mState.length();
+        while (true) {
+            for (int i = 0; i < n; i++) {
+                if (mState.compareAndSet(i, FREE, WRITING))
+                    return claimed(i);
+            }
+            long oldest = oldestReady();
+            if (oldest < 0) {
+                mDropped.incrementAndGet();
+                return -1;
+            }
+            int slot = (int) (oldest & (MAX_SLOTS - 1));
+            if (mState.compareAndSet(slot, READY, WRITING)) {
+                mDropped.incrementAndGet();
+                return claimed(slot);
+            }
+            // the consumer took it meanwhile, and may have freed another slot, look again
+        }
+    }
+
+    private int claimed(int slot) {
+        if (mClosed) {
+            mState.set(slot, FREE);
+            return -1;
+        }
+        return slot;
+    }
+
+    /** Producer: makes a written slot visible to the consumer. */
+    public void publish(int slot) {
+        mSequence[slot] = mNextSequence++;
+        mState.set(slot, READY);
+        mPublished.incrementAndGet();
+    }
+
+    /** Consumer: claims the oldest ready frame, or returns -1 if there is none. */
+    public int acquireRead() {
+        while (true) {
+            long oldest = oldestReady();
+            if (oldest < 0)
+                return -1;
+            int slot = (int) (oldest & (MAX_SLOTS - 1));
+            if (mState.compareAndSet(slot, READY, READING)) {
+                // The scan is not atomic: the slot may have been recycled and republished since,
+                // or an older frame published into a slot the scan had already passed. Either
+                // way an older frame is ready, so put this one back to keep delivery in order.
+                long sequence = oldest >>> 8;
+                long older = oldestReady();
+                if (mSequence[slot] == sequence && (older < 0 || older >>> 8 > sequence))
+                    return slot;
+                mState.set(slot, READY);
+            }
+        }
+    }
+
+    /**
+     * Consumer: claims the newest ready frame, or returns -1 if there is none. Older ready frames
+     * are freed and count as dropped, so neither this nor a later call delivers them after it.
+     */
+    public int acquireLatest() {
+        while (true) {
+            int newest = -1;
+            long newestSequence = -1;
+            for (int i = 0; i < mState.length(); i++) {
+                if (mState.get(i) == READY && mSequence[i] > newestSequence) {
+                    newestSequence = mSequence[i];
+                    newest = i;
+                }
+            }
+            if (newest < 0)
+                return -1;
+            // if it was republished meanwhile it only got newer
+            if (mState.compareAndSet(newest, READY, READING)) {
+                dropOlderThan(mSequence[newest]);
+                return newest;
+            }
+        }
+    }
+
+    /* Consumer: frees the ready frames published before sequence. */
+    private void dropOlderThan(long sequence) {
+        for (int i = 0; i < mState.length(); i++) {
+            if (mState.get(i) != READY || mSequence[i] >= sequence)
+                continue;
+            // own the slot before looking at its sequence again: the producer may have recycled
+            // and republished it since the check, and a newer frame must stay
+            if (!mState.compareAndSet(i, READY, READING))
+                continue;
+            if (mSequence[i] < sequence) {
+                mState.set(i, FREE);
+                mDropped.incrementAndGet();
+            } else {
+                mState.set(i, READY);
+            }
+        }
+    }
+
+    /** Consumer: hands a delivered slot back to the producer. */
+    public void releaseRead(int slot) {
+        mState.set(slot, FREE);
+    }
+
+    /** Oldest READY slot packed as (sequence << 8 | slot), or -1. */
+    private long oldestReady() {
+        int best = -1;
+        long bestSequence = Long.MAX_VALUE;
+        for (int i = 0; i < mState.length(); i++) {
+            // the volatile read of the state orders the sequence read after it
+            if (mState.get(i) == READY && mSequence[i] < bestSequence) {
+                bestSequence = mSequence[i];
+                best = i;
+            }
+        }
+        return best < 0 ? -1 : bestSequence << 8 | best;
+    }
+
+    /** Frames published so far, delivered or not. */
+    public long getPublishedCount() {
+        return mPublished.get();
+    }
+
+    /** Frames recycled or rejected before the consumer got to them. */
+    public long getDroppedCount() {
+        return mDropped.get();
+    }
+
+    /**
+     * Stops handing out slots to the producer and waits until a write already in progress has been
+     * published. Afterwards the producer no longer touches any buffer, so they can be released.
+     */
+    public void close() {
+        mClosed = true;
+        for (int i = 0; i < mState.length(); i++) {
+            while (mState.get(i) == WRITING)
+                Thread.yield();
+        }
+    }
+
+    public void reset() {
+        mClosed = false;
+        for (int i = 0; i < mState.length(); i++)
+            mState.set(i, FREE);
+        mPublished.set(0);
+        mDropped.set(0);
+    }
+}
@@ -0,0 +1,94 @@
+package org.opencv.android;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations in the style of HdrHistogram: buckets are linear within each power of two
+ * (16 sub-buckets per octave above 32 us), so any value from 1 us to minutes is kept with about 6 %
+ * relative precision in a fixed array of counters. Recording is a few shifts and one atomic
+ * increment, no allocation; it can be done from several threads while another one reads.
+ */
+public class FrameTimingHistogram {
+    private static final int SUB_BUCKET_BITS = 5;                 // values below 2^5 us are exact
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int MAX_SHIFT = 26;                       // largest tracked value ~ 2^31 us, 35 min
+    private static final long MAX_MICROS = ((long) SUB_BUCKETS << MAX_SHIFT) - 1;
+    private static final int BUCKETS = HALF * MAX_SHIFT + SUB_BUCKETS;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray mTotals = new AtomicLongArray(3); // count, sum (us), max (us)
+
+    /**
+     * Records one duration.
+     * @param nanos - the duration in nanoseconds, negative values count as 0
+     */
+    public void record(long nanos) {
+        long micros = Math.min(Math.max(nanos / 1000, 0), MAX_MICROS);
+        mCounts.incrementAndGet(indexOf(micros));
+        mTotals.incrementAndGet(0);
+        mTotals.addAndGet(1, micros);
+        long max;
+        while ((max = mTotals.get(2)) < micros && !mTotals.compareAndSet(2, max, micros)) {
+            // another thread raised the maximum meanwhile, retry against it
+        }
+    }
+
+    static int indexOf(long micros) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(micros) - (SUB_BUCKET_BITS - 1));
+        return shift == 0 ? (int) micros : HALF * shift + (int) (micros >>> shift);
+    }
+
+    /* Largest value falling into the bucket */
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        int shift = index / HALF - 1;
+        long lowest = (long) (index - HALF * shift) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    public long getCount() {
+        return mTotals.get(0);
+    }
+
+    /** Mean duration in microseconds, 0 if nothing was recorded. */
+    public double getMean() {
+        long count = mTotals.get(0);
+        return count == 0 ? 0 : (double) mTotals.get(1) / count;
+    }
+
+    /** Longest duration in microseconds. */
+    public long getMax() {
+        return mTotals.get(2);
+    }
+
+    /**
+     * Duration in microseconds that the given share of the recorded values do not exceed (up to the
+     * bucket precision), 0 if nothing was recorded.
+     * @param percentile - e.g. 50, 95, 99
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++)
+            total += counts[i] = mCounts.get(i);
+        if (total == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(highestValueOf(i), getMax());
+        }
+        return getMax();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++)
+            mCounts.set(i, 0);
+        for (int i = 0; i < 3; i++)
+            mTotals.set(i, 0);
+    }
+}
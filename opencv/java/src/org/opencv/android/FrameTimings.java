@@ -0,0 +1,160 @@
+package org.opencv.android;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.Log;
+
+/**
+ * Where the time of each camera frame goes, recorded by CameraBridgeViewBase into one
+ * FrameTimingHistogram per stage:
+ * <ul>
+ * <li>CAPTURE_LATENCY - from capture (or arrival from the camera) until the listener is called</li>
+ * <li>CONVERSION - YUV to RGBA conversions done for the frame</li>
+ * <li>LISTENER - onCameraFrame(), without the conversions it triggered</li>
+ * <li>DRAW - Mat to Bitmap and drawing on the surface</li>
+ * <li>FRAME_INTERVAL - between consecutive delivered frames</li>
+ * </ul>
+ * Percentiles can be queried at any time. A summary is logged every dump interval, never per frame;
+ * the FPS meter overlay shows the line of the last dump.
+ */
+public class FrameTimings {
+    private static final String TAG = "FrameTimings";
+
+    public static final int CAPTURE_LATENCY = 0;
+    public static final int CONVERSION = 1;
+    public static final int LISTENER = 2;
+    public static final int DRAW = 3;
+    public static final int FRAME_INTERVAL = 4;
+    private static final String[] STAGE_NAMES = { "latency", "convert", "listener", "draw", "interval" };
+
+    private final FrameTimingHistogram[] mHistograms = new FrameTimingHistogram[STAGE_NAMES.length];
+    private final AtomicLong mFrames = new AtomicLong();
+    private final AtomicLong mDropped = new AtomicLong();
+    private volatile long mDumpIntervalNanos = 5000000000L;
+    private long mLastDump;          // drawing thread only
+    private long mLastFrame;         // drawing thread only
+    private long mFramesAtLastDump;
+    private volatile String mSummary = "";
+    private Paint mPaint;
+
+    public FrameTimings() {
+        for (int i = 0; i < mHistograms.length; i++)
+            mHistograms[i] = new FrameTimingHistogram();
+    }
+
+    /**
+     * Records the duration of a stage for the current frame.
+     * @param stage - CAPTURE_LATENCY, CONVERSION, LISTENER, DRAW or FRAME_INTERVAL
+     * @param nanos - the duration in nanoseconds
+     */
+    public void record(int stage, long nanos) {
+        mHistograms[stage].record(nanos);
+    }
+
+    /**
+     * Counts frames lost before delivery, e.g. recycled by a full frame ring.
+     */
+    public void addDroppedFrames(long count) {
+        if (count > 0)
+            mDropped.addAndGet(count);
+    }
+
+    /**
+     * Called by the drawing thread once a frame is done. Records the frame interval and logs a
+     * summary when the dump interval has passed.
+     */
+    public void onFrameDone(long nowNanos) {
+        mFrames.incrementAndGet();
+        if (mLastFrame != 0)
+            record(FRAME_INTERVAL, nowNanos - mLastFrame);
+        mLastFrame = nowNanos;
+
+        if (mLastDump == 0) {
+            mLastDump = nowNanos;
+            return;
+        }
+        long interval = mDumpIntervalNanos;
+        long elapsed = nowNanos - mLastDump;
+        if (interval > 0 && elapsed >= interval) {
+            long frames = mFrames.get();
+            double fps = (frames - mFramesAtLastDump) * 1e9 / elapsed;
+            mFramesAtLastDump = frames;
+            mLastDump = nowNanos;
+            mSummary = String.format(Locale.US, "%.1f FPS, p95 %s %.1f ms, %s %.1f ms, dropped %d",
+                    fps, STAGE_NAMES[LISTENER], getPercentile(LISTENER, 95) / 1000.0,
+                    STAGE_NAMES[CAPTURE_LATENCY], getPercentile(CAPTURE_LATENCY, 95) / 1000.0, mDropped.get());
+            Log.i(TAG, toString());
+        }
+    }
+
+    /**
+     * Duration in microseconds of the given percentile of a stage, since the start or the last reset().
+     * @param stage - CAPTURE_LATENCY, CONVERSION, LISTENER, DRAW or FRAME_INTERVAL
+     * @param percentile - e.g. 50, 95, 99
+     */
+    public long getPercentile(int stage, double percentile) {
+        return mHistograms[stage].getValueAtPercentile(percentile);
+    }
+
+    public FrameTimingHistogram getHistogram(int stage) {
+        return mHistograms[stage];
+    }
+
+    public long getFrameCount() {
+        return mFrames.get();
+    }
+
+    public long getDroppedFrameCount() {
+        return mDropped.get();
+    }
+
+    /**
+     * How often a summary is logged.
+     * @param millis - the interval, 0 to never log
+     */
+    public void setDumpInterval(long millis) {
+        mDumpIntervalNanos = millis * 1000000L;
+    }
+
+    public void reset() {
+        for (FrameTimingHistogram h : mHistograms)
+            h.reset();
+        mFrames.set(0);
+        mDropped.set(0);
+        mFramesAtLastDump = 0;
+    }
+
+    /**
+     * Draws the line of the last dump, as the FPS meter did.
+     */
+    public void draw(Canvas canvas, float offsetx, float offsety) {
+        if (mPaint == null) {
+            mPaint = new Paint();
+            mPaint.setColor(Color.BLUE);
+            mPaint.setTextSize(20);
+        }
+        canvas.drawText(mSummary, offsetx, offsety, mPaint);
+    }
+
+    /**
+     * p50/p95/p99 in milliseconds of every stage, plus frame counts.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("frames ").append(mFrames.get()).append(", dropped ").append(mDropped.get());
+        for (int i = 0; i < mHistograms.length; i++) {
+            FrameTimingHistogram h = mHistograms[i];
+            if (h.getCount() == 0)
+                continue;
+            sb.append(String.format(Locale.US, "; %s p50/p95/p99 %.1f/%.1f/%.1f ms",
+                    STAGE_NAMES[i], h.getValueAtPercentile(50) / 1000.0,
+                    h.getValueAtPercentile(95) / 1000.0, h.getValueAtPercentile(99) / 1000.0));
+        }
+        return sb.toString();
+    }
+}
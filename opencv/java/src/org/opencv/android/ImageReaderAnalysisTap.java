@@ -0,0 +1,106 @@
+package org.opencv.android;
+
+import android.annotation.TargetApi;
+import android.graphics.ImageFormat;
+import android.media.Image;
+import android.media.ImageReader;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.Surface;
+
+import org.opencv.android.CameraBridgeViewBase.CvCameraViewAnalyzer;
+import org.opencv.core.Mat;
+
+/**
+ * CPU frames for the OpenGL camera views without reading pixels back from the GPU: an ImageReader,
+ * usually at a lower resolution than the preview, is attached to the capture session as a second
+ * output. Its images are converted on a thread of their own and handed to the analyzer like in
+ * CameraAnalysisTap, so neither the render thread nor the camera ever waits for the analysis.
+ */
+@TargetApi(21)
+class ImageReaderAnalysisTap extends CameraAnalysisTap {
+    private static final String TAG = "ImageReaderAnalysisTap";
+
+    private final int mFormat;
+    private final int mWidth;
+    private final int mHeight;
+    private final HandlerThread mInputThread;
+    private final ImageReader mReader;
+    private final Yuv420Converter mConverter = new Yuv420Converter();
+
+    /**
+     * @param format - CameraBridgeViewBase.RGBA or GRAY, the format handed to the analyzer
+     */
+    ImageReaderAnalysisTap(CvCameraViewAnalyzer analyzer, int format, int width, int height) {
+        super(analyzer, "CameraGLAnalysis");
+        mFormat = format;
+        mWidth = width;
+        mHeight = height;
+        mInputThread = new HandlerThread("CameraGLAnalysisInput");
+        mInputThread.start();
+        /* two images: one being converted, one to take its place */
+        mReader = ImageReader.newInstance(width, height, ImageFormat.YUV_420_888, 2);
+        mReader.setOnImageAvailableListener(new ImageReader.OnImageAvailableListener() {
+            @Override
+            public void onImageAvailable(ImageReader reader) {
+                Image image = reader.acquireLatestImage();
+                if (image == null)
+                    return;
+                try {
+                    write(image);
+                } finally {
+                    image.close();
+                }
+            }
+        }, new Handler(mInputThread.getLooper()));
+        Log.i(TAG, "Analysis frames " + width + "x" + height);
+    }
+
+    /** The surface to add as a target of the capture session. */
+    Surface getSurface() {
+        return mReader.getSurface();
+    }
+
+    int getWidth() {
+        return mWidth;
+    }
+
+    int getHeight() {
+        return mHeight;
+    }
+
+    private void write(Image image) {
+        int slot = beginFrame();
+        if (slot < 0)
+            return;
+        Mat dst = frameBuffer(slot);
+        if (mFormat == CameraBridgeViewBase.GRAY) {
+            Mat y = Yuv420Converter.wrapLuma(image);
+            y.copyTo(dst);
+            y.release();
+        } else {
+            mConverter.toRgba(image, dst);
+        }
+        publishFrame(slot);
+    }
+
+    /**
+     * Detaches from the camera and stops the analysis. The capture session using the surface must
+     * be closed first.
+     */
+    @Override
+    public synchronized void close() {
+        mReader.setOnImageAvailableListener(null, null);
+        super.close(); // waits for a conversion in progress, later images are not converted
+        mInputThread.quitSafely();
+        try {
+            mInputThread.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        mReader.close();
+        Log.i(TAG, "YUV conversion: " + mConverter.getStatistics());
+        mConverter.release();
+    }
+}
@@ -1,6 +1,5 @@
 package org.opencv.android;
 
-import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 
@@ -18,15 +17,15 @@ import android.media.Image;
 import android.media.ImageReader;
 import android.os.Handler;
 import android.os.HandlerThread;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.Surface;
 import android.view.ViewGroup.LayoutParams;
 
-import org.opencv.core.CvType;
 import org.opencv.core.Mat;
+import org.opencv.core.Rect;
 import org.opencv.core.Size;
-import org.opencv.imgproc.Imgproc;
 
 /**
  * This class is an implementation of the Bridge View between OpenCV and Java Camera.
@@ -55,6 +54,14 @@ public class JavaCamera2View extends CameraBridgeViewBase {
     private HandlerThread mBackgroundThread;
     protected Handler mBackgroundHandler;
 
+    /* Image timestamps are elapsedRealtimeNanos() based, else capture latency is taken from arrival */
+    private boolean mRealtimeTimestamps;
+
+    /* Reused for every frame, only touched on the background thread */
+    private final Yuv420Converter mConverter = new Yuv420Converter();
+    private JavaCamera2Frame mFrame;
+    private volatile long mDroppedFrames; // written on the background thread only
+
     public JavaCamera2View(Context context, int cameraId) {
         super(context, cameraId);
     }
@@ -122,6 +129,10 @@ public class JavaCamera2View extends CameraBridgeViewBase {
                     throw new CameraAccessException(CameraAccessException.CAMERA_DISCONNECTED);
                 }
             }
+            Integer timestampSource = manager.getCameraCharacteristics(mCameraID)
+                    .get(CameraCharacteristics.SENSOR_INFO_TIMESTAMP_SOURCE);
+            mRealtimeTimestamps = timestampSource != null
+                    && timestampSource == CameraCharacteristics.SENSOR_INFO_TIMESTAMP_SOURCE_REALTIME;
             return true;
         } catch (CameraAccessException e) {
             Log.e(LOGTAG, "OpenCamera - Camera Access Exception", e);
@@ -170,22 +181,35 @@ public class JavaCamera2View extends CameraBridgeViewBase {
                 return;
             }
 
+            mConverter.reset();
+            mDroppedFrames = 0;
             mImageReader = ImageReader.newInstance(w, h, mPreviewFormat, 2);
             mImageReader.setOnImageAvailableListener(new ImageReader.OnImageAvailableListener() {
                 @Override
                 public void onImageAvailable(ImageReader reader) {
-                    Image image = reader.acquireLatestImage();
+                    // drain the queue like acquireLatestImage() does, but count what is skipped
+                    Image image = reader.acquireNextImage();
                     if (image == null)
                         return;
+                    for (Image next = reader.acquireNextImage(); next != null; next = reader.acquireNextImage()) {
+                        image.close();
+                        image = next;
+                        mDroppedFrames++;
+                    }
 
                     // sanity checks - 3 planes
                     Image.Plane[] planes = image.getPlanes();
                     assert (planes.length == 3);
                     assert (image.getFormat() == mPreviewFormat);
 
-                    JavaCamera2Frame tempFrame = new JavaCamera2Frame(image);
-                    deliverAndDrawFrame(tempFrame);
-                    tempFrame.release();
+                    if (mFrame == null)
+                        mFrame = new JavaCamera2Frame();
+                    mFrame.set(image);
+                    mFrame.setCaptureTime(mRealtimeTimestamps
+                            ? System.nanoTime() - (SystemClock.elapsedRealtimeNanos() - image.getTimestamp())
+                            : System.nanoTime());
+                    deliverAndDrawFrame(mFrame);
+                    mFrame.set(null);
                     image.close();
                 }
             }, mBackgroundHandler);
@@ -228,6 +252,12 @@ public class JavaCamera2View extends CameraBridgeViewBase {
         }
     }
 
+    /** Frames the camera delivered while the previous one was still being processed, since the session was created. */
+    @Override
+    public long getDroppedFrameCount() {
+        return mDroppedFrames;
+    }
+
     @Override
     protected void disconnectCamera() {
         Log.i(LOGTAG, "close camera");
@@ -247,6 +277,13 @@ public class JavaCamera2View extends CameraBridgeViewBase {
                 mImageReader.close();
                 mImageReader = null;
             }
+            /* the background thread is gone, nothing else touches the frame buffers now */
+            Log.i(LOGTAG, "YUV conversion: " + mConverter.getStatistics());
+            mConverter.release();
+            if (mFrame != null) {
+                mFrame.release();
+                mFrame = null;
+            }
         }
         Log.i(LOGTAG, "camera closed!");
     }
@@ -327,121 +364,29 @@ public class JavaCamera2View extends CameraBridgeViewBase {
         return true;
     }
 
-    private class JavaCamera2Frame implements CvCameraViewFrame {
+    private class JavaCamera2Frame extends LazyCameraFrame {
         @Override
-        public Mat gray() {
-            Image.Plane[] planes = mImage.getPlanes();
-            int w = mImage.getWidth();
-            int h = mImage.getHeight();
-            assert(planes[0].getPixelStride() == 1);
-            ByteBuffer y_plane = planes[0].getBuffer();
-            int y_plane_step = planes[0].getRowStride();
-            mGray = new Mat(h, w, CvType.CV_8UC1, y_plane, y_plane_step);
-            return mGray;
+        protected Mat wrapGray() {
+            /* header straight over the Y plane, no copy */
+            return Yuv420Converter.wrapLuma(mImage);
         }
 
         @Override
-        public Mat rgba() {
-            Image.Plane[] planes = mImage.getPlanes();
-            int w = mImage.getWidth();
-            int h = mImage.getHeight();
-            int chromaPixelStride = planes[1].getPixelStride();
-
-
-            if (chromaPixelStride == 2) { // Chroma channels are interleaved
-                assert(planes[0].getPixelStride() == 1);
-                assert(planes[2].getPixelStride() == 2);
-                ByteBuffer y_plane = planes[0].getBuffer();
-                int y_plane_step = planes[0].getRowStride();
-                ByteBuffer uv_plane1 = planes[1].getBuffer();
-                int uv_plane1_step = planes[1].getRowStride();
-                ByteBuffer uv_plane2 = planes[2].getBuffer();
-                int uv_plane2_step = planes[2].getRowStride();
-                Mat y_mat = new Mat(h, w, CvType.CV_8UC1, y_plane, y_plane_step);
-                Mat uv_mat1 = new Mat(h / 2, w / 2, CvType.CV_8UC2, uv_plane1, uv_plane1_step);
-                Mat uv_mat2 = new Mat(h / 2, w / 2, CvType.CV_8UC2, uv_plane2, uv_plane2_step);
-                long addr_diff = uv_mat2.dataAddr() - uv_mat1.dataAddr();
-                if (addr_diff > 0) {
-                    assert(addr_diff == 1);
-                    Imgproc.cvtColorTwoPlane(y_mat, uv_mat1, mRgba, Imgproc.COLOR_YUV2RGBA_NV12);
-                } else {
-                    assert(addr_diff == -1);
-                    Imgproc.cvtColorTwoPlane(y_mat, uv_mat2, mRgba, Imgproc.COLOR_YUV2RGBA_NV21);
-                }
-                return mRgba;
-            } else { // Chroma channels are not interleaved
-                byte[] yuv_bytes = new byte[w*(h+h/2)];
-                ByteBuffer y_plane = planes[0].getBuffer();
-                ByteBuffer u_plane = planes[1].getBuffer();
-                ByteBuffer v_plane = planes[2].getBuffer();
-
-                int yuv_bytes_offset = 0;
-
-                int y_plane_step = planes[0].getRowStride();
-                if (y_plane_step == w) {
-                    y_plane.get(yuv_bytes, 0, w*h);
-                    yuv_bytes_offset = w*h;
-                } else {
-                    int padding = y_plane_step - w;
-                    for (int i = 0; i < h; i++){
-                        y_plane.get(yuv_bytes, yuv_bytes_offset, w);
-                        yuv_bytes_offset += w;
-                        if (i < h - 1) {
-                            y_plane.position(y_plane.position() + padding);
-                        }
-                    }
-                    assert(yuv_bytes_offset == w * h);
-                }
-
-                int chromaRowStride = planes[1].getRowStride();
-                int chromaRowPadding = chromaRowStride - w/2;
-
-                if (chromaRowPadding == 0){
-                    // When the row stride of the chroma channels equals their width, we can copy
-                    // the entire channels in one go
-                    u_plane.get(yuv_bytes, yuv_bytes_offset, w*h/4);
-                    yuv_bytes_offset += w*h/4;
-                    v_plane.get(yuv_bytes, yuv_bytes_offset, w*h/4);
-                } else {
-                    // When not equal, we need to copy the channels row by row
-                    for (int i = 0; i < h/2; i++){
-                        u_plane.get(yuv_bytes, yuv_bytes_offset, w/2);
-                        yuv_bytes_offset += w/2;
-                        if (i < h/2-1){
-                            u_plane.position(u_plane.position() + chromaRowPadding);
-                        }
-                    }
-                    for (int i = 0; i < h/2; i++){
-                        v_plane.get(yuv_bytes, yuv_bytes_offset, w/2);
-                        yuv_bytes_offset += w/2;
-                        if (i < h/2-1){
-                            v_plane.position(v_plane.position() + chromaRowPadding);
-                        }
-                    }
-                }
-
-                Mat yuv_mat = new Mat(h+h/2, w, CvType.CV_8UC1);
-                yuv_mat.put(0, 0, yuv_bytes);
-                Imgproc.cvtColor(yuv_mat, mRgba, Imgproc.COLOR_YUV2RGBA_I420, 4);
-                return mRgba;
-            }
+        protected void convertRgba(Rect roi, Mat rgba) {
+            mConverter.toRgba(mImage, roi, rgba);
         }
 
-
-        public JavaCamera2Frame(Image image) {
-            super();
-            mImage = image;
-            mRgba = new Mat();
-            mGray = new Mat();
+        @Override
+        protected Mat[] wrapChroma(Rect roi) {
+            return mConverter.wrapChroma(mImage, roi);
         }
 
-        public void release() {
-            mRgba.release();
-            mGray.release();
+        /* Points the frame at the next image; the cached Mats keep their buffers between frames */
+        void set(Image image) {
+            invalidate();
+            mImage = image;
         }
 
         private Image mImage;
-        private Mat mRgba;
-        private Mat mGray;
     };
 }
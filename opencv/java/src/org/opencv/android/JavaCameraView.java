@@ -1,6 +1,7 @@
 package org.opencv.android;
 
 import java.util.List;
+import java.util.concurrent.locks.LockSupport;
 
 import android.content.Context;
 import android.graphics.ImageFormat;
@@ -12,11 +13,13 @@ import android.util.AttributeSet;
 import android.util.Log;
 import android.view.ViewGroup.LayoutParams;
 
-import org.opencv.BuildConfig;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
+import org.opencv.core.MatPool;
+import org.opencv.core.Rect;
 import org.opencv.core.Size;
 import org.opencv.imgproc.Imgproc;
+import org.opencv.utils.I420Staging;
 
 /**
  * This class is an implementation of the Bridge View between OpenCV and Java Camera.
@@ -31,12 +34,15 @@ public class JavaCameraView extends CameraBridgeViewBase implements PreviewCallb
 
     private static final int MAGIC_TEXTURE_ID = 10;
     private static final String TAG = "JavaCameraView";
+    private static final int DEFAULT_FRAME_CHAIN_SIZE = 3;
 
-    private byte mBuffer[];
+    private int mFrameChainSize = DEFAULT_FRAME_CHAIN_SIZE;
+    private byte[][] mBuffers;
     private Mat[] mFrameChain;
-    private int mChainIdx = 0;
-    private Thread mThread;
-    private boolean mStopThread;
+    private long[] mCaptureTimes;     // arrival of the frame in each slot, System.nanoTime()
+    private volatile FrameChain mChain; // published last, after the buffers it indexes
+    private volatile Thread mThread;
+    private volatile boolean mStopThread;
 
     protected Camera mCamera;
     protected JavaCameraFrame[] mCameraFrame;
@@ -66,6 +72,31 @@ public class JavaCameraView extends CameraBridgeViewBase implements PreviewCallb
         super(context, attrs);
     }
 
+    /**
+     * Sets the number of preview buffers cycled between the camera and the listener. More slots
+     * absorb short listener stalls without dropping frames at the cost of one YUV frame of memory
+     * each. Takes effect on the next camera connection.
+     * @param slots number of buffers, at least 2.
+     */
+    public void setFrameChainSize(int slots) {
+        if (slots < 2)
+            throw new IllegalArgumentException("Frame chain needs at least 2 slots");
+        mFrameChainSize = slots;
+    }
+
+    /** Frames dropped because the listener was still busy with older ones since the camera was connected. */
+    @Override
+    public long getDroppedFrameCount() {
+        FrameChain chain = mChain;
+        return chain == null ? 0 : chain.getDroppedCount();
+    }
+
+    /** Frames received from the camera since it was connected. */
+    public long getReceivedFrameCount() {
+        FrameChain chain = mChain;
+        return chain == null ? 0 : chain.getPublishedCount();
+    }
+
     protected boolean initializeCamera(int width, int height) {
         Log.d(TAG, "Initialize java camera");
         boolean result = true;
@@ -184,27 +215,30 @@ public class JavaCameraView extends CameraBridgeViewBase implements PreviewCallb
                     else
                         mScale = 0;
 
-                    if (mFpsMeter != null) {
-                        mFpsMeter.setResolution(mFrameWidth, mFrameHeight);
-                    }
-
                     int size = mFrameWidth * mFrameHeight;
                     size  = size * ImageFormat.getBitsPerPixel(params.getPreviewFormat()) / 8;
-                    mBuffer = new byte[size];
 
-                    mCamera.addCallbackBuffer(mBuffer);
+                    /* One camera buffer per slot, so the HAL always has somewhere to write while the
+                     * previous frames are being copied out */
+                    int slots = mFrameChainSize;
+                    mBuffers = new byte[slots][];
+                    for (int i = 0; i < slots; i++) {
+                        mBuffers[i] = new byte[size];
+                        mCamera.addCallbackBuffer(mBuffers[i]);
+                    }
                     mCamera.setPreviewCallbackWithBuffer(this);
 
-                    mFrameChain = new Mat[2];
-                    mFrameChain[0] = new Mat(mFrameHeight + (mFrameHeight/2), mFrameWidth, CvType.CV_8UC1);
-                    mFrameChain[1] = new Mat(mFrameHeight + (mFrameHeight/2), mFrameWidth, CvType.CV_8UC1);
+                    mFrameChain = new Mat[slots];
+                    mCaptureTimes = new long[slots];
+                    mCameraFrame = new JavaCameraFrame[slots];
+                    for (int i = 0; i < slots; i++) {
+                        mFrameChain[i] = MatPool.getDefault().lease(mFrameHeight + (mFrameHeight/2), mFrameWidth, CvType.CV_8UC1);
+                        mCameraFrame[i] = new JavaCameraFrame(mFrameChain[i], mFrameWidth, mFrameHeight);
+                    }
+                    mChain = new FrameChain(slots);
 
                     AllocateCache();
 
-                    mCameraFrame = new JavaCameraFrame[2];
-                    mCameraFrame[0] = new JavaCameraFrame(mFrameChain[0], mFrameWidth, mFrameHeight);
-                    mCameraFrame[1] = new JavaCameraFrame(mFrameChain[1], mFrameWidth, mFrameHeight);
-
                     if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
                         mSurfaceTexture = new SurfaceTexture(MAGIC_TEXTURE_ID);
                         mCamera.setPreviewTexture(mSurfaceTexture);
@@ -235,19 +269,23 @@ public class JavaCameraView extends CameraBridgeViewBase implements PreviewCallb
                 mCamera.release();
             }
             mCamera = null;
-            if (mFrameChain != null) {
-                mFrameChain[0].release();
-                mFrameChain[1].release();
-            }
             if (mCameraFrame != null) {
-                mCameraFrame[0].release();
-                mCameraFrame[1].release();
+                for (JavaCameraFrame f : mCameraFrame)
+                    f.release();
+            }
+            if (mFrameChain != null) {
+                /* the next connect is likely to want the same size again */
+                for (Mat m : mFrameChain)
+                    MatPool.getDefault().recycle(m);
+                mFrameChain = null;
+                Log.d(TAG, "Mat pool: " + MatPool.getDefault());
             }
+            if (mChain != null)
+                Log.d(TAG, "Frames received: " + mChain.getPublishedCount() + ", dropped: " + mChain.getDroppedCount());
+            mBuffers = null;
         }
     }
 
-    private boolean mCameraFrameReady = false;
-
     @Override
     protected boolean connectCamera(int width, int height) {
 
@@ -259,8 +297,6 @@ public class JavaCameraView extends CameraBridgeViewBase implements PreviewCallb
         if (!initializeCamera(width, height))
             return false;
 
-        mCameraFrameReady = false;
-
         /* now we can start update thread */
         Log.d(TAG, "Starting processing thread");
         mStopThread = false;
@@ -279,12 +315,12 @@ public class JavaCameraView extends CameraBridgeViewBase implements PreviewCallb
         try {
             mStopThread = true;
             Log.d(TAG, "Notify thread");
-            synchronized (this) {
-                this.notify();
+            Thread thread = mThread;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+                Log.d(TAG, "Waiting for thread");
+                thread.join();
             }
-            Log.d(TAG, "Waiting for thread");
-            if (mThread != null)
-                mThread.join();
         } catch (InterruptedException e) {
             e.printStackTrace();
         } finally {
@@ -293,39 +329,86 @@ public class JavaCameraView extends CameraBridgeViewBase implements PreviewCallb
 
         /* Now release camera */
         releaseCamera();
-
-        mCameraFrameReady = false;
     }
 
     @Override
     public void onPreviewFrame(byte[] frame, Camera arg1) {
-        if (BuildConfig.DEBUG)
-            Log.d(TAG, "Preview Frame received. Frame size: " + frame.length);
-        synchronized (this) {
-            mFrameChain[mChainIdx].put(0, 0, frame);
-            mCameraFrameReady = true;
-            this.notify();
+        FrameChain chain = mChain;
+        int slot = chain.acquireWrite();
+        if (slot >= 0) {
+            mCaptureTimes[slot] = System.nanoTime();
+            mFrameChain[slot].put(0, 0, frame);
+            chain.publish(slot);
+            Thread thread = mThread;
+            if (thread != null)
+                LockSupport.unpark(thread);
         }
+        /* Hand back the buffer this frame arrived in, the others are still queued in the camera */
         if (mCamera != null)
-            mCamera.addCallbackBuffer(mBuffer);
+            mCamera.addCallbackBuffer(frame);
     }
 
-    private class JavaCameraFrame implements CvCameraViewFrame {
+    private class JavaCameraFrame extends LazyCameraFrame {
         @Override
-        public Mat gray() {
+        protected Mat wrapGray() {
             return mYuvFrameData.submat(0, mHeight, 0, mWidth);
         }
 
         @Override
-        public Mat rgba() {
-            if (mPreviewFormat == ImageFormat.NV21)
-                Imgproc.cvtColor(mYuvFrameData, mRgba, Imgproc.COLOR_YUV2RGBA_NV21, 4);
-            else if (mPreviewFormat == ImageFormat.YV12)
-                Imgproc.cvtColor(mYuvFrameData, mRgba, Imgproc.COLOR_YUV2RGB_I420, 4);  // COLOR_YUV2RGBA_YV12 produces inverted colors
-            else
+        protected void convertRgba(Rect roi, Mat rgba) {
+            if (roi == null) {
+                if (mPreviewFormat == ImageFormat.NV21)
+                    Imgproc.cvtColor(mYuvFrameData, rgba, Imgproc.COLOR_YUV2RGBA_NV21, 4);
+                else if (mPreviewFormat == ImageFormat.YV12)
+                    Imgproc.cvtColor(mYuvFrameData, rgba, Imgproc.COLOR_YUV2RGB_I420, 4);  // COLOR_YUV2RGBA_YV12 produces inverted colors
+                else
+                    throw new IllegalArgumentException("Preview Format can be NV21 or YV12");
+                return;
+            }
+
+            Mat[] chroma = chromaRoi();
+            if (mPreviewFormat == ImageFormat.NV21) {
+                Imgproc.cvtColorTwoPlane(grayRoi(), chroma[0], rgba, Imgproc.COLOR_YUV2RGBA_NV21);
+            } else if (mPreviewFormat == ImageFormat.YV12) {
+                /* planar chroma has no two-plane conversion, gather the region like the full frame is laid out */
+                mRoiStaging.ensure(roi.width, roi.height);
+                grayRoi().copyTo(mRoiStaging.y());
+                chroma[0].copyTo(mRoiStaging.u());
+                chroma[1].copyTo(mRoiStaging.v());
+                Imgproc.cvtColor(mRoiStaging.i420(), rgba, Imgproc.COLOR_YUV2RGB_I420, 4);
+            } else {
                 throw new IllegalArgumentException("Preview Format can be NV21 or YV12");
+            }
+        }
 
-            return mRgba;
+        @Override
+        protected Mat[] wrapChroma(Rect roi) {
+            Rect chromaRoi = new Rect(roi.x / 2, roi.y / 2, roi.width / 2, roi.height / 2);
+            Mat chromaRows = mYuvFrameData.rowRange(mHeight, mHeight + mHeight / 2);
+            try {
+                if (mPreviewFormat == ImageFormat.NV21) {
+                    /* VU pairs after the luma: h/2 rows of w/2 two-channel samples */
+                    Mat vu = chromaRows.reshape(2);
+                    Mat view = vu.submat(chromaRoi);
+                    vu.release();
+                    return new Mat[] { view };
+                }
+                /* two (h/2 x w/2) planes back to back after the luma, each taking h/4 rows of the frame */
+                Mat bytes = chromaRows.reshape(1, 1);
+                int planeBytes = (mWidth / 2) * (mHeight / 2);
+                Mat[] planes = new Mat[2];
+                for (int i = 0; i < 2; i++) {
+                    Mat run = bytes.colRange(i * planeBytes, (i + 1) * planeBytes);
+                    Mat plane = run.reshape(1, mHeight / 2);
+                    planes[i] = plane.submat(chromaRoi);
+                    plane.release();
+                    run.release();
+                }
+                bytes.release();
+                return planes;
+            } finally {
+                chromaRows.release();
+            }
         }
 
         public JavaCameraFrame(Mat Yuv420sp, int width, int height) {
@@ -333,44 +416,42 @@ public class JavaCameraView extends CameraBridgeViewBase implements PreviewCallb
             mWidth = width;
             mHeight = height;
             mYuvFrameData = Yuv420sp;
-            mRgba = new Mat();
         }
 
+        @Override
         public void release() {
-            mRgba.release();
+            super.release();
+            mRoiStaging.release();
         }
 
         private Mat mYuvFrameData;
-        private Mat mRgba;
         private int mWidth;
         private int mHeight;
+        private final I420Staging mRoiStaging = new I420Staging();
     };
 
     private class CameraWorker implements Runnable {
 
         @Override
         public void run() {
+            FrameChain chain = mChain;
             do {
-                boolean hasFrame = false;
-                synchronized (JavaCameraView.this) {
-                    try {
-                        while (!mCameraFrameReady && !mStopThread) {
-                            JavaCameraView.this.wait();
-                        }
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                    if (mCameraFrameReady)
-                    {
-                        mChainIdx = 1 - mChainIdx;
-                        mCameraFrameReady = false;
-                        hasFrame = true;
-                    }
+                int slot = chain.acquireRead();
+                if (slot < 0) {
+                    /* Woken up by onPreviewFrame or disconnectCamera; the timeout only guards
+                     * against a lost wake-up */
+                    LockSupport.parkNanos(JavaCameraView.this, 100000000L);
+                    continue;
                 }
-
-                if (!mStopThread && hasFrame) {
-                    if (!mFrameChain[1 - mChainIdx].empty())
-                        deliverAndDrawFrame(mCameraFrame[1 - mChainIdx]);
+                try {
+                    if (!mStopThread && !mFrameChain[slot].empty()) {
+                        /* the slot holds a new picture since it was last delivered */
+                        mCameraFrame[slot].invalidate();
+                        mCameraFrame[slot].setCaptureTime(mCaptureTimes[slot]);
+                        deliverAndDrawFrame(mCameraFrame[slot]);
+                    }
+                } finally {
+                    chain.releaseRead(slot);
                 }
             } while (!mStopThread);
             Log.d(TAG, "Finish processing thread");
@@ -0,0 +1,222 @@
+package org.opencv.android;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatScope;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Base of the camera frames handed to CvCameraViewListener2. Each representation is produced on
+ * first request and kept until {@link #invalidate()} announces the next frame, so a listener (and
+ * the analysis snapshot) calling rgba() or gray() repeatedly pays for one conversion only. The
+ * output Mats keep their buffers between frames.
+ *
+ * The view sets the region of interest before delivery; region access works on plane views and
+ * converts just the region.
+ */
+abstract class LazyCameraFrame implements CameraBridgeViewBase.CvCameraViewFrame {
+
+    private static final Scalar OPAQUE_BLACK = new Scalar(0, 0, 0, 255);
+
+    private final Mat mRgba = new Mat();
+    private final Mat mRgbaRoi = new Mat();
+    private final Mat mGrayScaled = new Mat();
+    private boolean mRgbaValid;
+    private boolean mRgbaRoiValid;
+    private int mScaledFactor;   // factor mGrayScaled currently holds, 0 if none
+
+    /* headers over the current frame, released by invalidate(); made on first use, possibly inside
+       a listener's MatScope, so each is taken out of it with MatScope.forget() */
+    private Mat mGray;
+    private Mat mGrayRoi;
+    private Mat mRgbaRoiView;    // ROI of mRgba, when only the ROI is converted
+    private Mat[] mChromaRoi;
+
+    private Rect mRoi;           // null for the whole frame
+    private boolean mRoiOnly;
+    private Rect mClearedFor;    // ROI the black background of mRgba was prepared for
+
+    private long mCaptureTime;   // System.nanoTime() based, 0 if unknown
+    private long mConversionTime;
+
+    /**
+     * Converts the current frame to RGBA into rgba: the region roi only (even coordinates and size,
+     * rgba gets its size), or the whole frame if roi is null.
+     */
+    protected abstract void convertRgba(Rect roi, Mat rgba);
+
+    /**
+     * Returns a gray scale header over the current frame, released again on invalidate().
+     */
+    protected abstract Mat wrapGray();
+
+    /**
+     * Returns the chroma samples covering roi as described for chromaRoi(), released again on
+     * invalidate().
+     */
+    protected abstract Mat[] wrapChroma(Rect roi);
+
+    @Override
+    public Mat rgba() {
+        if (!mRgbaValid) {
+            long start = System.nanoTime();
+            if (mRoiOnly && mRoi != null)
+                convertRgba(mRoi, roiOnlyTarget());
+            else
+                convertRgba(null, mRgba);
+            mConversionTime += System.nanoTime() - start;
+            mRgbaValid = true;
+        }
+        return mRgba;
+    }
+
+    /* The ROI of a full size RGBA frame whose surroundings were cleared once for this ROI */
+    private Mat roiOnlyTarget() {
+        Mat gray = gray();
+        if (mRgba.rows() != gray.rows() || mRgba.cols() != gray.cols() || !mRoi.equals(mClearedFor)) {
+            mRgba.create(gray.rows(), gray.cols(), CvType.CV_8UC4);
+            mRgba.setTo(OPAQUE_BLACK);
+            mClearedFor = mRoi;
+        }
+        if (mRgbaRoiView == null)
+            mRgbaRoiView = MatScope.forget(mRgba.submat(mRoi));
+        return mRgbaRoiView;
+    }
+
+    @Override
+    public Mat gray() {
+        if (mGray == null)
+            mGray = MatScope.forget(wrapGray());
+        return mGray;
+    }
+
+    @Override
+    public Mat grayDownscaled(int factor) {
+        if (factor < 1)
+            throw new IllegalArgumentException("Downscale factor must be positive: " + factor);
+        if (factor == 1)
+            return gray();
+        if (mScaledFactor != factor) {
+            long start = System.nanoTime();
+            Mat gray = gray();
+            /* INTER_AREA averages whole source blocks, which is what the integer factor gives */
+            Imgproc.resize(gray, mGrayScaled, new Size(gray.cols() / factor, gray.rows() / factor), 0, 0, Imgproc.INTER_AREA);
+            mScaledFactor = factor;
+            mConversionTime += System.nanoTime() - start;
+        }
+        return mGrayScaled;
+    }
+
+    @Override
+    public Rect roi() {
+        if (mRoi != null)
+            return mRoi.clone();
+        Mat gray = gray();
+        return new Rect(0, 0, gray.cols(), gray.rows());
+    }
+
+    @Override
+    public Mat grayRoi() {
+        if (mRoi == null)
+            return gray();
+        if (mGrayRoi == null)
+            mGrayRoi = MatScope.forget(gray().submat(mRoi));
+        return mGrayRoi;
+    }
+
+    @Override
+    public Mat[] chromaRoi() {
+        if (mChromaRoi == null) {
+            mChromaRoi = wrapChroma(roi());
+            for (Mat m : mChromaRoi)
+                MatScope.forget(m);
+        }
+        return mChromaRoi;
+    }
+
+    @Override
+    public Mat rgbaRoi() {
+        if (mRoi == null)
+            return rgba();
+        if (mRoiOnly) {
+            rgba();
+            return mRgbaRoiView;
+        }
+        if (!mRgbaRoiValid) {
+            long start = System.nanoTime();
+            convertRgba(mRoi, mRgbaRoi);
+            mConversionTime += System.nanoTime() - start;
+            mRgbaRoiValid = true;
+        }
+        return mRgbaRoi;
+    }
+
+    /**
+     * Sets the region of interest for the frame about to be delivered, null for the whole frame.
+     */
+    void setRoi(Rect roi, boolean roiOnly) {
+        boolean same = (roi == null) ? mRoi == null : roi.equals(mRoi);
+        if (same && roiOnly == mRoiOnly)
+            return;
+        invalidate();
+        mRoi = roi;
+        mRoiOnly = roiOnly;
+        mClearedFor = null;
+    }
+
+    /**
+     * Sets when the current frame was captured, in System.nanoTime() time base.
+     */
+    void setCaptureTime(long nanoTime) {
+        mCaptureTime = nanoTime;
+    }
+
+    long getCaptureTime() {
+        return mCaptureTime;
+    }
+
+    /**
+     * Time spent converting the current frame so far, in nanoseconds.
+     */
+    long getConversionTime() {
+        return mConversionTime;
+    }
+
+    /**
+     * Drops the cached conversions, to be called whenever the underlying frame data changes.
+     */
+    void invalidate() {
+        mConversionTime = 0;
+        mRgbaValid = false;
+        mRgbaRoiValid = false;
+        mScaledFactor = 0;
+        if (mGray != null) {
+            mGray.release();
+            mGray = null;
+        }
+        if (mGrayRoi != null) {
+            mGrayRoi.release();
+            mGrayRoi = null;
+        }
+        if (mRgbaRoiView != null) {
+            mRgbaRoiView.release();
+            mRgbaRoiView = null;
+        }
+        if (mChromaRoi != null) {
+            for (Mat m : mChromaRoi)
+                m.release();
+            mChromaRoi = null;
+        }
+    }
+
+    public void release() {
+        invalidate();
+        mRgba.release();
+        mRgbaRoi.release();
+        mGrayScaled.release();
+        mClearedFor = null;
+    }
+}
@@ -0,0 +1,141 @@
+package org.opencv.android;
+
+import android.annotation.TargetApi;
+import android.media.Image;
+import android.util.Log;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.utils.I420Staging;
+import org.opencv.utils.Yuv420Planes;
+
+/**
+ * Converts YUV_420_888 camera images to RGBA working on the image planes in place.
+ *
+ * YUV_420_888 only promises three planes with arbitrary row and pixel strides, and devices differ:
+ * <ul>
+ * <li>NV12 / NV21 - chroma interleaved (pixel stride 2, U and V one byte apart): the planes are
+ *     wrapped as Mats and converted with cvtColorTwoPlane, nothing is copied.</li>
+ * <li>I420 - chroma planar (pixel stride 1): planes are copied row by row by OpenCV into a
+ *     staging I420 buffer, honouring the row strides.</li>
+ * <li>Strided - any other pixel stride: chroma samples are picked out with extractChannel straight
+ *     into the staging buffer.</li>
+ * </ul>
+ * The plane work itself is done by {@link Yuv420Planes}, which the benchmark module runs on
+ * synthetic planes of every layout. The staging buffer ({@link I420Staging}) is allocated once per
+ * size, so no pixel memory is allocated per frame. Conversions may be limited to a region of
+ * interest, which costs in proportion to its area. Per-layout conversion times are kept for
+ * {@link #getStatistics()}.
+ */
+@TargetApi(21)
+class Yuv420Converter {
+
+    private static final String LOGTAG = "Yuv420Converter";
+
+    private int mLayout = -1;   // detected once per stream, the layout does not change between frames
+    private final Yuv420Planes mPlanes = new Yuv420Planes();
+    private final I420Staging mFullStaging = new I420Staging();
+    private final I420Staging mRoiStaging = new I420Staging(); // kept apart so full and ROI frames don't reallocate in turns
+
+    private final long[] mFrames = new long[Yuv420Planes.LAYOUT_COUNT];
+    private final long[] mNanos = new long[Yuv420Planes.LAYOUT_COUNT];
+
+    /* Points mPlanes at the planes of image */
+    private Yuv420Planes planes(Image image) {
+        Image.Plane[] planes = image.getPlanes();
+        return mPlanes.set(image.getWidth(), image.getHeight(),
+                planes[0].getBuffer(), planes[0].getRowStride(),
+                planes[1].getBuffer(), planes[1].getRowStride(), planes[1].getPixelStride(),
+                planes[2].getBuffer(), planes[2].getRowStride(), planes[2].getPixelStride());
+    }
+
+    /**
+     * Wraps the luma plane without copying. The returned header must be released by the caller and
+     * is only valid while the image is open.
+     */
+    static Mat wrapLuma(Image image) {
+        Image.Plane y = image.getPlanes()[0];
+        return new Mat(image.getHeight(), image.getWidth(), CvType.CV_8UC1, y.getBuffer(), y.getRowStride());
+    }
+
+    /**
+     * Converts the image to RGBA. rgba is reallocated only if its size or type does not match.
+     */
+    public void toRgba(Image image, Mat rgba) {
+        toRgba(image, null, rgba);
+    }
+
+    /**
+     * Converts the part of the image inside roi to RGBA, or the whole image if roi is null. The roi
+     * must have even coordinates and size, rgba gets the size of the roi.
+     */
+    public void toRgba(Image image, Rect roi, Mat rgba) {
+        long start = System.nanoTime();
+        Yuv420Planes planes = planes(image);
+        int layout = layout(planes);
+        if (roi == null)
+            roi = new Rect(0, 0, planes.width(), planes.height());
+        I420Staging staging = (layout == Yuv420Planes.LAYOUT_NV12 || layout == Yuv420Planes.LAYOUT_NV21)
+                ? null : staging(roi, planes.width(), planes.height());
+        planes.toRgba(layout, roi, staging, rgba);
+
+        mFrames[layout]++;
+        mNanos[layout] += System.nanoTime() - start;
+    }
+
+    /**
+     * Returns the chroma samples covering roi (even coordinates and size): for NV12 / NV21 one
+     * CV_8UC2 view in plane order, for I420 the U and V plane views. Strided chroma can not be viewed
+     * as a Mat, it is gathered into the staging buffer instead. Each returned header must be released
+     * by the caller and is only valid while the image is open.
+     */
+    public Mat[] wrapChroma(Image image, Rect roi) {
+        Yuv420Planes planes = planes(image);
+        int layout = layout(planes);
+        I420Staging staging = (layout == Yuv420Planes.LAYOUT_STRIDED) ? staging(roi, planes.width(), planes.height()) : null;
+        return planes.wrapChroma(layout, roi, staging);
+    }
+
+    private int layout(Yuv420Planes planes) {
+        if (mLayout < 0) {
+            mLayout = planes.layout();
+            Log.i(LOGTAG, "Camera delivers " + Yuv420Planes.layoutName(mLayout) + " " + planes.width() + "x" + planes.height());
+        }
+        return mLayout;
+    }
+
+    private I420Staging staging(Rect roi, int w, int h) {
+        I420Staging staging = (roi.width == w && roi.height == h) ? mFullStaging : mRoiStaging;
+        staging.ensure(roi.width, roi.height);
+        return staging;
+    }
+
+    /**
+     * Average conversion time per layout seen so far, for logging.
+     */
+    public String getStatistics() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < Yuv420Planes.LAYOUT_COUNT; i++) {
+            if (mFrames[i] == 0)
+                continue;
+            if (sb.length() > 0)
+                sb.append(", ");
+            sb.append(Yuv420Planes.layoutName(i)).append(": ").append(mFrames[i]).append(" frames, ")
+              .append(mNanos[i] / mFrames[i] / 1000).append(" us avg");
+        }
+        return sb.length() == 0 ? "no frames converted" : sb.toString();
+    }
+
+    /**
+     * Forgets the detected layout, to be called when a new capture stream starts.
+     */
+    public void reset() {
+        mLayout = -1;
+    }
+
+    public void release() {
+        mFullStaging.release();
+        mRoiStaging.release();
+    }
+}
@@ -21,7 +21,7 @@ package org.opencv.core;
 public class Algorithm {
 
     protected final long nativeObj;
-    protected Algorithm(long addr) { nativeObj = addr; }
+    protected Algorithm(long addr) { nativeObj = addr; NativeMemoryTracker.track(this); }
 
     public long getNativeObjAddr() { return nativeObj; }
 
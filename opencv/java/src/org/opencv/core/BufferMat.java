@@ -0,0 +1,121 @@
+package org.opencv.core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * A continuous Mat whose pixels live in a direct ByteBuffer, so Java code reads and writes them in
+ * place: no get()/put() copy through JNI into a heap array and back. The buffer is allocated on the
+ * Java side and the Mat is a header over it (the bindings cannot hand out a buffer over memory
+ * OpenCV allocated), so create one up front and pass it as the output of OpenCV calls; as long as
+ * they produce the same size and type they write straight into the buffer.
+ *
+ * The buffer views are checked against the Mat on every call: after release(), or if an OpenCV call
+ * reallocated the Mat for another size or type, they throw IllegalStateException instead of showing
+ * memory the Mat no longer uses. Views into the Mat (submat(), reshape(), ...) share the buffer; keep
+ * the BufferMat reachable while they are in use.
+ */
+public class BufferMat extends Mat {
+
+    private final ByteBuffer mBuffer;
+    private final long mDataAddr;
+    private final int mRows;
+    private final int mCols;
+    private final int mType;
+
+    private BufferMat(int rows, int cols, int type, ByteBuffer buffer) {
+        super(rows, cols, type, buffer);
+        mBuffer = buffer;
+        mDataAddr = dataAddr();
+        mRows = rows;
+        mCols = cols;
+        mType = type;
+    }
+
+    /**
+     * A rows x cols Mat of the given type over a new direct buffer in native byte order, filled with zeros.
+     */
+    public static BufferMat allocate(int rows, int cols, int type) {
+        if (rows <= 0 || cols <= 0)
+            throw new IllegalArgumentException("Unsupported Mat size " + rows + "x" + cols);
+        long bytes = (long) rows * cols * CvType.ELEM_SIZE(type);
+        if (bytes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Mat of " + bytes + " bytes does not fit a ByteBuffer");
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+        return new BufferMat(rows, cols, type, buffer);
+    }
+
+    /**
+     * True while the Mat still uses the buffer: not released and not reallocated.
+     */
+    public boolean isValid() {
+        return dataAddr() == mDataAddr && rows() == mRows && cols() == mCols && type() == mType;
+    }
+
+    private void checkValid() {
+        if (!isValid())
+            throw new IllegalStateException("BufferMat was released or reallocated by an OpenCV call: " + this);
+    }
+
+    private void checkDepth(int depth, String name) {
+        if (CvType.depth(mType) != depth)
+            throw new UnsupportedOperationException(name + " view of a " + CvType.typeToString(mType) + " Mat");
+    }
+
+    /**
+     * All pixel bytes, row by row, in native byte order. The returned buffer has its own position
+     * and limit; index it with index().
+     */
+    public ByteBuffer byteBuffer() {
+        checkValid();
+        return mBuffer.duplicate().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * The pixels of a CV_16U or CV_16S Mat.
+     */
+    public ShortBuffer shortBuffer() {
+        if (CvType.depth(mType) != CvType.CV_16S)
+            checkDepth(CvType.CV_16U, "ShortBuffer");
+        return byteBuffer().asShortBuffer();
+    }
+
+    /**
+     * The pixels of a CV_32S Mat.
+     */
+    public IntBuffer intBuffer() {
+        checkDepth(CvType.CV_32S, "IntBuffer");
+        return byteBuffer().asIntBuffer();
+    }
+
+    /**
+     * The pixels of a CV_32F Mat.
+     */
+    public FloatBuffer floatBuffer() {
+        checkDepth(CvType.CV_32F, "FloatBuffer");
+        return byteBuffer().asFloatBuffer();
+    }
+
+    /**
+     * The pixels of a CV_64F Mat.
+     */
+    public DoubleBuffer doubleBuffer() {
+        checkDepth(CvType.CV_64F, "DoubleBuffer");
+        return byteBuffer().asDoubleBuffer();
+    }
+
+    /**
+     * Position of channel 0 of (row, col) in the typed buffers, in elements of the depth.
+     * @param row - 0 <= row < rows()
+     * @param col - 0 <= col < cols()
+     */
+    public int index(int row, int col) {
+        if (row < 0 || row >= mRows || col < 0 || col >= mCols)
+            throw new IndexOutOfBoundsException("(" + row + ", " + col + ") outside of " + mRows + "x" + mCols);
+        return (row * mCols + col) * CvType.channels(mType);
+    }
+}
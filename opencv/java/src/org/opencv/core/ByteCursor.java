@@ -0,0 +1,179 @@
+package org.opencv.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Row by row access to the pixels of a CV_8U or CV_8S Mat, or of a rectangle of it, without the
+ * boxed single pixel JNI round trip of Mat.at(): get() and set() index a primitive row.
+ *
+ * Over a BufferMat the cursor reads and writes the Mat's direct buffer in place, stepping by the
+ * row stride, so a ROI costs nothing and set() is visible to OpenCV immediately. Over any other Mat
+ * (submat views included) row() copies the row span with one bulk get() into a cached array, and
+ * the changes made by set() are written back with one put() when the cursor moves to another row,
+ * or on flush(). Call flush() before handing the Mat to OpenCV again.
+ *
+ * Do not reallocate or release the Mat while a cursor is on it. Not thread safe; use one cursor
+ * per thread and per Mat.
+ */
+public class ByteCursor {
+
+    private Mat mMat;
+    private int mX, mY, mRows, mCols, mChannels;
+    private int mMask;              /* 0xff for CV_8U, -1 for CV_8S */
+    private int mRow = -1;
+
+    /* direct path: absolute buffer position of the current row, and bytes per Mat row */
+    private ByteBuffer mBuffer;
+    private int mOffset, mStride, mBase;
+
+    /* copy path */
+    private byte[] mData = new byte[0];
+    private boolean mDirty;
+
+    public ByteCursor() {
+    }
+
+    public ByteCursor(Mat m) {
+        reset(m);
+    }
+
+    public ByteCursor(Mat m, Rect roi) {
+        reset(m, roi);
+    }
+
+    /**
+     * Points the cursor at all of m, on row 0. Pending changes to the previous Mat are flushed.
+     * @return this
+     */
+    public ByteCursor reset(Mat m) {
+        return reset(m, new Rect(0, 0, m.cols(), m.rows()));
+    }
+
+    /**
+     * Points the cursor at the rectangle roi of m, on its row 0: row and column indices are
+     * relative to roi. Pending changes to the previous Mat are flushed.
+     * @return this
+     */
+    public ByteCursor reset(Mat m, Rect roi) {
+        flush();
+        int depth = CvType.depth(m.type());
+        if (m.dims() != 2 || (depth != CvType.CV_8U && depth != CvType.CV_8S))
+            throw new UnsupportedOperationException("ByteCursor over a " + m.dims() + " dimensional "
+                    + CvType.typeToString(m.type()) + " Mat");
+        if (roi.x < 0 || roi.y < 0 || roi.width <= 0 || roi.height <= 0
+                || roi.x + roi.width > m.cols() || roi.y + roi.height > m.rows())
+            throw new IndexOutOfBoundsException(roi + " outside of " + m.rows() + "x" + m.cols());
+
+        mMat = m;
+        mX = roi.x;
+        mY = roi.y;
+        mRows = roi.height;
+        mCols = roi.width;
+        mChannels = CvType.channels(m.type());
+        mMask = depth == CvType.CV_8U ? 0xff : -1;
+        mRow = -1;
+
+        if (m instanceof BufferMat) {
+            /* byteBuffer() throws if the BufferMat no longer uses its buffer */
+            mBuffer = ((BufferMat) m).byteBuffer();
+            mStride = m.cols() * mChannels;
+            mOffset = mY * mStride + mX * mChannels;
+        } else {
+            mBuffer = null;
+            if (mData.length != mCols * mChannels)
+                mData = new byte[mCols * mChannels];   /* exact: get() and put() copy the whole array */
+        }
+        row(0);
+        return this;
+    }
+
+    public int rows() {
+        return mRows;
+    }
+
+    public int cols() {
+        return mCols;
+    }
+
+    public int channels() {
+        return mChannels;
+    }
+
+    /**
+     * True if the cursor works in place on a BufferMat, false if it copies rows.
+     */
+    public boolean isDirect() {
+        return mBuffer != null;
+    }
+
+    /**
+     * The row the cursor is on.
+     */
+    public int row() {
+        return mRow;
+    }
+
+    /**
+     * Moves the cursor to row r (relative to the ROI), writing back the changes to the current row.
+     * @return this
+     */
+    public ByteCursor row(int r) {
+        if (r < 0 || r >= mRows)
+            throw new IndexOutOfBoundsException("row " + r + ", rows " + mRows);
+        if (r == mRow)
+            return this;
+        if (mBuffer != null) {
+            mBase = mOffset + r * mStride;
+        } else {
+            flush();
+            mMat.get(mY + r, mX, mData);
+        }
+        mRow = r;
+        return this;
+    }
+
+    private int index(int col, int ch) {
+        if (col < 0 || col >= mCols || ch < 0 || ch >= mChannels)
+            throw new IndexOutOfBoundsException("(" + col + ", " + ch + ") outside of " + mCols + " x " + mChannels);
+        return col * mChannels + ch;
+    }
+
+    /**
+     * Channel 0 of column col of the current row: 0 to 255 for CV_8U, -128 to 127 for CV_8S.
+     */
+    public int get(int col) {
+        return get(col, 0);
+    }
+
+    public int get(int col, int ch) {
+        int i = index(col, ch);
+        return (mBuffer != null ? mBuffer.get(mBase + i) : mData[i]) & mMask;
+    }
+
+    /**
+     * Sets channel 0 of column col of the current row to the low 8 bits of v.
+     */
+    public void set(int col, int v) {
+        set(col, 0, v);
+    }
+
+    public void set(int col, int ch, int v) {
+        int i = index(col, ch);
+        if (mBuffer != null) {
+            mBuffer.put(mBase + i, (byte) v);
+        } else {
+            mData[i] = (byte) v;
+            mDirty = true;
+        }
+    }
+
+    /**
+     * Writes the changes to the current row back into the Mat. Nothing to do on a BufferMat.
+     */
+    public void flush() {
+        if (!mDirty)
+            return;
+        mMat.put(mY + mRow, mX, mData);
+        mDirty = false;
+    }
+}
@@ -0,0 +1,158 @@
+package org.opencv.core;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Row by row access to the pixels of a CV_32F Mat, or of a rectangle of it, without the boxed
+ * single pixel JNI round trip of Mat.at(): get() and set() index a primitive row.
+ *
+ * Over a BufferMat the cursor reads and writes the Mat's direct buffer in place, stepping by the
+ * row stride; over any other Mat row() copies the row span with one bulk get() and writes changes
+ * back with one put() on the next row() or flush(). See ByteCursor.
+ */
+public class FloatCursor {
+
+    private Mat mMat;
+    private int mX, mY, mRows, mCols, mChannels;
+    private int mRow = -1;
+
+    /* direct path: absolute buffer position of the current row, and floats per Mat row */
+    private FloatBuffer mBuffer;
+    private int mOffset, mStride, mBase;
+
+    /* copy path */
+    private float[] mData = new float[0];
+    private boolean mDirty;
+
+    public FloatCursor() {
+    }
+
+    public FloatCursor(Mat m) {
+        reset(m);
+    }
+
+    public FloatCursor(Mat m, Rect roi) {
+        reset(m, roi);
+    }
+
+    /**
+     * Points the cursor at all of m, on row 0. Pending changes to the previous Mat are flushed.
+     * @return this
+     */
+    public FloatCursor reset(Mat m) {
+        return reset(m, new Rect(0, 0, m.cols(), m.rows()));
+    }
+
+    /**
+     * Points the cursor at the rectangle roi of m, on its row 0: row and column indices are
+     * relative to roi. Pending changes to the previous Mat are flushed.
+     * @return this
+     */
+    public FloatCursor reset(Mat m, Rect roi) {
+        flush();
+        if (m.dims() != 2 || CvType.depth(m.type()) != CvType.CV_32F)
+            throw new UnsupportedOperationException("FloatCursor over a " + m.dims() + " dimensional "
+                    + CvType.typeToString(m.type()) + " Mat");
+        if (roi.x < 0 || roi.y < 0 || roi.width <= 0 || roi.height <= 0
+                || roi.x + roi.width > m.cols() || roi.y + roi.height > m.rows())
+            throw new IndexOutOfBoundsException(roi + " outside of " + m.rows() + "x" + m.cols());
+
+        mMat = m;
+        mX = roi.x;
+        mY = roi.y;
+        mRows = roi.height;
+        mCols = roi.width;
+        mChannels = CvType.channels(m.type());
+        mRow = -1;
+
+        if (m instanceof BufferMat) {
+            mBuffer = ((BufferMat) m).floatBuffer();
+            mStride = m.cols() * mChannels;
+            mOffset = mY * mStride + mX * mChannels;
+        } else {
+            mBuffer = null;
+            if (mData.length != mCols * mChannels)
+                mData = new float[mCols * mChannels];
+        }
+        row(0);
+        return this;
+    }
+
+    public int rows() {
+        return mRows;
+    }
+
+    public int cols() {
+        return mCols;
+    }
+
+    public int channels() {
+        return mChannels;
+    }
+
+    public boolean isDirect() {
+        return mBuffer != null;
+    }
+
+    public int row() {
+        return mRow;
+    }
+
+    /**
+     * Moves the cursor to row r (relative to the ROI), writing back the changes to the current row.
+     * @return this
+     */
+    public FloatCursor row(int r) {
+        if (r < 0 || r >= mRows)
+            throw new IndexOutOfBoundsException("row " + r + ", rows " + mRows);
+        if (r == mRow)
+            return this;
+        if (mBuffer != null) {
+            mBase = mOffset + r * mStride;
+        } else {
+            flush();
+            mMat.get(mY + r, mX, mData);
+        }
+        mRow = r;
+        return this;
+    }
+
+    private int index(int col, int ch) {
+        if (col < 0 || col >= mCols || ch < 0 || ch >= mChannels)
+            throw new IndexOutOfBoundsException("(" + col + ", " + ch + ") outside of " + mCols + " x " + mChannels);
+        return col * mChannels + ch;
+    }
+
+    public float get(int col) {
+        return get(col, 0);
+    }
+
+    public float get(int col, int ch) {
+        int i = index(col, ch);
+        return mBuffer != null ? mBuffer.get(mBase + i) : mData[i];
+    }
+
+    public void set(int col, float v) {
+        set(col, 0, v);
+    }
+
+    public void set(int col, int ch, float v) {
+        int i = index(col, ch);
+        if (mBuffer != null) {
+            mBuffer.put(mBase + i, v);
+        } else {
+            mData[i] = v;
+            mDirty = true;
+        }
+    }
+
+    /**
+     * Writes the changes to the current row back into the Mat. Nothing to do on a BufferMat.
+     */
+    public void flush() {
+        if (!mDirty)
+            return;
+        mMat.put(mY + mRow, mX, mData);
+        mDirty = false;
+    }
+}
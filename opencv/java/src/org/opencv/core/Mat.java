@@ -12,6 +12,7 @@ public class Mat {
         if (addr == 0)
             throw new UnsupportedOperationException("Native object address is NULL");
         nativeObj = addr;
+        onCreated();
     }
 
     //
@@ -21,6 +22,7 @@ public class Mat {
     // javadoc: Mat::Mat()
     public Mat() {
         nativeObj = n_Mat();
+        onCreated();
     }
 
     //
@@ -30,6 +32,7 @@ public class Mat {
     // javadoc: Mat::Mat(rows, cols, type)
     public Mat(int rows, int cols, int type) {
         nativeObj = n_Mat(rows, cols, type);
+        onCreated();
     }
 
     //
@@ -39,6 +42,7 @@ public class Mat {
     // javadoc: Mat::Mat(rows, cols, type, data)
     public Mat(int rows, int cols, int type, ByteBuffer data) {
         nativeObj = n_Mat(rows, cols, type, data);
+        onCreated();
     }
 
     //
@@ -48,6 +52,7 @@ public class Mat {
     // javadoc: Mat::Mat(rows, cols, type, data, step)
     public Mat(int rows, int cols, int type, ByteBuffer data, long step) {
         nativeObj = n_Mat(rows, cols, type, data, step);
+        onCreated();
     }
 
     //
@@ -57,6 +62,7 @@ public class Mat {
     // javadoc: Mat::Mat(size, type)
     public Mat(Size size, int type) {
         nativeObj = n_Mat(size.width, size.height, type);
+        onCreated();
     }
 
     //
@@ -66,6 +72,7 @@ public class Mat {
     // javadoc: Mat::Mat(sizes, type)
     public Mat(int[] sizes, int type) {
         nativeObj = n_Mat(sizes.length, sizes, type);
+        onCreated();
     }
 
     //
@@ -75,6 +82,7 @@ public class Mat {
     // javadoc: Mat::Mat(rows, cols, type, s)
     public Mat(int rows, int cols, int type, Scalar s) {
         nativeObj = n_Mat(rows, cols, type, s.val[0], s.val[1], s.val[2], s.val[3]);
+        onCreated();
     }
 
     //
@@ -84,6 +92,7 @@ public class Mat {
     // javadoc: Mat::Mat(size, type, s)
     public Mat(Size size, int type, Scalar s) {
         nativeObj = n_Mat(size.width, size.height, type, s.val[0], s.val[1], s.val[2], s.val[3]);
+        onCreated();
     }
 
     //
@@ -93,6 +102,7 @@ public class Mat {
     // javadoc: Mat::Mat(sizes, type, s)
     public Mat(int[] sizes, int type, Scalar s) {
         nativeObj = n_Mat(sizes.length, sizes, type, s.val[0], s.val[1], s.val[2], s.val[3]);
+        onCreated();
     }
 
     //
@@ -102,11 +112,13 @@ public class Mat {
     // javadoc: Mat::Mat(m, rowRange, colRange)
     public Mat(Mat m, Range rowRange, Range colRange) {
         nativeObj = n_Mat(m.nativeObj, rowRange.start, rowRange.end, colRange.start, colRange.end);
+        onCreated();
     }
 
     // javadoc: Mat::Mat(m, rowRange)
     public Mat(Mat m, Range rowRange) {
         nativeObj = n_Mat(m.nativeObj, rowRange.start, rowRange.end);
+        onCreated();
     }
 
     //
@@ -116,6 +128,7 @@ public class Mat {
     // javadoc: Mat::Mat(m, ranges)
     public Mat(Mat m, Range[] ranges) {
         nativeObj = n_Mat(m.nativeObj, ranges);
+        onCreated();
     }
 
     //
@@ -125,6 +138,7 @@ public class Mat {
     // javadoc: Mat::Mat(m, roi)
     public Mat(Mat m, Rect roi) {
         nativeObj = n_Mat(m.nativeObj, roi.y, roi.y + roi.height, roi.x, roi.x + roi.width);
+        onCreated();
     }
 
     //
@@ -754,10 +768,18 @@ public class Mat {
         return new Mat(n_zeros(sizes.length, sizes, type));
     }
 
-    @Override
-    protected void finalize() throws Throwable {
-        n_delete(nativeObj);
-        super.finalize();
+    /* frees the native header once the Mat is unreachable, instead of finalize() */
+    private static final NativeCleaner.Deleter DELETER = new NativeCleaner.Deleter() {
+        @Override
+        public void delete(long nativeObj) {
+            n_delete(nativeObj);
+        }
+    };
+
+    private void onCreated() {
+        NativeCleaner.register(this, nativeObj, DELETER);
+        MatScope.onCreated(this);
+        NativeMemoryTracker.track(this);
     }
 
     // javadoc:Mat::toString()
@@ -1148,6 +1170,7 @@ public class Mat {
     }
 
     // javadoc:Mat::at(clazz, row, col)
+    // Every getV()/setV() is a JNI call; loops over many pixels should use ByteCursor or FloatCursor.
     @SuppressWarnings("unchecked")
     public <T> Atable<T> at(Class<T> clazz, int row, int col) {
         if (clazz == Byte.class || clazz == byte.class) {
@@ -1834,7 +1857,7 @@ public class Mat {
     // C++: static Mat Mat::zeros(int ndims, const int* sizes, int type)
     private static native long n_zeros(int ndims, int[] sizes, int type);
 
-    // native support for java finalize()
+    // native support for NativeCleaner
     private static native void n_delete(long nativeObj);
 
     private static native int nPutD(long self, int row, int col, int count, double[] data);
@@ -0,0 +1,191 @@
+package org.opencv.core;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reuses native Mats of the same shape instead of allocating and freeing pixel buffers over and
+ * over. lease() hands out an idle Mat with the given rows, cols and type, or a new one; recycle()
+ * takes it back for the next lease. Idle Mats are bounded by count and bytes, the least recently
+ * returned ones are released first when either bound is exceeded.
+ *
+ * A leased Mat belongs to the caller until it is recycled: do not recycle it while other headers
+ * (submats, reshapes) still refer to its data, and do not use it afterwards. Mats created by
+ * lease() are never taken by an open MatScope. Thread safe.
+ */
+public final class MatPool {
+
+    private static final int DEFAULT_MAX_MATS = 32;
+    private static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+    private static MatPool sDefault;
+
+    private final int mMaxMats;
+    private final long mMaxBytes;
+    /* idle Mats per shape, most recently returned last */
+    private final HashMap<Long, ArrayDeque<Mat>> mIdle = new HashMap<Long, ArrayDeque<Mat>>();
+    /* all idle Mats in the order they came back, with their keys, for trimming */
+    private final LinkedHashMap<Mat, Long> mLru = new LinkedHashMap<Mat, Long>();
+    private long mIdleBytes;
+
+    private long mLeases;
+    private long mHits;
+    private long mRecycled;
+    private long mTrimmed;
+
+    /**
+     * @param maxMats - most idle Mats kept
+     * @param maxBytes - most pixel bytes kept in idle Mats
+     */
+    public MatPool(int maxMats, long maxBytes) {
+        if (maxMats < 0 || maxBytes < 0)
+            throw new IllegalArgumentException("Pool bounds must not be negative");
+        mMaxMats = maxMats;
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * The pool shared by the camera views and anybody else not needing one of their own:
+     * 32 Mats, 64 MB at most. Meant for shapes that keep coming back, like camera frames; a
+     * one-off size only holds on to memory until it is trimmed. Call clear() on memory pressure.
+     */
+    public static synchronized MatPool getDefault() {
+        if (sDefault == null)
+            sDefault = new MatPool(DEFAULT_MAX_MATS, DEFAULT_MAX_BYTES);
+        return sDefault;
+    }
+
+    /* 24 bits of rows, 24 of cols, 16 of type */
+    static long key(int rows, int cols, int type) {
+        return ((long) rows << 40) | ((long) (cols & 0xffffff) << 16) | (type & 0xffff);
+    }
+
+    static long bytes(long key) {
+        return (key >>> 40) * ((key >>> 16) & 0xffffff) * CvType.ELEM_SIZE((int) (key & 0xffff));
+    }
+
+    /**
+     * A continuous rows x cols Mat of the given type. The contents are undefined.
+     */
+    public Mat lease(int rows, int cols, int type) {
+        if (rows <= 0 || cols <= 0 || rows >= (1 << 24) || cols >= (1 << 24))
+            throw new IllegalArgumentException("Unsupported Mat size " + rows + "x" + cols);
+        long key = key(rows, cols, type);
+        Mat m = null;
+        synchronized (this) {
+            mLeases++;
+            ArrayDeque<Mat> idle = mIdle.get(key);
+            if (idle != null && !idle.isEmpty()) {
+                m = idle.pollLast();  /* the warmest one */
+                mLru.remove(m);
+                mIdleBytes -= bytes(key);
+                mHits++;
+            }
+        }
+        if (m == null) {
+            m = new Mat(rows, cols, type);
+            MatScope.forget(m);
+        } else {
+            m.create(rows, cols, type);  /* no-op, unless somebody released it meanwhile */
+        }
+        return m;
+    }
+
+    public Mat lease(Size size, int type) {
+        return lease((int) size.height, (int) size.width, type);
+    }
+
+    /**
+     * Gives a leased Mat back. Empty Mats and views into other Mats are just released; null is ignored.
+     */
+    public void recycle(Mat m) {
+        if (m == null)
+            return;
+        if (m.empty() || m.isSubmatrix() || !m.isContinuous() || m.dims() > 2) {
+            m.release();
+            return;
+        }
+        long key = key(m.rows(), m.cols(), m.type());
+        synchronized (this) {
+            if (mLru.containsKey(m))
+                return;  /* recycled twice */
+            mRecycled++;
+            ArrayDeque<Mat> idle = mIdle.get(key);
+            if (idle == null) {
+                idle = new ArrayDeque<Mat>();
+                mIdle.put(key, idle);
+            }
+            idle.addLast(m);
+            mLru.put(m, key);
+            mIdleBytes += bytes(key);
+            trim(mMaxMats, mMaxBytes);
+        }
+    }
+
+    /**
+     * Releases idle Mats, oldest first, until at most maxMats and maxBytes are left.
+     */
+    public synchronized void trim(int maxMats, long maxBytes) {
+        Iterator<Map.Entry<Mat, Long>> it = mLru.entrySet().iterator();
+        while ((mLru.size() > maxMats || mIdleBytes > maxBytes) && it.hasNext()) {
+            Map.Entry<Mat, Long> e = it.next();
+            Mat m = e.getKey();
+            long key = e.getValue();
+            it.remove();
+            ArrayDeque<Mat> idle = mIdle.get(key);
+            idle.remove(m);
+            if (idle.isEmpty())
+                mIdle.remove(key);
+            mIdleBytes -= bytes(key);
+            m.release();
+            mTrimmed++;
+        }
+    }
+
+    /**
+     * Releases all idle Mats.
+     */
+    public void clear() {
+        trim(0, 0);
+    }
+
+    public synchronized long getLeaseCount() {
+        return mLeases;
+    }
+
+    public synchronized long getHitCount() {
+        return mHits;
+    }
+
+    /**
+     * Share of leases served by an idle Mat, 0 before the first lease.
+     */
+    public synchronized double getHitRate() {
+        return mLeases == 0 ? 0 : (double) mHits / mLeases;
+    }
+
+    /**
+     * Pixel bytes held by idle Mats.
+     */
+    public synchronized long getRetainedBytes() {
+        return mIdleBytes;
+    }
+
+    public synchronized int getRetainedCount() {
+        return mLru.size();
+    }
+
+    public synchronized long getTrimmedCount() {
+        return mTrimmed;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "leases %d, hit rate %.1f%%, recycled %d, trimmed %d, retained %d Mats (%d KB)",
+                mLeases, getHitRate() * 100, mRecycled, mTrimmed, mLru.size(), mIdleBytes / 1024);
+    }
+}
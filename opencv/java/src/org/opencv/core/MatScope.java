@@ -0,0 +1,161 @@
+package org.opencv.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Releases the pixel data of every Mat created inside it, on the same thread, when it is closed:
+ * <pre>
+ * try (MatScope scope = MatScope.open()) {
+ *     Mat gray = new Mat();
+ *     Imgproc.cvtColor(rgba, gray, Imgproc.COLOR_RGBA2GRAY);
+ *     Mat edges = new Mat();
+ *     Imgproc.Canny(gray, edges, 50, 150);
+ *     return scope.keep(edges);  // gray is released, edges outlives the scope
+ * }
+ * </pre>
+ * This includes Mats returned by OpenCV calls (submat(), clone(), Mat.zeros(), ...). Buffers are
+ * freed right away rather than whenever the GC gets to them, so a frame loop does not pile up
+ * native memory. Only the data goes: the small native headers are deleted by NativeCleaner once
+ * the Mats are unreachable, so a Mat used after its scope was closed is empty, not a dangling pointer.
+ *
+ * Scopes nest; a Mat belongs to the innermost scope open on its thread. A scope must be closed on
+ * the thread that opened it, innermost first. Mats that code called inside the scope creates to
+ * cache across calls get released too, which leaves the cache holding an empty header, or a view
+ * that no longer points into the Mat it was cut from. Code that caches Mats, and may be called
+ * while a caller's scope is open, takes them out with forget(), as MatPool, I420Staging and the
+ * camera frames do.
+ */
+public final class MatScope implements AutoCloseable {
+    private static final ThreadLocal<MatScope> sCurrent = new ThreadLocal<MatScope>();
+    /* lets Mat construction skip the thread local while no scope is open anywhere */
+    private static final AtomicInteger sOpen = new AtomicInteger();
+
+    private final MatScope mParent;
+    private final Thread mThread;
+    private Mat[] mMats = new Mat[16];
+    private int mCount;
+    private boolean mClosed;
+
+    private MatScope(MatScope parent) {
+        mParent = parent;
+        mThread = Thread.currentThread();
+    }
+
+    /**
+     * Opens a scope on the calling thread, nested in the scope open so far if any.
+     */
+    public static MatScope open() {
+        MatScope scope = new MatScope(sCurrent.get());
+        sCurrent.set(scope);
+        sOpen.incrementAndGet();
+        return scope;
+    }
+
+    /**
+     * The innermost scope open on the calling thread, null if none.
+     */
+    public static MatScope current() {
+        return sOpen.get() == 0 ? null : sCurrent.get();
+    }
+
+    /* called by every Mat constructor */
+    static void onCreated(Mat m) {
+        if (sOpen.get() == 0)
+            return;
+        MatScope scope = sCurrent.get();
+        if (scope != null)
+            scope.add(m);
+    }
+
+    /**
+     * Takes a Mat back out of the scope open on the calling thread, if any, for Mats that are
+     * cached or pooled beyond the call that created them.
+     * @return m
+     */
+    public static <T extends Mat> T forget(T m) {
+        if (sOpen.get() == 0)
+            return m;
+        MatScope scope = sCurrent.get();
+        if (scope != null)
+            scope.remove(m);
+        return m;
+    }
+
+    private void remove(Mat m) {
+        for (int i = mCount - 1; i >= 0; i--) {  /* usually one of the last created */
+            if (mMats[i] == m) {
+                System.arraycopy(mMats, i + 1, mMats, i, mCount - i - 1);
+                mMats[--mCount] = null;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Makes the scope release a Mat created outside of it, e.g. on another thread. Like all scope
+     * methods it must be called on the thread owning the scope.
+     * @return m
+     */
+    public <T extends Mat> T add(T m) {
+        checkOpen();
+        if (mCount == mMats.length) {
+            Mat[] grown = new Mat[mCount * 2];
+            System.arraycopy(mMats, 0, grown, 0, mCount);
+            mMats = grown;
+        }
+        mMats[mCount++] = m;
+        return m;
+    }
+
+    /**
+     * Lets a Mat outlive the scope. It moves to the enclosing scope if there is one, otherwise it is
+     * left to the caller and NativeCleaner.
+     * @return m
+     */
+    public <T extends Mat> T keep(T m) {
+        checkOpen();
+        remove(m);
+        if (mParent != null && !mParent.mClosed)
+            mParent.add(m);
+        return m;
+    }
+
+    /**
+     * Number of Mats the scope will release.
+     */
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * Releases the Mats, newest first, and makes the enclosing scope current again.
+     */
+    @Override
+    public void close() {
+        if (mClosed)
+            return;
+        if (Thread.currentThread() != mThread)
+            throw new IllegalStateException("MatScope must be closed on the thread that opened it");
+        if (sCurrent.get() != this)
+            throw new IllegalStateException("An inner MatScope is still open");
+        mClosed = true;
+        try {
+            for (int i = mCount - 1; i >= 0; i--) {
+                mMats[i].release();
+                mMats[i] = null;
+            }
+        } finally {
+            mCount = 0;
+            if (mParent != null)
+                sCurrent.set(mParent);
+            else
+                sCurrent.remove();
+            sOpen.decrementAndGet();
+        }
+    }
+
+    private void checkOpen() {
+        if (mClosed)
+            throw new IllegalStateException("MatScope is closed");
+    }
+}
@@ -0,0 +1,149 @@
+package org.opencv.core;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Frees native objects once their Java wrapper is unreachable, in the manner of java.lang.ref.Cleaner
+ * (which needs API 33 on Android): each wrapper gets a phantom reference, and a daemon thread deletes
+ * the native object as soon as the reference is enqueued. Unlike finalize() this costs the GC no
+ * extra cycle - the wrapper is collected right away and never resurrected - and nothing waits on
+ * the finalizer thread, which falls behind easily when a frame loop creates hundreds of Mats a second.
+ *
+ * Mat registers every instance here. Their number and the bytes they refer to can be queried for
+ * leak diagnostics; for deterministic freeing of pixel buffers see MatScope.
+ */
+public final class NativeCleaner {
+    private static final String TAG = "NativeCleaner";
+
+    /**
+     * Frees a native object, called on the cleaner thread.
+     */
+    public interface Deleter {
+        void delete(long nativeObj);
+    }
+
+    private static final ReferenceQueue<Object> sQueue = new ReferenceQueue<Object>();
+    /* keeps the registrations reachable until they are enqueued */
+    private static final Set<Registration> sLive =
+            Collections.newSetFromMap(new ConcurrentHashMap<Registration, Boolean>());
+    private static final AtomicLong sLiveMats = new AtomicLong();
+    private static final AtomicLong sRegistered = new AtomicLong();
+    private static final AtomicLong sCleaned = new AtomicLong();
+
+    static {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    try {
+                        ((Registration) sQueue.remove()).clean();
+                    } catch (InterruptedException e) {
+                        // daemon thread, keep going
+                    } catch (Throwable t) {
+                        System.err.println(TAG + ": delete failed: " + t);
+                    }
+                }
+            }
+        }, "OpenCVCleaner");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private NativeCleaner() {}
+
+    /**
+     * A registered native object. clean() deletes it at most once, either explicitly or when the
+     * owner became unreachable.
+     */
+    public static final class Registration extends PhantomReference<Object> {
+        private final long mNativeObj;
+        private Deleter mDeleter;
+        /* the Mat, readable until it is collected, for the byte count */
+        private final WeakReference<Mat> mMat;
+
+        private Registration(Object owner, long nativeObj, Deleter deleter) {
+            super(owner, sQueue);
+            mNativeObj = nativeObj;
+            mDeleter = deleter;
+            mMat = owner instanceof Mat ? new WeakReference<Mat>((Mat) owner) : null;
+        }
+
+        /**
+         * Deletes the native object now. The owner must not be used any more.
+         */
+        public void clean() {
+            Deleter deleter;
+            synchronized (this) {
+                deleter = mDeleter;
+                mDeleter = null;
+            }
+            if (deleter == null)
+                return;
+            sLive.remove(this);
+            if (mMat != null)
+                sLiveMats.decrementAndGet();
+            sCleaned.incrementAndGet();
+            deleter.delete(mNativeObj);
+        }
+    }
+
+    /**
+     * Deletes nativeObj with the deleter once owner is unreachable. The deleter must not refer to
+     * the owner, or it never will be.
+     */
+    public static Registration register(Object owner, long nativeObj, Deleter deleter) {
+        Registration r = new Registration(owner, nativeObj, deleter);
+        sLive.add(r);
+        if (r.mMat != null)
+            sLiveMats.incrementAndGet();
+        sRegistered.incrementAndGet();
+        return r;
+    }
+
+    /**
+     * Mat headers not deleted yet: reachable ones, and those the GC has not found unreachable so far.
+     */
+    public static long getLiveMatCount() {
+        return sLiveMats.get();
+    }
+
+    /**
+     * Bytes of pixel data seen by the reachable Mats, total() * elemSize() of each. Submats and other
+     * headers sharing a buffer count the part they see, so this is an upper bound. Walks all live
+     * Mats - meant for diagnostics, not for every frame.
+     */
+    public static long getLiveMatBytes() {
+        long bytes = 0;
+        for (Registration r : sLive) {
+            Mat m = r.mMat != null ? r.mMat.get() : null;
+            if (m != null)
+                bytes += m.total() * m.elemSize();
+        }
+        return bytes;
+    }
+
+    /**
+     * Native objects registered since start.
+     */
+    public static long getRegisteredCount() {
+        return sRegistered.get();
+    }
+
+    /**
+     * Native objects deleted since start.
+     */
+    public static long getCleanedCount() {
+        return sCleaned.get();
+    }
+
+    public static String getStatistics() {
+        return "live Mats " + getLiveMatCount() + " (" + getLiveMatBytes() / 1024 + " KB), registered "
+                + getRegisteredCount() + ", cleaned " + getCleanedCount();
+    }
+}
@@ -0,0 +1,303 @@
+package org.opencv.core;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in accounting of the native objects held by Java wrappers, per class: Mat (and MatOf*), Net,
+ * Tracker and every Algorithm subclass (Feature2D, ORB, ...). Their constructors call track(), which
+ * returns right away while the tracker is disabled. A wrapper counts as released once the GC found
+ * it unreachable; its native object is deleted then or shortly after.
+ *
+ * Every sampleInterval-th object of a class also records its allocation site. The app calls
+ * onFrame() once per camera frame, and snapshot() lists the sampled objects that are still alive
+ * after minAgeFrames frames: in a long camera session those are the leak candidates.
+ *
+ * Byte counts are only known for Mats (total() * elemSize() of the live ones, so headers sharing a
+ * buffer count twice); the native size of the other classes is not visible from Java, they are
+ * counted only.
+ *
+ * Everything tracked between enable() and disable() belongs to one session object. disable() only
+ * drops the reference to it, so a constructor racing with disable() records into the old session,
+ * which is then garbage, and never into the next one.
+ */
+public final class NativeMemoryTracker {
+
+    private static volatile Session sSession; /* null while disabled */
+
+    private NativeMemoryTracker() {}
+
+    private static final class Counters {
+        final AtomicLong created = new AtomicLong();
+        final AtomicLong released = new AtomicLong();
+    }
+
+    private static final class Entry extends WeakReference<Object> {
+        final Class<?> mClass;
+        final Counters mCounters;
+        final long mFrame;
+        final Throwable mSite; /* null unless sampled; the stack is only resolved by snapshot() */
+
+        Entry(Object owner, Counters counters, long frame, Throwable site, ReferenceQueue<Object> queue) {
+            super(owner, queue);
+            mClass = owner.getClass();
+            mCounters = counters;
+            mFrame = frame;
+            mSite = site;
+        }
+    }
+
+    private static final class Session {
+        volatile int mMinAgeFrames;
+        volatile int mSampleInterval;
+        final AtomicLong mFrame = new AtomicLong();
+        final ReferenceQueue<Object> mQueue = new ReferenceQueue<Object>();
+        final Set<Entry> mLive = Collections.newSetFromMap(new ConcurrentHashMap<Entry, Boolean>());
+        final ConcurrentHashMap<Class<?>, Counters> mCounters = new ConcurrentHashMap<Class<?>, Counters>();
+
+        void track(Object owner) {
+            Class<?> cls = owner.getClass();
+            Counters c = mCounters.get(cls);
+            if (c == null) {
+                Counters added = new Counters();
+                c = mCounters.putIfAbsent(cls, added);
+                if (c == null)
+                    c = added;
+            }
+            long n = c.created.getAndIncrement();
+            Throwable site = n % mSampleInterval == 0 ? new Throwable("allocated here") : null;
+            mLive.add(new Entry(owner, c, mFrame.get(), site, mQueue));
+            drain();
+        }
+
+        void drain() {
+            Entry e;
+            while ((e = (Entry) mQueue.poll()) != null) {
+                if (mLive.remove(e))
+                    e.mCounters.released.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Starts tracking the objects created from now on.
+     * @param minAgeFrames - frames a sampled object has to live to be reported by snapshot()
+     * @param sampleInterval - record the allocation site of every sampleInterval-th object of a class, 1 for all
+     */
+    public static synchronized void enable(int minAgeFrames, int sampleInterval) {
+        if (minAgeFrames < 0 || sampleInterval < 1)
+            throw new IllegalArgumentException("minAgeFrames " + minAgeFrames + ", sampleInterval " + sampleInterval);
+        Session session = sSession;
+        if (session == null)
+            session = new Session();
+        session.mMinAgeFrames = minAgeFrames;
+        session.mSampleInterval = sampleInterval;
+        sSession = session;
+    }
+
+    /**
+     * Same as enable(300, 16): ten seconds of frames at 30 fps, one allocation site in 16.
+     */
+    public static void enable() {
+        enable(300, 16);
+    }
+
+    /**
+     * Stops tracking and forgets everything tracked so far.
+     */
+    public static synchronized void disable() {
+        sSession = null;
+    }
+
+    public static boolean isEnabled() {
+        return sSession != null;
+    }
+
+    /**
+     * Advances the frame clock objects are aged by. Call once per processed camera frame.
+     */
+    public static void onFrame() {
+        Session session = sSession;
+        if (session == null)
+            return;
+        session.mFrame.incrementAndGet();
+        session.drain();
+    }
+
+    public static long getFrame() {
+        Session session = sSession;
+        return session == null ? 0 : session.mFrame.get();
+    }
+
+    /**
+     * Called by the wrapper constructors; does nothing while disabled.
+     */
+    public static void track(Object owner) {
+        Session session = sSession;
+        if (session != null)
+            session.track(owner);
+    }
+
+    /**
+     * Counts and bytes per class, and the sampled objects older than minAgeFrames. Walks every live
+     * object - meant for diagnostics, not for every frame. Empty while disabled.
+     */
+    public static Snapshot snapshot() {
+        Session session = sSession;
+        if (session == null)
+            return new Snapshot(0, Collections.<ClassUsage>emptyList(), Collections.<Survivor>emptyList());
+        session.drain();
+        long frame = session.mFrame.get();
+        long minAge = session.mMinAgeFrames;
+        Map<Class<?>, long[]> live = new HashMap<Class<?>, long[]>(); /* count, bytes */
+        List<Survivor> survivors = new ArrayList<Survivor>();
+        for (Entry e : session.mLive) {
+            Object owner = e.get();
+            if (owner == null)
+                continue; /* unreachable, just not enqueued yet */
+            long bytes = owner instanceof Mat ? bytesOf((Mat) owner) : -1;
+            long[] acc = live.get(e.mClass);
+            if (acc == null)
+                live.put(e.mClass, acc = new long[2]);
+            acc[0]++;
+            if (bytes > 0)
+                acc[1] += bytes;
+            /* a released Mat header holds next to nothing, not worth a report */
+            if (e.mSite != null && frame - e.mFrame >= minAge && bytes != 0)
+                survivors.add(new Survivor(e.mClass.getName(), frame - e.mFrame, bytes, e.mSite.getStackTrace()));
+        }
+
+        List<ClassUsage> classes = new ArrayList<ClassUsage>();
+        for (Map.Entry<Class<?>, Counters> c : session.mCounters.entrySet()) {
+            long[] acc = live.get(c.getKey());
+            classes.add(new ClassUsage(c.getKey().getName(), acc != null ? acc[0] : 0, acc != null ? acc[1] : 0,
+                    c.getValue().created.get(), c.getValue().released.get(), Mat.class.isAssignableFrom(c.getKey())));
+        }
+        Collections.sort(classes, new Comparator<ClassUsage>() {
+            @Override
+            public int compare(ClassUsage a, ClassUsage b) {
+                if (a.liveBytes != b.liveBytes)
+                    return a.liveBytes > b.liveBytes ? -1 : 1;
+                return a.live > b.live ? -1 : a.live < b.live ? 1 : a.className.compareTo(b.className);
+            }
+        });
+        Collections.sort(survivors, new Comparator<Survivor>() {
+            @Override
+            public int compare(Survivor a, Survivor b) {
+                return a.ageFrames > b.ageFrames ? -1 : a.ageFrames < b.ageFrames ? 1 : 0;
+            }
+        });
+        return new Snapshot(frame, Collections.unmodifiableList(classes), Collections.unmodifiableList(survivors));
+    }
+
+    private static long bytesOf(Mat m) {
+        try {
+            return m.total() * m.elemSize();
+        } catch (RuntimeException e) {
+            return -1; /* deleted by the cleaner while we looked */
+        }
+    }
+
+    /**
+     * Counters of one wrapper class.
+     */
+    public static final class ClassUsage {
+        public final String className;
+        public final long live;      /* reachable objects */
+        public final long liveBytes; /* -1 where the native size is unknown */
+        public final long created;   /* since enable() */
+        public final long released;
+
+        ClassUsage(String className, long live, long liveBytes, long created, long released, boolean sized) {
+            this.className = className;
+            this.live = live;
+            this.liveBytes = sized ? liveBytes : -1;
+            this.created = created;
+            this.released = released;
+        }
+
+        @Override
+        public String toString() {
+            return className + ": " + live + " live" + (liveBytes >= 0 ? " (" + liveBytes / 1024 + " KB)" : "")
+                    + ", created " + created + ", released " + released;
+        }
+    }
+
+    /**
+     * A sampled object that outlived minAgeFrames.
+     */
+    public static final class Survivor {
+        public final String className;
+        public final long ageFrames;
+        public final long bytes;     /* -1 where the native size is unknown */
+        public final StackTraceElement[] stack;
+
+        Survivor(String className, long ageFrames, long bytes, StackTraceElement[] stack) {
+            this.className = className;
+            this.ageFrames = ageFrames;
+            this.bytes = bytes;
+            this.stack = stack;
+        }
+
+        /**
+         * The first frame outside of the OpenCV bindings: where the app created the object.
+         */
+        public StackTraceElement site() {
+            for (StackTraceElement f : stack) {
+                if (!f.getClassName().startsWith("org.opencv."))
+                    return f;
+            }
+            return stack.length > 0 ? stack[stack.length - 1] : null;
+        }
+
+        @Override
+        public String toString() {
+            return className + " alive for " + ageFrames + " frames" + (bytes >= 0 ? ", " + bytes / 1024 + " KB" : "")
+                    + ", allocated at " + site();
+        }
+    }
+
+    public static final class Snapshot {
+        public final long frame;
+        public final List<ClassUsage> classes;   /* most bytes first, then most objects */
+        public final List<Survivor> survivors;   /* oldest first */
+
+        Snapshot(long frame, List<ClassUsage> classes, List<Survivor> survivors) {
+            this.frame = frame;
+            this.classes = classes;
+            this.survivors = survivors;
+        }
+
+        /**
+         * Live bytes of all Mats.
+         */
+        public long getMatBytes() {
+            long bytes = 0;
+            for (ClassUsage c : classes)
+                bytes += Math.max(0, c.liveBytes);
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("frame " + frame + ", Mats " + getMatBytes() / 1024 + " KB");
+            for (ClassUsage c : classes)
+                sb.append("\n  ").append(c);
+            int shown = Math.min(survivors.size(), 10);
+            if (shown > 0)
+                sb.append("\n  ").append(survivors.size()).append(" sampled object(s) outlived their frames:");
+            for (int i = 0; i < shown; i++)
+                sb.append("\n    ").append(survivors.get(i));
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package org.opencv.core;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs per-pixel work in parallel over horizontal bands of an image: the rows are split into about
+ * one band per core, each band is extended by a halo of rows above and below for neighbourhood
+ * operations, a function runs on every band on a ForkJoinPool, and the per-band results are reduced
+ * in top to bottom order into one. Images with too few rows for two bands run on the calling thread.
+ *
+ * forMat() hands each band out as a submat of the source (a header over the same pixels, nothing is
+ * copied); forRows() only hands out the row numbers, for pixels kept in Java arrays. A band function
+ * must only write the rows it is responsible for, y0 until y1; the halo rows belong to its
+ * neighbours.
+ */
+public final class TiledExecutor {
+
+    private static final int DEFAULT_MIN_BAND_ROWS = 32;
+
+    private static TiledExecutor sDefault;
+
+    /**
+     * The work done on one band.
+     */
+    public interface BandFunction<T> {
+        T apply(Band band);
+    }
+
+    /**
+     * Combines the results of two neighbouring bands, the upper one first.
+     */
+    public interface Reducer<T> {
+        T reduce(T upper, T lower);
+    }
+
+    /**
+     * Rows of the image a band function works on. All row numbers are rows of the whole image.
+     */
+    public static final class Band {
+        public final int index;
+        public final int y0, y1;        /* rows this band is responsible for */
+        public final int top, bottom;   /* rows visible to it: y0 and y1 extended by the halo, clamped to the image */
+        public final Mat mat;           /* rows top until bottom of the source, null for forRows() */
+
+        Band(int index, int y0, int y1, int top, int bottom, Mat mat) {
+            this.index = index;
+            this.y0 = y0;
+            this.y1 = y1;
+            this.top = top;
+            this.bottom = bottom;
+            this.mat = mat;
+        }
+
+        /**
+         * Row of mat where the band's own rows start: y0 - top.
+         */
+        public int offset() {
+            return y0 - top;
+        }
+
+        public int rows() {
+            return y1 - y0;
+        }
+    }
+
+    private final ForkJoinPool mPool;
+    private final int mMinBandRows;
+
+    /**
+     * @param pool - runs the bands
+     * @param minBandRows - no band gets fewer rows than this (the last one excepted)
+     */
+    public TiledExecutor(ForkJoinPool pool, int minBandRows) {
+        if (minBandRows < 1)
+            throw new IllegalArgumentException("minBandRows " + minBandRows);
+        mPool = pool;
+        mMinBandRows = minBandRows;
+    }
+
+    /**
+     * An executor with bands of at least 32 rows, on a pool of one thread per core that is created
+     * on first use. ForkJoinPool.commonPool() would do, but needs API 24.
+     */
+    public static synchronized TiledExecutor getDefault() {
+        if (sDefault == null)
+            sDefault = new TiledExecutor(new ForkJoinPool(Runtime.getRuntime().availableProcessors()),
+                    DEFAULT_MIN_BAND_ROWS);
+        return sDefault;
+    }
+
+    /**
+     * The pool the bands run on, for other fork/join work that should share its threads.
+     */
+    public ForkJoinPool getPool() {
+        return mPool;
+    }
+
+    /**
+     * Number of bands rows are split into: one per thread of the pool, fewer if that would make
+     * them shorter than minBandRows.
+     */
+    public int bandCount(int rows) {
+        return Math.max(1, Math.min(mPool.getParallelism(), rows / mMinBandRows));
+    }
+
+    /**
+     * Runs fn over bands of src. Each band's mat is a submat of src, released when fn returns.
+     * @param halo - rows of context above and below each band
+     * @return the reduced result, null for an empty src
+     */
+    public <T> T forMat(final Mat src, int halo, final BandFunction<T> fn, Reducer<T> reducer) {
+        if (src.dims() > 2)
+            throw new UnsupportedOperationException("Bands of a " + src.dims() + " dimensional Mat");
+        if (halo < 0)
+            throw new IllegalArgumentException("halo " + halo);
+        int rows = src.rows();
+        if (rows <= 0)
+            return null;
+        if (bandCount(rows) == 1)
+            return fn.apply(new Band(0, 0, rows, 0, rows, src));
+        return run(rows, halo, reducer, new BandFunction<T>() {
+            @Override
+            public T apply(Band band) {
+                Mat view = src.rowRange(band.top, band.bottom);
+                try {
+                    return fn.apply(new Band(band.index, band.y0, band.y1, band.top, band.bottom, view));
+                } finally {
+                    view.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs fn over bands of rows rows, for images that are not Mats.
+     * @param halo - rows of context above and below each band
+     * @return the reduced result, null for no rows
+     */
+    public <T> T forRows(int rows, int halo, BandFunction<T> fn, Reducer<T> reducer) {
+        if (halo < 0)
+            throw new IllegalArgumentException("halo " + halo);
+        if (rows <= 0)
+            return null;
+        if (bandCount(rows) == 1)
+            return fn.apply(new Band(0, 0, rows, 0, rows, null));
+        return run(rows, halo, reducer, fn);
+    }
+
+    private <T> T run(int rows, int halo, Reducer<T> reducer, BandFunction<T> fn) {
+        int bands = bandCount(rows);
+        Band[] split = new Band[bands];
+        for (int i = 0; i < bands; i++) {
+            /* spread the remainder so bands differ by one row at most */
+            int y0 = (int) ((long) rows * i / bands);
+            int y1 = (int) ((long) rows * (i + 1) / bands);
+            split[i] = new Band(i, y0, y1, Math.max(0, y0 - halo), Math.min(rows, y1 + halo), null);
+        }
+        BandTask<T> task = new BandTask<T>(split, 0, bands, fn, reducer);
+        return ForkJoinTask.getPool() == mPool ? task.invoke() : mPool.invoke(task);
+    }
+
+    /* halves the band range until one is left, so results are reduced in band order */
+    private static final class BandTask<T> extends RecursiveTask<T> {
+        private static final long serialVersionUID = 1L;
+
+        private final Band[] mBands;
+        private final int mFrom, mTo;
+        private final BandFunction<T> mFn;
+        private final Reducer<T> mReducer;
+
+        BandTask(Band[] bands, int from, int to, BandFunction<T> fn, Reducer<T> reducer) {
+            mBands = bands;
+            mFrom = from;
+            mTo = to;
+            mFn = fn;
+            mReducer = reducer;
+        }
+
+        @Override
+        protected T compute() {
+            if (mTo - mFrom == 1)
+                return mFn.apply(mBands[mFrom]);
+            int mid = (mFrom + mTo) >>> 1;
+            BandTask<T> lower = new BandTask<T>(mBands, mid, mTo, mFn, mReducer);
+            lower.fork();
+            T upper = new BandTask<T>(mBands, mFrom, mid, mFn, mReducer).compute();
+            return mReducer.reduce(upper, lower.join());
+        }
+    }
+}
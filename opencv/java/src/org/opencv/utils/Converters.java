@@ -174,7 +174,7 @@ public class Converters {
             }
         } else if (type == CvType.CV_32FC2) {
             float[] buff = new float[2 * count];
-            m.get(0, 0, buff);
+            Mat_to_array_Point2f(m, buff);
             for (int i = 0; i < count; i++) {
                 pts.add(new Point(buff[i * 2], buff[i * 2 + 1]));
             }
@@ -190,6 +190,40 @@ public class Converters {
         }
     }
 
+    /**
+     * Reads a CV_32FC2 column of points straight into a caller supplied array, x and y interleaved.
+     * @param xy - at least 2 * m.rows() long
+     * @return the number of points
+     */
+    public static int Mat_to_array_Point2f(Mat m, float[] xy) {
+        if (xy == null)
+            throw new IllegalArgumentException("Output array can't be null");
+        if (m.empty())
+            return 0;
+        int count = m.rows();
+        if (CvType.CV_32FC2 != m.type() || m.cols() != 1)
+            throw new IllegalArgumentException(
+                    "CvType.CV_32FC2 != m.type() ||  m.cols()!=1\n" + m);
+        if (xy.length < 2 * count)
+            throw new IllegalArgumentException("Output array holds " + xy.length / 2 + " points, the Mat " + count);
+        m.get(0, 0, xy);
+        return count;
+    }
+
+    /**
+     * Writes count points, x and y interleaved, into m as a CV_32FC2 column.
+     */
+    public static void array_Point2f_to_Mat(float[] xy, int count, Mat m) {
+        if (count <= 0) {
+            m.release();
+            return;
+        }
+        if (xy.length < 2 * count)
+            throw new IllegalArgumentException("Input array holds " + xy.length / 2 + " points, not " + count);
+        m.create(count, 1, CvType.CV_32FC2);
+        m.put(0, 0, xy);
+    }
+
     public static void Mat_to_vector_Point3i(Mat m, List<Point3> pts) {
         Mat_to_vector_Point3(m, pts);
     }
@@ -475,24 +509,15 @@ public class Converters {
     }
 
     public static Mat vector_KeyPoint_to_Mat(List<KeyPoint> kps) {
-        Mat res;
+        Mat res = new Mat();
         int count = (kps != null) ? kps.size() : 0;
         if (count > 0) {
-            res = new Mat(count, 1, CvType.CV_64FC(7));
-            double[] buff = new double[count * 7];
+            KeyPointArrays arrays = new KeyPointArrays(count);
             for (int i = 0; i < count; i++) {
                 KeyPoint kp = kps.get(i);
-                buff[7 * i] = kp.pt.x;
-                buff[7 * i + 1] = kp.pt.y;
-                buff[7 * i + 2] = kp.size;
-                buff[7 * i + 3] = kp.angle;
-                buff[7 * i + 4] = kp.response;
-                buff[7 * i + 5] = kp.octave;
-                buff[7 * i + 6] = kp.class_id;
+                arrays.add((float) kp.pt.x, (float) kp.pt.y, kp.size, kp.angle, kp.response, kp.octave, kp.class_id);
             }
-            res.put(0, 0, buff);
-        } else {
-            res = new Mat();
+            KeyPointArrays_to_Mat(arrays, res);
         }
         return res;
     }
@@ -500,18 +525,149 @@ public class Converters {
     public static void Mat_to_vector_KeyPoint(Mat m, List<KeyPoint> kps) {
         if (kps == null)
             throw new IllegalArgumentException("Output List can't be null");
-        int count = m.rows();
         if (CvType.CV_64FC(7) != m.type() || m.cols() != 1)
             throw new IllegalArgumentException(
                     "CvType.CV_64FC(7) != m.type() ||  m.cols()!=1\n" + m);
 
         kps.clear();
+        int count = m.rows();
+        if (count <= 0)
+            return;
         double[] buff = new double[7 * count];
         m.get(0, 0, buff);
+        doubles_to_vector_KeyPoint(buff, count, kps);
+    }
+
+    /**
+     * The Java half of Mat_to_vector_KeyPoint(): appends one KeyPoint per row.
+     * @param rows - count rows of x, y, size, angle, response, octave, class_id
+     */
+    static void doubles_to_vector_KeyPoint(double[] rows, int count, List<KeyPoint> kps) {
         for (int i = 0; i < count; i++) {
-            kps.add(new KeyPoint((float) buff[7 * i], (float) buff[7 * i + 1], (float) buff[7 * i + 2], (float) buff[7 * i + 3],
-                    (float) buff[7 * i + 4], (int) buff[7 * i + 5], (int) buff[7 * i + 6]));
+            kps.add(new KeyPoint((float) rows[7 * i], (float) rows[7 * i + 1], (float) rows[7 * i + 2],
+                    (float) rows[7 * i + 3], (float) rows[7 * i + 4], (int) rows[7 * i + 5], (int) rows[7 * i + 6]));
+        }
+    }
+
+    /**
+     * Reads key points into parallel arrays, reusing them: no object per key point and, once the
+     * arrays are large enough, no allocation at all.
+     * @param m - a column of CV_64FC(7) (vector_KeyPoint) or CV_32FC(7) (MatOfKeyPoint) rows of
+     * x, y, size, angle, response, octave, class_id; may be empty
+     * @param kps - the output, count is set to m.rows()
+     */
+    public static void Mat_to_KeyPointArrays(Mat m, KeyPointArrays kps) {
+        if (kps == null)
+            throw new IllegalArgumentException("Output KeyPointArrays can't be null");
+        if (m.empty()) {
+            kps.count = 0;
+            return;
+        }
+        int count = m.rows();
+        int type = m.type();
+        if ((CvType.CV_64FC(7) != type && CvType.CV_32FC(7) != type) || m.cols() != 1)
+            throw new IllegalArgumentException(
+                    "m.type() is neither CV_64FC(7) nor CV_32FC(7) ||  m.cols()!=1\n" + m);
+
+        if (type == CvType.CV_32FC(7)) {
+            float[] buff = kps.floats(7 * count);
+            m.get(0, 0, buff);
+            floats_to_KeyPointArrays(buff, count, kps);
+        } else {
+            double[] buff = kps.doubles(7 * count);
+            m.get(0, 0, buff);
+            doubles_to_KeyPointArrays(buff, count, kps);
+        }
+    }
+
+    /**
+     * The Java half of Mat_to_KeyPointArrays() for MatOfKeyPoint rows.
+     * @param rows - count rows of x, y, size, angle, response, octave, class_id
+     * @param kps - the output, count is set to count
+     */
+    static void floats_to_KeyPointArrays(float[] rows, int count, KeyPointArrays kps) {
+        kps.ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            kps.x[i] = rows[7 * i];
+            kps.y[i] = rows[7 * i + 1];
+            kps.size[i] = rows[7 * i + 2];
+            kps.angle[i] = rows[7 * i + 3];
+            kps.response[i] = rows[7 * i + 4];
+            kps.octave[i] = (int) rows[7 * i + 5];
+            kps.classId[i] = (int) rows[7 * i + 6];
+        }
+        kps.count = count;
+    }
+
+    /**
+     * The Java half of Mat_to_KeyPointArrays() for vector_KeyPoint rows.
+     * @param rows - count rows of x, y, size, angle, response, octave, class_id
+     * @param kps - the output, count is set to count
+     */
+    static void doubles_to_KeyPointArrays(double[] rows, int count, KeyPointArrays kps) {
+        kps.ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            kps.x[i] = (float) rows[7 * i];
+            kps.y[i] = (float) rows[7 * i + 1];
+            kps.size[i] = (float) rows[7 * i + 2];
+            kps.angle[i] = (float) rows[7 * i + 3];
+            kps.response[i] = (float) rows[7 * i + 4];
+            kps.octave[i] = (int) rows[7 * i + 5];
+            kps.classId[i] = (int) rows[7 * i + 6];
+        }
+        kps.count = count;
+    }
+
+    /**
+     * Writes the first kps.count key points into m as a CV_64FC(7) column, the layout of
+     * vector_KeyPoint_to_Mat(); m is released if there are none.
+     */
+    public static void KeyPointArrays_to_Mat(KeyPointArrays kps, Mat m) {
+        int count = kps.count;
+        if (count <= 0) {
+            m.release();
+            return;
+        }
+        double[] buff = kps.doubles(7 * count);
+        for (int i = 0; i < count; i++) {
+            buff[7 * i] = kps.x[i];
+            buff[7 * i + 1] = kps.y[i];
+            buff[7 * i + 2] = kps.size[i];
+            buff[7 * i + 3] = kps.angle[i];
+            buff[7 * i + 4] = kps.response[i];
+            buff[7 * i + 5] = kps.octave[i];
+            buff[7 * i + 6] = kps.classId[i];
+        }
+        m.create(count, 1, CvType.CV_64FC(7));
+        m.put(0, 0, buff);
+    }
+
+    /**
+     * Writes the selected key points into m as MatOfKeyPoint rows (CV_32FC(7)), in the order given;
+     * m is released if n is 0.
+     * @param indices - indices into kps, e.g. from topByResponse()
+     * @param n - number of indices to use
+     */
+    public static void KeyPointArrays_to_Mat(KeyPointArrays kps, int[] indices, int n, MatOfKeyPoint m) {
+        if (n <= 0) {
+            m.release();
+            return;
+        }
+        float[] buff = kps.floats(7 * n);
+        for (int j = 0; j < n; j++) {
+            int i = indices[j];
+            if (i < 0 || i >= kps.count)
+                throw new IndexOutOfBoundsException("index " + i + ", count " + kps.count);
+            buff[7 * j] = kps.x[i];
+            buff[7 * j + 1] = kps.y[i];
+            buff[7 * j + 2] = kps.size[i];
+            buff[7 * j + 3] = kps.angle[i];
+            buff[7 * j + 4] = kps.response[i];
+            buff[7 * j + 5] = kps.octave[i];
+            buff[7 * j + 6] = kps.classId[i];
         }
+        m.alloc(n);
+        m.put(0, 0, buff);
     }
 
     // vector_vector_Point
@@ -670,21 +826,15 @@ public class Converters {
     }
 
     public static Mat vector_DMatch_to_Mat(List<DMatch> matches) {
-        Mat res;
+        Mat res = new Mat();
         int count = (matches != null) ? matches.size() : 0;
         if (count > 0) {
-            res = new Mat(count, 1, CvType.CV_64FC4);
-            double[] buff = new double[count * 4];
+            DMatchArrays arrays = new DMatchArrays(count);
             for (int i = 0; i < count; i++) {
                 DMatch m = matches.get(i);
-                buff[4 * i] = m.queryIdx;
-                buff[4 * i + 1] = m.trainIdx;
-                buff[4 * i + 2] = m.imgIdx;
-                buff[4 * i + 3] = m.distance;
+                arrays.add(m.queryIdx, m.trainIdx, m.imgIdx, m.distance);
             }
-            res.put(0, 0, buff);
-        } else {
-            res = new Mat();
+            DMatchArrays_to_Mat(arrays, res);
         }
         return res;
     }
@@ -692,17 +842,175 @@ public class Converters {
     public static void Mat_to_vector_DMatch(Mat m, List<DMatch> matches) {
         if (matches == null)
             throw new IllegalArgumentException("Output List can't be null");
-        int count = m.rows();
         if (CvType.CV_64FC4 != m.type() || m.cols() != 1)
             throw new IllegalArgumentException(
                     "CvType.CV_64FC4 != m.type() ||  m.cols()!=1\n" + m);
 
         matches.clear();
+        int count = m.rows();
+        if (count <= 0)
+            return;
         double[] buff = new double[4 * count];
         m.get(0, 0, buff);
+        doubles_to_vector_DMatch(buff, count, matches);
+    }
+
+    /**
+     * The Java half of Mat_to_vector_DMatch(): appends one DMatch per row.
+     * @param rows - count rows of queryIdx, trainIdx, imgIdx, distance
+     */
+    static void doubles_to_vector_DMatch(double[] rows, int count, List<DMatch> matches) {
+        for (int i = 0; i < count; i++) {
+            matches.add(new DMatch((int) rows[4 * i], (int) rows[4 * i + 1], (int) rows[4 * i + 2],
+                    (float) rows[4 * i + 3]));
+        }
+    }
+
+    /**
+     * Reads matches into parallel arrays, reusing them: no object per match and, once the arrays
+     * are large enough, no allocation at all.
+     * @param m - a column of CV_64FC4 (vector_DMatch) or CV_32FC4 (MatOfDMatch) rows of
+     * queryIdx, trainIdx, imgIdx, distance; may be empty
+     * @param matches - the output, count is set to m.rows()
+     */
+    public static void Mat_to_DMatchArrays(Mat m, DMatchArrays matches) {
+        if (matches == null)
+            throw new IllegalArgumentException("Output DMatchArrays can't be null");
+        if (m.empty()) {
+            matches.clear();
+            return;
+        }
+        int count = m.rows();
+        int type = m.type();
+        if ((CvType.CV_64FC4 != type && CvType.CV_32FC4 != type) || m.cols() != 1)
+            throw new IllegalArgumentException(
+                    "m.type() is neither CV_64FC4 nor CV_32FC4 ||  m.cols()!=1\n" + m);
+
+        if (type == CvType.CV_32FC4) {
+            float[] buff = matches.floats(4 * count);
+            m.get(0, 0, buff);
+            floats_to_DMatchArrays(buff, count, matches);
+        } else {
+            double[] buff = matches.doubles(4 * count);
+            m.get(0, 0, buff);
+            doubles_to_DMatchArrays(buff, count, matches);
+        }
+    }
+
+    /**
+     * The Java half of Mat_to_DMatchArrays() for MatOfDMatch rows.
+     * @param rows - count rows of queryIdx, trainIdx, imgIdx, distance
+     * @param matches - the output, ungrouped, count is set to count
+     */
+    static void floats_to_DMatchArrays(float[] rows, int count, DMatchArrays matches) {
+        matches.ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            matches.queryIdx[i] = (int) rows[4 * i];
+            matches.trainIdx[i] = (int) rows[4 * i + 1];
+            matches.imgIdx[i] = (int) rows[4 * i + 2];
+            matches.distance[i] = rows[4 * i + 3];
+        }
+        matches.count = count;
+        matches.mGroups = -1;
+    }
+
+    /**
+     * The Java half of Mat_to_DMatchArrays() for vector_DMatch rows.
+     * @param rows - count rows of queryIdx, trainIdx, imgIdx, distance
+     * @param matches - the output, ungrouped, count is set to count
+     */
+    static void doubles_to_DMatchArrays(double[] rows, int count, DMatchArrays matches) {
+        matches.ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            matches.queryIdx[i] = (int) rows[4 * i];
+            matches.trainIdx[i] = (int) rows[4 * i + 1];
+            matches.imgIdx[i] = (int) rows[4 * i + 2];
+            matches.distance[i] = (float) rows[4 * i + 3];
+        }
+        matches.count = count;
+        matches.mGroups = -1;
+    }
+
+    /**
+     * Writes the first matches.count matches into m as a CV_64FC4 column, the layout of
+     * vector_DMatch_to_Mat(); m is released if there are none.
+     */
+    public static void DMatchArrays_to_Mat(DMatchArrays matches, Mat m) {
+        int count = matches.count;
+        if (count <= 0) {
+            m.release();
+            return;
+        }
+        double[] buff = matches.doubles(4 * count);
         for (int i = 0; i < count; i++) {
-            matches.add(new DMatch((int) buff[4 * i], (int) buff[4 * i + 1], (int) buff[4 * i + 2], (float) buff[4 * i + 3]));
+            buff[4 * i] = matches.queryIdx[i];
+            buff[4 * i + 1] = matches.trainIdx[i];
+            buff[4 * i + 2] = matches.imgIdx[i];
+            buff[4 * i + 3] = matches.distance[i];
+        }
+        m.create(count, 1, CvType.CV_64FC4);
+        m.put(0, 0, buff);
+    }
+
+    /**
+     * Reads the per query lists of knnMatch() into matches, one group per list in list order, for
+     * DMatchArrays.ratioTest().
+     */
+    public static void vector_MatOfDMatch_to_DMatchArrays(List<MatOfDMatch> knn, DMatchArrays matches) {
+        if (matches == null)
+            throw new IllegalArgumentException("Output DMatchArrays can't be null");
+        int groups = knn.size();
+        int count = 0;
+        for (int g = 0; g < groups; g++)
+            count += (int) knn.get(g).total();
+        matches.ensureCapacity(count);
+        if (matches.mGroupStart.length < groups + 1)
+            matches.mGroupStart = new int[groups + 1];
+
+        int row = 0;
+        for (int g = 0; g < groups; g++) {
+            matches.mGroupStart[g] = row;
+            MatOfDMatch m = knn.get(g);
+            int n = (int) m.total();
+            if (n == 0)
+                continue;
+            float[] buff = matches.floats(4 * n);
+            m.get(0, 0, buff);
+            for (int i = 0; i < n; i++, row++) {
+                matches.queryIdx[row] = (int) buff[4 * i];
+                matches.trainIdx[row] = (int) buff[4 * i + 1];
+                matches.imgIdx[row] = (int) buff[4 * i + 2];
+                matches.distance[row] = buff[4 * i + 3];
+            }
+        }
+        matches.mGroupStart[groups] = row;
+        matches.mGroups = groups;
+        matches.count = count;
+    }
+
+    /**
+     * Writes the selected matches into m as MatOfDMatch rows (CV_32FC4), in the order given; m is
+     * released if n is 0.
+     * @param indices - indices into matches, e.g. from ratioTest() or closest()
+     * @param n - number of indices to use
+     */
+    public static void DMatchArrays_to_Mat(DMatchArrays matches, int[] indices, int n, MatOfDMatch m) {
+        if (n <= 0) {
+            m.release();
+            return;
+        }
+        float[] buff = matches.floats(4 * n);
+        for (int j = 0; j < n; j++) {
+            int i = indices[j];
+            if (i < 0 || i >= matches.count)
+                throw new IndexOutOfBoundsException("index " + i + ", count " + matches.count);
+            buff[4 * j] = matches.queryIdx[i];
+            buff[4 * j + 1] = matches.trainIdx[i];
+            buff[4 * j + 2] = matches.imgIdx[i];
+            buff[4 * j + 3] = matches.distance[i];
         }
+        m.alloc(n);
+        m.put(0, 0, buff);
     }
 
     // vector_vector_DMatch
@@ -0,0 +1,176 @@
+package org.opencv.utils;
+
+import java.util.Arrays;
+
+import org.opencv.core.DMatch;
+
+/**
+ * Matches as parallel primitive arrays (struct of arrays) instead of one DMatch object each.
+ * Filled by Converters.Mat_to_DMatchArrays() and read by Converters.DMatchArrays_to_Mat(); the
+ * arrays only grow, so reusing one instance allocates nothing once it has seen the largest count.
+ *
+ * Converters.vector_MatOfDMatch_to_DMatchArrays() reads the per query lists knnMatch() returns
+ * into consecutive groups, one per query, for ratioTest(). Selections (the ratio test, the k
+ * closest, filters) produce int arrays of indices, which Converters.DMatchArrays_to_Mat(matches,
+ * indices, n, m) turns back into a MatOfDMatch.
+ *
+ * Only the first count entries of each array are valid.
+ */
+public class DMatchArrays {
+
+    public int[] queryIdx;
+    public int[] trainIdx;
+    public int[] imgIdx;
+    public float[] distance;
+    public int count;
+
+    /* interleaved rows as they come from or go to the Mat, reused between conversions */
+    float[] mFloats;
+    double[] mDoubles;
+    private long[] mScratch;
+
+    /* knn groups: the matches of group g are mGroupStart[g] until mGroupStart[g + 1]; -1 groups
+       when the matches are not grouped, which counts as one group of all of them */
+    int[] mGroupStart = new int[0];
+    int mGroups = -1;
+
+    public DMatchArrays() {
+        this(0);
+    }
+
+    public DMatchArrays(int capacity) {
+        queryIdx = new int[capacity];
+        trainIdx = new int[capacity];
+        imgIdx = new int[capacity];
+        distance = new float[capacity];
+    }
+
+    /**
+     * Grows the arrays to hold at least capacity matches. The contents are not kept.
+     */
+    public void ensureCapacity(int capacity) {
+        if (queryIdx.length >= capacity)
+            return;
+        queryIdx = new int[capacity];
+        trainIdx = new int[capacity];
+        imgIdx = new int[capacity];
+        distance = new float[capacity];
+    }
+
+    public int capacity() {
+        return queryIdx.length;
+    }
+
+    float[] floats(int length) {
+        if (mFloats == null || mFloats.length < length)
+            mFloats = new float[length];
+        return mFloats;
+    }
+
+    double[] doubles(int length) {
+        if (mDoubles == null || mDoubles.length < length)
+            mDoubles = new double[length];
+        return mDoubles;
+    }
+
+    /**
+     * Appends a match, growing the arrays (keeping their contents) if needed.
+     */
+    public void add(int query, int train, int img, float dist) {
+        if (count == queryIdx.length) {
+            int capacity = Math.max(16, count * 2);
+            queryIdx = Arrays.copyOf(queryIdx, capacity);
+            trainIdx = Arrays.copyOf(trainIdx, capacity);
+            imgIdx = Arrays.copyOf(imgIdx, capacity);
+            distance = Arrays.copyOf(distance, capacity);
+        }
+        queryIdx[count] = query;
+        trainIdx[count] = train;
+        imgIdx[count] = img;
+        distance[count] = dist;
+        count++;
+        mGroups = -1;
+    }
+
+    public void clear() {
+        count = 0;
+        mGroups = -1;
+    }
+
+    /**
+     * The i-th match as an object.
+     */
+    public DMatch get(int i) {
+        if (i < 0 || i >= count)
+            throw new IndexOutOfBoundsException("index " + i + ", count " + count);
+        return new DMatch(queryIdx[i], trainIdx[i], imgIdx[i], distance[i]);
+    }
+
+    /**
+     * Number of query groups: the list size after vector_MatOfDMatch_to_DMatchArrays(), otherwise 1.
+     */
+    public int groupCount() {
+        return mGroups < 0 ? 1 : mGroups;
+    }
+
+    /**
+     * First match of a group; its matches end where the next group starts.
+     */
+    public int groupStart(int group) {
+        checkGroup(group);
+        return mGroups < 0 ? 0 : mGroupStart[group];
+    }
+
+    public int groupSize(int group) {
+        checkGroup(group);
+        return mGroups < 0 ? count : mGroupStart[group + 1] - mGroupStart[group];
+    }
+
+    private void checkGroup(int group) {
+        if (group < 0 || group >= groupCount())
+            throw new IndexOutOfBoundsException("group " + group + ", groups " + groupCount());
+    }
+
+    /**
+     * Lowe's ratio test over the knn groups: keeps the best match of each group whose distance is
+     * below ratio times the second best. Groups with a single match are dropped.
+     * @param out - at least groupCount() long
+     * @return the number of indices written, in query order
+     */
+    public int ratioTest(float ratio, int[] out) {
+        int n = 0;
+        for (int g = 0, groups = groupCount(); g < groups; g++) {
+            if (groupSize(g) < 2)
+                continue;
+            int first = groupStart(g);
+            if (distance[first] < ratio * distance[first + 1])
+                out[n++] = first;
+        }
+        return n;
+    }
+
+    /**
+     * Indices of the k closest matches, closest first, ties in index order.
+     * @param out - at least min(k, count) long
+     * @return the number of indices written, min(k, count)
+     */
+    public int closest(int k, int[] out) {
+        if (mScratch == null || mScratch.length < count)
+            mScratch = new long[count];
+        return FieldSort.select(distance, count, k, false, out, mScratch);
+    }
+
+    /**
+     * Indices of the matches closer than maxDistance, in order.
+     * @param out - at least count long
+     * @return the number of indices written
+     */
+    public int filterByDistance(float maxDistance, int[] out) {
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (distance[i] < maxDistance)
+                out[n++] = i;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,95 @@
+package org.opencv.utils;
+
+import java.util.Arrays;
+
+/**
+ * Orders a float field of KeyPointArrays or DMatchArrays without boxing anything: each entry
+ * becomes a long of its order-preserving key bits and its index, and longs sort natively.
+ */
+final class FieldSort {
+
+    private FieldSort() {}
+
+    /* maps float order onto signed int order, negative values included */
+    static int orderedBits(float f) {
+        int bits = Float.floatToIntBits(f);
+        return bits ^ ((bits >> 31) & 0x7fffffff);
+    }
+
+    /*
+     * Writes the indices of the k largest (or smallest) of the first count keys into out, best
+     * first, ties in index order. Returns min(k, count). scratch must hold count longs.
+     */
+    static int select(float[] keys, int count, int k, boolean largest, int[] out, long[] scratch) {
+        int n = Math.min(k, count);
+        if (n <= 0)
+            return 0;
+        if (out.length < n)
+            throw new IllegalArgumentException("Output array holds " + out.length + " indices, not " + n);
+
+        if (n * 4 >= count) {
+            for (int i = 0; i < count; i++)
+                scratch[i] = pack(keys[i], largest, i);
+            Arrays.sort(scratch, 0, count);
+            for (int i = 0; i < n; i++)
+                out[i] = unpack(scratch[count - 1 - i]);
+            return n;
+        }
+
+        /* few out of many: a min-heap of the n best packed keys seen so far */
+        for (int i = 0; i < count; i++) {
+            long p = pack(keys[i], largest, i);
+            if (i < n) {
+                scratch[i] = p;
+                siftUp(scratch, i);
+            } else if (p > scratch[0]) {
+                scratch[0] = p;
+                siftDown(scratch, 0, n);
+            }
+        }
+        Arrays.sort(scratch, 0, n);
+        for (int i = 0; i < n; i++)
+            out[i] = unpack(scratch[n - 1 - i]);
+        return n;
+    }
+
+    /* larger is better; on equal keys the lower index is larger */
+    private static long pack(float key, boolean largest, int index) {
+        int bits = orderedBits(key);
+        if (!largest)
+            bits = ~bits;
+        return ((long) bits << 32) | (~index & 0xffffffffL);
+    }
+
+    private static int unpack(long packed) {
+        return ~(int) packed;
+    }
+
+    private static void siftUp(long[] heap, int i) {
+        long v = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= v)
+                break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = v;
+    }
+
+    private static void siftDown(long[] heap, int i, int size) {
+        long v = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && heap[child + 1] < heap[child])
+                child++;
+            if (heap[child] >= v)
+                break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = v;
+    }
+}
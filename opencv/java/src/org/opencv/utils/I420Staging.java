@@ -0,0 +1,81 @@
+package org.opencv.utils;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatPool;
+import org.opencv.core.MatScope;
+
+/**
+ * A tightly packed I420 image (Y, then U, then V) to gather planes into before cvtColor. Leased
+ * from MatPool once per size, with Mat headers over the whole image and each plane, so filling it
+ * every frame allocates nothing, and going back to an earlier size (a ROI toggled off and on, a
+ * camera restarted) finds the old buffer in the pool.
+ */
+public class I420Staging {
+
+    private int mWidth = -1;
+    private int mHeight = -1;
+    private final MatPool mPool = MatPool.getDefault();
+    private Mat mI420;
+    private Mat mY;
+    private Mat mU;
+    private Mat mV;
+
+    /**
+     * Makes the buffer hold a w x h image, reallocating only when the size changes.
+     */
+    public void ensure(int w, int h) {
+        if (w == mWidth && h == mHeight)
+            return;
+        release();
+        mWidth = w;
+        mHeight = h;
+        int lumaBytes = w * h;
+        int chromaBytes = (w / 2) * (h / 2);
+
+        /* I420 as cvtColor expects it: (h + h/2) x w, Y then U then V, all tightly packed */
+        mI420 = mPool.lease(h + h / 2, w, CvType.CV_8UC1);
+        mY = mI420.rowRange(0, h);
+        /* the chroma planes don't start on row boundaries of the whole image, cut them from a single row view */
+        Mat bytes = mI420.reshape(1, 1);
+        Mat u = bytes.colRange(lumaBytes, lumaBytes + chromaBytes);
+        Mat v = bytes.colRange(lumaBytes + chromaBytes, lumaBytes + 2 * chromaBytes);
+        mU = u.reshape(1, h / 2);
+        mV = v.reshape(1, h / 2);
+        u.release();
+        v.release();
+        bytes.release();
+        /* kept across frames, so a MatScope open around the first conversion must not release them */
+        MatScope.forget(mY);
+        MatScope.forget(mU);
+        MatScope.forget(mV);
+    }
+
+    /** The whole image, (h + h/2) x w CV_8UC1, for cvtColor with a COLOR_YUV2*_I420 code */
+    public Mat i420() {
+        return mI420;
+    }
+
+    public Mat y() {
+        return mY;
+    }
+
+    public Mat u() {
+        return mU;
+    }
+
+    public Mat v() {
+        return mV;
+    }
+
+    public void release() {
+        if (mI420 != null) {
+            mY.release();
+            mU.release();
+            mV.release();
+            mPool.recycle(mI420);  /* the views are gone, so the buffer can go back */
+        }
+        mI420 = mY = mU = mV = null;
+        mWidth = mHeight = -1;
+    }
+}
@@ -0,0 +1,151 @@
+package org.opencv.utils;
+
+import java.util.Arrays;
+
+import org.opencv.core.KeyPoint;
+
+/**
+ * Key points as parallel primitive arrays (struct of arrays) instead of one KeyPoint object each.
+ * Filled by Converters.Mat_to_KeyPointArrays() and read by Converters.KeyPointArrays_to_Mat();
+ * the arrays only grow, so converting the key points of every frame into the same instance
+ * allocates nothing once it has seen the largest count.
+ *
+ * Selections (top-k by response, filters) produce int arrays of indices, which
+ * Converters.KeyPointArrays_to_Mat(kps, indices, n, m) turns back into a MatOfKeyPoint.
+ *
+ * Only the first count entries of each array are valid.
+ */
+public class KeyPointArrays {
+
+    public float[] x;
+    public float[] y;
+    public float[] size;
+    public float[] angle;
+    public float[] response;
+    public int[] octave;
+    public int[] classId;
+    public int count;
+
+    /* interleaved rows as they come from or go to the Mat, reused between conversions */
+    float[] mFloats;
+    double[] mDoubles;
+    private long[] mScratch;
+
+    public KeyPointArrays() {
+        this(0);
+    }
+
+    public KeyPointArrays(int capacity) {
+        x = new float[capacity];
+        y = new float[capacity];
+        size = new float[capacity];
+        angle = new float[capacity];
+        response = new float[capacity];
+        octave = new int[capacity];
+        classId = new int[capacity];
+    }
+
+    /**
+     * Grows the arrays to hold at least capacity key points. The contents are not kept.
+     */
+    public void ensureCapacity(int capacity) {
+        if (x.length >= capacity)
+            return;
+        x = new float[capacity];
+        y = new float[capacity];
+        size = new float[capacity];
+        angle = new float[capacity];
+        response = new float[capacity];
+        octave = new int[capacity];
+        classId = new int[capacity];
+    }
+
+    public int capacity() {
+        return x.length;
+    }
+
+    float[] floats(int length) {
+        if (mFloats == null || mFloats.length < length)
+            mFloats = new float[length];
+        return mFloats;
+    }
+
+    double[] doubles(int length) {
+        if (mDoubles == null || mDoubles.length < length)
+            mDoubles = new double[length];
+        return mDoubles;
+    }
+
+    /**
+     * Appends a key point, growing the arrays (keeping their contents) if needed.
+     */
+    public void add(float px, float py, float psize, float pangle, float presponse, int poctave, int pclassId) {
+        if (count == x.length) {
+            int capacity = Math.max(16, count * 2);
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            size = Arrays.copyOf(size, capacity);
+            angle = Arrays.copyOf(angle, capacity);
+            response = Arrays.copyOf(response, capacity);
+            octave = Arrays.copyOf(octave, capacity);
+            classId = Arrays.copyOf(classId, capacity);
+        }
+        x[count] = px;
+        y[count] = py;
+        size[count] = psize;
+        angle[count] = pangle;
+        response[count] = presponse;
+        octave[count] = poctave;
+        classId[count] = pclassId;
+        count++;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * The i-th key point as an object.
+     */
+    public KeyPoint get(int i) {
+        if (i < 0 || i >= count)
+            throw new IndexOutOfBoundsException("index " + i + ", count " + count);
+        return new KeyPoint(x[i], y[i], size[i], angle[i], response[i], octave[i], classId[i]);
+    }
+
+    /**
+     * Copies x and y of every key point into xy, interleaved.
+     * @param xy - at least 2 * count long
+     */
+    public void points(float[] xy) {
+        for (int i = 0; i < count; i++) {
+            xy[2 * i] = x[i];
+            xy[2 * i + 1] = y[i];
+        }
+    }
+
+    /**
+     * Indices of the k key points with the strongest response, strongest first, ties in index order.
+     * @param out - at least min(k, count) long
+     * @return the number of indices written, min(k, count)
+     */
+    public int topByResponse(int k, int[] out) {
+        if (mScratch == null || mScratch.length < count)
+            mScratch = new long[count];
+        return FieldSort.select(response, count, k, true, out, mScratch);
+    }
+
+    /**
+     * Indices of the key points with a response of at least minResponse, in order.
+     * @param out - at least count long
+     * @return the number of indices written
+     */
+    public int filterByResponse(float minResponse, int[] out) {
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (response[i] >= minResponse)
+                out[n++] = i;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,215 @@
+package org.opencv.utils;
+
+import java.nio.ByteBuffer;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * The three planes of a YUV 4:2:0 image as direct ByteBuffers with their row and pixel strides, as
+ * android.media.Image hands them out, and the conversions working on them in place. Kept free of
+ * Android classes so every layout can be exercised with synthetic planes on a desktop JVM;
+ * org.opencv.android.Yuv420Converter fills it from camera images.
+ *
+ * The instance is only a holder: set() it for each image, nothing is copied or retained.
+ */
+public class Yuv420Planes {
+
+    /** chroma interleaved, U first (pixel stride 2, V one byte after U) */
+    public static final int LAYOUT_NV12 = 0;
+    /** chroma interleaved, V first (pixel stride 2, U one byte after V) */
+    public static final int LAYOUT_NV21 = 1;
+    /** chroma planar (pixel stride 1) */
+    public static final int LAYOUT_I420 = 2;
+    /** any other pixel stride, or interleaved planes that do not share a buffer */
+    public static final int LAYOUT_STRIDED = 3;
+    public static final int LAYOUT_COUNT = 4;
+    private static final String[] LAYOUT_NAMES = { "NV12", "NV21", "I420", "strided" };
+
+    private int mWidth;
+    private int mHeight;
+    private ByteBuffer mY;
+    private int mYRowStride;
+    private ByteBuffer mU;
+    private int mURowStride;
+    private int mUPixelStride;
+    private ByteBuffer mV;
+    private int mVRowStride;
+    private int mVPixelStride;
+
+    public static String layoutName(int layout) {
+        return LAYOUT_NAMES[layout];
+    }
+
+    /**
+     * Points the holder at the planes of a width x height image. Buffers must be direct and start
+     * at the first sample of their plane.
+     */
+    public Yuv420Planes set(int width, int height, ByteBuffer y, int yRowStride,
+                            ByteBuffer u, int uRowStride, int uPixelStride,
+                            ByteBuffer v, int vRowStride, int vPixelStride) {
+        mWidth = width;
+        mHeight = height;
+        mY = y;
+        mYRowStride = yRowStride;
+        mU = u;
+        mURowStride = uRowStride;
+        mUPixelStride = uPixelStride;
+        mV = v;
+        mVRowStride = vRowStride;
+        mVPixelStride = vPixelStride;
+        return this;
+    }
+
+    public int width() {
+        return mWidth;
+    }
+
+    public int height() {
+        return mHeight;
+    }
+
+    /**
+     * Detects how the chroma planes are laid out. It does not change between the frames of a
+     * stream, so callers detect it once.
+     */
+    public int layout() {
+        if (mUPixelStride == 1)
+            return LAYOUT_I420;
+        if (mUPixelStride == 2 && mVPixelStride == 2) {
+            Mat u = new Mat(1, 1, CvType.CV_8UC1, mU);
+            Mat v = new Mat(1, 1, CvType.CV_8UC1, mV);
+            long diff = v.dataAddr() - u.dataAddr();
+            u.release();
+            v.release();
+            if (diff == 1)
+                return LAYOUT_NV12;
+            if (diff == -1)
+                return LAYOUT_NV21;
+        }
+        return LAYOUT_STRIDED;
+    }
+
+    /**
+     * Wraps the luma plane without copying. The returned header must be released by the caller.
+     */
+    public Mat wrapLuma() {
+        return new Mat(mHeight, mWidth, CvType.CV_8UC1, mY, mYRowStride);
+    }
+
+    /**
+     * Converts the part of the image inside roi to RGBA, or the whole image if roi is null. The roi
+     * must have even coordinates and size, rgba gets the size of the roi. NV12 / NV21 planes are
+     * converted in place with cvtColorTwoPlane; otherwise luma and chroma are gathered into staging
+     * first, which must be sized for the roi.
+     * @param layout - the layout() of the planes
+     */
+    public void toRgba(int layout, Rect roi, I420Staging staging, Mat rgba) {
+        if (roi == null)
+            roi = new Rect(0, 0, mWidth, mHeight);
+        Rect chromaRoi = new Rect(roi.x / 2, roi.y / 2, roi.width / 2, roi.height / 2);
+
+        Mat y = wrapLuma();
+        Mat yRoi = y.submat(roi);
+        try {
+            if (layout == LAYOUT_NV12 || layout == LAYOUT_NV21) {
+                Mat uv = wrapInterleavedChroma(layout);
+                Mat uvRoi = uv.submat(chromaRoi);
+                Imgproc.cvtColorTwoPlane(yRoi, uvRoi, rgba,
+                        layout == LAYOUT_NV12 ? Imgproc.COLOR_YUV2RGBA_NV12 : Imgproc.COLOR_YUV2RGBA_NV21);
+                uvRoi.release();
+                uv.release();
+            } else {
+                yRoi.copyTo(staging.y());
+                copyChroma(mU, mURowStride, mUPixelStride, mWidth / 2, mHeight / 2, chromaRoi, staging.u());
+                copyChroma(mV, mVRowStride, mVPixelStride, mWidth / 2, mHeight / 2, chromaRoi, staging.v());
+                Imgproc.cvtColor(staging.i420(), rgba, Imgproc.COLOR_YUV2RGBA_I420, 4);
+            }
+        } finally {
+            yRoi.release();
+            y.release();
+        }
+    }
+
+    /**
+     * Returns the chroma samples covering roi (even coordinates and size): for NV12 / NV21 one
+     * CV_8UC2 view in plane order, for I420 the U and V plane views. Strided chroma can not be viewed
+     * as a Mat, it is gathered into staging (sized for the roi) instead. Each returned header must be
+     * released by the caller.
+     * @param layout - the layout() of the planes
+     */
+    public Mat[] wrapChroma(int layout, Rect roi, I420Staging staging) {
+        Rect chromaRoi = new Rect(roi.x / 2, roi.y / 2, roi.width / 2, roi.height / 2);
+
+        if (layout == LAYOUT_NV12 || layout == LAYOUT_NV21) {
+            Mat uv = wrapInterleavedChroma(layout);
+            Mat uvRoi = uv.submat(chromaRoi);
+            uv.release();
+            return new Mat[] { uvRoi };
+        }
+        Mat[] chroma = new Mat[2];
+        if (layout == LAYOUT_I420) {
+            Mat u = new Mat(mHeight / 2, mWidth / 2, CvType.CV_8UC1, mU, mURowStride);
+            Mat v = new Mat(mHeight / 2, mWidth / 2, CvType.CV_8UC1, mV, mVRowStride);
+            chroma[0] = u.submat(chromaRoi);
+            chroma[1] = v.submat(chromaRoi);
+            u.release();
+            v.release();
+        } else {
+            copyChroma(mU, mURowStride, mUPixelStride, mWidth / 2, mHeight / 2, chromaRoi, staging.u());
+            copyChroma(mV, mVRowStride, mVPixelStride, mWidth / 2, mHeight / 2, chromaRoi, staging.v());
+            chroma[0] = staging.u().submat(0, chromaRoi.height, 0, chromaRoi.width);
+            chroma[1] = staging.v().submat(0, chromaRoi.height, 0, chromaRoi.width);
+        }
+        return chroma;
+    }
+
+    /* The UV (NV12) or VU (NV21) plane as h/2 x w/2 CV_8UC2, starting at whichever sample comes first */
+    private Mat wrapInterleavedChroma(int layout) {
+        boolean uFirst = layout == LAYOUT_NV12;
+        return new Mat(mHeight / 2, mWidth / 2, CvType.CV_8UC2, uFirst ? mU : mV, uFirst ? mURowStride : mVRowStride);
+    }
+
+    /**
+     * Copies the roi of one chroma plane (chromaH x chromaW samples) into dst (roi sized, CV_8UC1),
+     * whatever the plane strides.
+     */
+    public static void copyChroma(ByteBuffer buffer, int rowStride, int pixelStride, int chromaW, int chromaH,
+                                  Rect roi, Mat dst) {
+        if (pixelStride == 1) {
+            Mat src = new Mat(chromaH, chromaW, CvType.CV_8UC1, buffer, rowStride);
+            Mat srcRoi = src.submat(roi);
+            srcRoi.copyTo(dst);
+            srcRoi.release();
+            src.release();
+            return;
+        }
+
+        /* Treat the samples as pixelStride-channel pixels and keep channel 0. The plane buffer may end
+         * right after the last sample of the last row, so a full pixel there would read past the end:
+         * the pixel header stops one sample short and the last column goes through a byte header. */
+        int inner = Math.min(roi.width, chromaW - 1 - roi.x);
+        if (inner > 0) {
+            Mat src = new Mat(chromaH, chromaW - 1, CvType.CV_8UC(pixelStride), buffer, rowStride);
+            Mat srcRoi = src.submat(roi.y, roi.y + roi.height, roi.x, roi.x + inner);
+            Mat dstHead = dst.colRange(0, inner);
+            Core.extractChannel(srcRoi, dstHead, 0);
+            dstHead.release();
+            srcRoi.release();
+            src.release();
+        }
+        if (inner < roi.width) {
+            int lastOffset = (chromaW - 1) * pixelStride;
+            Mat bytes = new Mat(chromaH, lastOffset + 1, CvType.CV_8UC1, buffer, rowStride);
+            Mat lastSrc = bytes.submat(roi.y, roi.y + roi.height, lastOffset, lastOffset + 1);
+            Mat lastDst = dst.col(roi.width - 1);
+            lastSrc.copyTo(lastDst);
+            lastDst.release();
+            lastSrc.release();
+            bytes.release();
+        }
+    }
+}
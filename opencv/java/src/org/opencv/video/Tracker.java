@@ -4,6 +4,7 @@
 package org.opencv.video;
 
 import org.opencv.core.Mat;
+import org.opencv.core.NativeMemoryTracker;
 import org.opencv.core.Rect;
 
 // C++: class Tracker
@@ -13,7 +14,7 @@ import org.opencv.core.Rect;
 public class Tracker {
 
     protected final long nativeObj;
-    protected Tracker(long addr) { nativeObj = addr; }
+    protected Tracker(long addr) { nativeObj = addr; NativeMemoryTracker.track(this); }
 
     public long getNativeObjAddr() { return nativeObj; }
 
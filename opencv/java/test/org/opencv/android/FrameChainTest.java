@@ -0,0 +1,77 @@
+package org.opencv.android;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FrameChainTest {
+
+    private static int publish(FrameChain chain) {
+        int slot = chain.acquireWrite();
+        assertTrue(slot >= 0);
+        chain.publish(slot);
+        return slot;
+    }
+
+    @Test
+    public void readDeliversOldestFirst() {
+        FrameChain chain = new FrameChain(3);
+        int a = publish(chain);
+        int b = publish(chain);
+        assertEquals(a, chain.acquireRead());
+        chain.releaseRead(a);
+        assertEquals(b, chain.acquireRead());
+        chain.releaseRead(b);
+        assertEquals(-1, chain.acquireRead());
+        assertEquals(0, chain.getDroppedCount());
+    }
+
+    @Test
+    public void latestDropsOlderFrames() {
+        FrameChain chain = new FrameChain(3);
+        publish(chain);
+        int b = publish(chain);
+        assertEquals(b, chain.acquireLatest());
+        chain.releaseRead(b);
+        // the older frame must not come back after the newer one was delivered
+        assertEquals(-1, chain.acquireLatest());
+        assertEquals(-1, chain.acquireRead());
+        assertEquals(2, chain.getPublishedCount());
+        assertEquals(1, chain.getDroppedCount());
+    }
+
+    @Test
+    public void latestNeverGoesBackInTime() {
+        FrameChain chain = new FrameChain(3);
+        long last = -1;
+        for (int frame = 0; frame < 100; frame++) {
+            int slot = publish(chain);
+            if (frame % 3 == 2) {
+                int latest = chain.acquireLatest();
+                assertEquals(slot, latest);
+                assertTrue(frame > last);
+                last = frame;
+                chain.releaseRead(latest);
+                assertEquals(-1, chain.acquireLatest());
+            }
+        }
+    }
+
+    @Test
+    public void producerRecyclesOldestWhenFull() {
+        FrameChain chain = new FrameChain(2);
+        int a = publish(chain);
+        int b = publish(chain);
+        // both slots hold undelivered frames, the oldest one is overwritten
+        assertEquals(a, publish(chain));
+        assertEquals(1, chain.getDroppedCount());
+        assertEquals(b, chain.acquireRead());
+    }
+
+    @Test
+    public void closedChainClaimsNothing() {
+        FrameChain chain = new FrameChain(2);
+        chain.close();
+        assertEquals(-1, chain.acquireWrite());
+    }
+}
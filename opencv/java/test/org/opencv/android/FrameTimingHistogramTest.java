@@ -0,0 +1,126 @@
+package org.opencv.android;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FrameTimingHistogramTest {
+    private static final long MAX_MICROS = (1L << 31) - 1;
+
+    private static long micros(long us) {
+        return us * 1000;
+    }
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        FrameTimingHistogram h = new FrameTimingHistogram();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getMean(), 0);
+        assertEquals(0, h.getMax());
+        assertEquals(0, h.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void recordsCountMeanAndMax() {
+        FrameTimingHistogram h = new FrameTimingHistogram();
+        h.record(micros(10));
+        h.record(micros(20));
+        h.record(micros(30));
+        h.record(999); // below 1 us
+        assertEquals(4, h.getCount());
+        assertEquals(15, h.getMean(), 1e-9);
+        assertEquals(30, h.getMax());
+
+        h.reset();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getMax());
+        assertEquals(0, h.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        FrameTimingHistogram h = new FrameTimingHistogram();
+        for (int us = 1; us <= 20; us++)
+            h.record(micros(us));
+        assertEquals(10, h.getValueAtPercentile(50));
+        assertEquals(19, h.getValueAtPercentile(95));
+        assertEquals(20, h.getValueAtPercentile(100));
+        assertEquals(1, h.getValueAtPercentile(0));
+    }
+
+    @Test
+    public void bucketsCoverEveryValueOnceWithinPrecision() {
+        int previous = -1;
+        for (long v = 0; v < (1L << 20); v++) {
+            int index = FrameTimingHistogram.indexOf(v);
+            // consecutive values fall into the same or the next bucket
+            assertTrue(index == previous || index == previous + 1);
+            previous = index;
+            long high = FrameTimingHistogram.highestValueOf(index);
+            assertTrue(v <= high);
+            if (index > 0)
+                assertTrue(FrameTimingHistogram.highestValueOf(index - 1) < v);
+            // within 1/16 of the value above the exact range
+            assertTrue(high - v <= Math.max(0, v / 16));
+        }
+    }
+
+    @Test
+    public void percentileIsTheBucketEdgeCappedByMax() {
+        FrameTimingHistogram h = new FrameTimingHistogram();
+        // 32 and 33 share the first two-wide bucket, 34 starts the next one
+        assertEquals(FrameTimingHistogram.indexOf(32), FrameTimingHistogram.indexOf(33));
+        assertEquals(FrameTimingHistogram.indexOf(33) + 1, FrameTimingHistogram.indexOf(34));
+        h.record(micros(32));
+        h.record(micros(34));
+        assertEquals(33, h.getValueAtPercentile(50));
+        // the last bucket would say 35, but nothing above 34 was recorded
+        assertEquals(34, h.getValueAtPercentile(100));
+        assertEquals(34, h.getValueAtPercentile(150));
+
+        // across a power of two: 63 is the last value of the two-wide buckets, 64 starts the four-wide ones
+        FrameTimingHistogram edge = new FrameTimingHistogram();
+        edge.record(micros(63));
+        edge.record(micros(64));
+        edge.record(micros(64));
+        edge.record(micros(70));
+        assertEquals(63, edge.getValueAtPercentile(25));
+        assertEquals(67, edge.getValueAtPercentile(75));
+        assertEquals(70, edge.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void hugeAndNegativeValuesAreClamped() {
+        FrameTimingHistogram h = new FrameTimingHistogram();
+        h.record(-5);
+        h.record(Long.MAX_VALUE);
+        h.record(micros(MAX_MICROS + 12345));
+        assertEquals(3, h.getCount());
+        assertEquals(MAX_MICROS, h.getMax());
+        assertEquals(0, h.getValueAtPercentile(33));
+        assertEquals(MAX_MICROS, h.getValueAtPercentile(50));
+        assertEquals(MAX_MICROS, h.getValueAtPercentile(100));
+        assertEquals(MAX_MICROS, FrameTimingHistogram.highestValueOf(FrameTimingHistogram.indexOf(MAX_MICROS)));
+    }
+
+    @Test
+    public void concurrentRecordingLosesNothing() throws InterruptedException {
+        final FrameTimingHistogram h = new FrameTimingHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int id = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++)
+                        h.record(micros(1 + id * 100 + i % 50));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertEquals(40000, h.getCount());
+        assertEquals(350, h.getMax());
+    }
+}
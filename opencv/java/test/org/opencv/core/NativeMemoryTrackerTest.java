@@ -0,0 +1,96 @@
+package org.opencv.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NativeMemoryTrackerTest {
+
+    @After
+    public void tearDown() {
+        NativeMemoryTracker.disable();
+    }
+
+    private static NativeMemoryTracker.ClassUsage usage(NativeMemoryTracker.Snapshot snapshot, Class<?> cls) {
+        for (NativeMemoryTracker.ClassUsage c : snapshot.classes) {
+            if (c.className.equals(cls.getName()))
+                return c;
+        }
+        return null;
+    }
+
+    @Test
+    public void countsCreatedAndLiveObjects() {
+        NativeMemoryTracker.enable(0, 1);
+        List<Object> owners = new ArrayList<Object>();
+        for (int i = 0; i < 3; i++) {
+            Object owner = new StringBuilder();
+            NativeMemoryTracker.track(owner);
+            owners.add(owner);
+        }
+        NativeMemoryTracker.onFrame();
+        NativeMemoryTracker.ClassUsage c = usage(NativeMemoryTracker.snapshot(), StringBuilder.class);
+        assertNotNull(c);
+        assertEquals(3, c.created);
+        assertEquals(3, c.live);
+        assertEquals(-1, c.liveBytes);
+        assertEquals(3, NativeMemoryTracker.snapshot().survivors.size());
+        assertEquals(3, owners.size());
+    }
+
+    @Test
+    public void disableForgetsEverything() {
+        NativeMemoryTracker.enable(0, 1);
+        Object kept = new StringBuilder();
+        NativeMemoryTracker.track(kept);
+        NativeMemoryTracker.disable();
+        assertFalse(NativeMemoryTracker.isEnabled());
+        assertTrue(NativeMemoryTracker.snapshot().classes.isEmpty());
+
+        NativeMemoryTracker.track(new StringBuilder()); // ignored while disabled
+        NativeMemoryTracker.enable(0, 1);
+        assertTrue(NativeMemoryTracker.snapshot().classes.isEmpty());
+        assertEquals(0, NativeMemoryTracker.getFrame());
+        assertNotNull(kept);
+    }
+
+    @Test
+    public void disableRacingWithTrackLeavesNextSessionUsable() throws Exception {
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final long end = System.nanoTime() + 300000000L;
+        Thread constructor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (System.nanoTime() < end) {
+                        NativeMemoryTracker.track(new Object());
+                        NativeMemoryTracker.onFrame();
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }
+        });
+        constructor.start();
+        while (System.nanoTime() < end) {
+            NativeMemoryTracker.enable(0, 4);
+            NativeMemoryTracker.disable();
+        }
+        constructor.join();
+        assertNull(failure.get());
+
+        // whatever the old sessions left behind gets collected without touching this one
+        NativeMemoryTracker.enable(0, 1);
+        System.gc();
+        NativeMemoryTracker.onFrame();
+        NativeMemoryTracker.Snapshot snapshot = NativeMemoryTracker.snapshot();
+        NativeMemoryTracker.ClassUsage c = usage(snapshot, Object.class);
+        if (c != null)
+            assertTrue(c.released <= c.created);
+    }
+}
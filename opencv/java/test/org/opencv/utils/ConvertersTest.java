@@ -0,0 +1,59 @@
+package org.opencv.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.opencv.core.DMatch;
+import org.opencv.core.KeyPoint;
+
+import static org.junit.Assert.*;
+
+/* the Java halves of the converters, which need no Mat */
+public class ConvertersTest {
+
+    private static final double[] KEYPOINT_ROWS = {
+            1.5, 2.5, 31, 90, 0.25, 0, -1,
+            -3, 4, 12, 180, 0.75, 2, 7 };
+    private static final double[] MATCH_ROWS = {
+            0, 4, 0, 10.5,
+            1, 2, 1, 3.25 };
+
+    @Test
+    public void keyPointArraysMatchObjects() {
+        List<KeyPoint> objects = new ArrayList<KeyPoint>();
+        Converters.doubles_to_vector_KeyPoint(KEYPOINT_ROWS, 2, objects);
+        KeyPointArrays fromDoubles = new KeyPointArrays();
+        Converters.doubles_to_KeyPointArrays(KEYPOINT_ROWS, 2, fromDoubles);
+        float[] floatRows = new float[KEYPOINT_ROWS.length];
+        for (int i = 0; i < floatRows.length; i++)
+            floatRows[i] = (float) KEYPOINT_ROWS[i];
+        KeyPointArrays fromFloats = new KeyPointArrays();
+        Converters.floats_to_KeyPointArrays(floatRows, 2, fromFloats);
+
+        assertEquals(2, objects.size());
+        assertEquals(2, fromDoubles.count);
+        assertEquals(2, fromFloats.count);
+        for (int i = 0; i < 2; i++) {
+            assertEquals(objects.get(i).toString(), fromDoubles.get(i).toString());
+            assertEquals(objects.get(i).toString(), fromFloats.get(i).toString());
+        }
+        assertEquals(2, fromDoubles.octave[1]);
+        assertEquals(7, fromDoubles.classId[1]);
+    }
+
+    @Test
+    public void dMatchArraysMatchObjects() {
+        List<DMatch> objects = new ArrayList<DMatch>();
+        Converters.doubles_to_vector_DMatch(MATCH_ROWS, 2, objects);
+        DMatchArrays matches = new DMatchArrays();
+        matches.mGroups = 2;   /* left over from a knn read */
+        Converters.doubles_to_DMatchArrays(MATCH_ROWS, 2, matches);
+
+        assertEquals(2, matches.count);
+        assertEquals(1, matches.groupCount());
+        for (int i = 0; i < 2; i++)
+            assertEquals(objects.get(i).toString(), matches.get(i).toString());
+        assertEquals(3.25f, matches.distance[1], 0f);
+    }
+}
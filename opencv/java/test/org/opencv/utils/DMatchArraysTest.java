@@ -0,0 +1,55 @@
+package org.opencv.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DMatchArraysTest {
+
+    /* what vector_MatOfDMatch_to_DMatchArrays() leaves for three queries of 2, 1 and 2 matches */
+    private static DMatchArrays knn() {
+        DMatchArrays matches = new DMatchArrays();
+        matches.add(0, 4, 0, 10f);
+        matches.add(0, 7, 0, 40f);
+        matches.add(1, 2, 0, 12f);
+        matches.add(2, 5, 0, 30f);
+        matches.add(2, 1, 0, 32f);
+        matches.mGroupStart = new int[] { 0, 2, 3, 5 };
+        matches.mGroups = 3;
+        return matches;
+    }
+
+    @Test
+    public void ratioTestKeepsDistinctBestMatches() {
+        DMatchArrays matches = knn();
+        assertEquals(3, matches.groupCount());
+        assertEquals(1, matches.groupSize(1));
+        int[] out = new int[matches.groupCount()];
+        /* the single match of query 1 has no second best, query 2 is ambiguous */
+        assertEquals(1, matches.ratioTest(0.75f, out));
+        assertEquals(0, out[0]);
+        assertEquals(2, matches.ratioTest(0.99f, out));
+        assertEquals(3, out[1]);
+    }
+
+    @Test
+    public void addingUngroups() {
+        DMatchArrays matches = knn();
+        matches.add(3, 0, 0, 1f);
+        assertEquals(1, matches.groupCount());
+        assertEquals(matches.count, matches.groupSize(0));
+        matches.clear();
+        assertEquals(0, matches.groupSize(0));
+    }
+
+    @Test
+    public void closestAndFilter() {
+        DMatchArrays matches = knn();
+        int[] out = new int[matches.count];
+        assertEquals(2, matches.closest(2, out));
+        assertEquals(0, out[0]);
+        assertEquals(2, out[1]);
+        assertEquals(3, matches.filterByDistance(31f, out));
+        assertArrayEquals(new int[] { 0, 2, 3 }, new int[] { out[0], out[1], out[2] });
+    }
+}
@@ -0,0 +1,114 @@
+package org.opencv.utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FieldSortTest {
+
+    /* indices of the n best keys by Float.compare, best first, ties in index order */
+    private static int[] reference(float[] keys, int count, int k, boolean largest) {
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            int j = i;
+            while (j > 0 && better(keys, i, order[j - 1], largest)) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = i;
+        }
+        int n = Math.max(0, Math.min(k, count));
+        int[] best = new int[n];
+        System.arraycopy(order, 0, best, 0, n);
+        return best;
+    }
+
+    /* strictly better; the later index never wins a tie */
+    private static boolean better(float[] keys, int a, int b, boolean largest) {
+        int c = Float.compare(keys[a], keys[b]);
+        return largest ? c > 0 : c < 0;
+    }
+
+    private static int[] select(float[] keys, int k, boolean largest) {
+        int[] out = new int[Math.max(0, Math.min(k, keys.length))];
+        int n = FieldSort.select(keys, keys.length, k, largest, out, new long[keys.length]);
+        assertEquals(out.length, n);
+        return out;
+    }
+
+    @Test
+    public void orderedBitsKeepFloatOrder() {
+        float[] sorted = { Float.NEGATIVE_INFINITY, -1e30f, -2.5f, -1f, -Float.MIN_VALUE, -0f, 0f,
+                Float.MIN_VALUE, 1f, 2.5f, 1e30f, Float.POSITIVE_INFINITY };
+        for (int i = 1; i < sorted.length; i++)
+            assertTrue(sorted[i - 1] + " < " + sorted[i],
+                    FieldSort.orderedBits(sorted[i - 1]) < FieldSort.orderedBits(sorted[i]));
+    }
+
+    @Test
+    public void negativeKeys() {
+        float[] keys = { -3f, 2f, -0.5f, -7f, 0f, -0.25f, 5f, -1f, -2f, 1f, -4f, -6f };
+        /* k = 2 of 12 takes the heap, k = 6 the full sort */
+        for (int k : new int[] { 2, 6 }) {
+            assertArrayEquals(reference(keys, keys.length, k, true), select(keys, k, true));
+            assertArrayEquals(reference(keys, keys.length, k, false), select(keys, k, false));
+        }
+        assertArrayEquals(new int[] { 6, 1 }, select(keys, 2, true));
+        assertArrayEquals(new int[] { 3, 11 }, select(keys, 2, false));
+    }
+
+    @Test
+    public void tiesKeepIndexOrder() {
+        float[] keys = new float[16];
+        Arrays.fill(keys, 1f);
+        keys[9] = 2f;
+        assertArrayEquals(new int[] { 9, 0, 1 }, select(keys, 3, true));
+        assertArrayEquals(new int[] { 0, 1, 2 }, select(keys, 3, false));
+        assertArrayEquals(new int[] { 9, 0, 1, 2, 3, 4, 5, 6 }, select(keys, 8, true));
+        assertArrayEquals(new int[] { 0, 1, 2, 3, 4, 5, 6, 7 }, select(keys, 8, false));
+    }
+
+    @Test
+    public void heapAndSortAgreeAroundThreshold() {
+        /* the sort is used from k * 4 >= count: 20 keys switch between k = 4 (heap) and k = 5 */
+        Random random = new Random(3);
+        for (int round = 0; round < 50; round++) {
+            float[] keys = new float[20];
+            for (int i = 0; i < keys.length; i++)
+                keys[i] = random.nextInt(9) - 4;   /* few distinct values, many ties, negatives */
+            for (int k = 3; k <= 6; k++) {
+                assertArrayEquals("k " + k, reference(keys, keys.length, k, true), select(keys, k, true));
+                assertArrayEquals("k " + k, reference(keys, keys.length, k, false), select(keys, k, false));
+            }
+        }
+    }
+
+    @Test
+    public void everyKOnRandomKeys() {
+        Random random = new Random(11);
+        float[] keys = new float[37];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = (float) random.nextGaussian();
+        keys[5] = keys[30];
+        for (int k = 0; k <= keys.length + 2; k++) {
+            assertArrayEquals("k " + k, reference(keys, keys.length, k, true), select(keys, k, true));
+            assertArrayEquals("k " + k, reference(keys, keys.length, k, false), select(keys, k, false));
+        }
+    }
+
+    @Test
+    public void onlyTheFirstCountKeysTakePart() {
+        float[] keys = { 1f, 3f, 2f, 100f };
+        int[] out = new int[3];
+        assertEquals(3, FieldSort.select(keys, 3, 5, true, out, new long[3]));
+        assertArrayEquals(new int[] { 1, 2, 0 }, out);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void outputTooSmall() {
+        FieldSort.select(new float[] { 1f, 2f, 3f }, 3, 2, true, new int[1], new long[3]);
+    }
+}
@@ -0,0 +1,44 @@
+package org.opencv.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class KeyPointArraysTest {
+
+    private static KeyPointArrays withResponses(float... responses) {
+        KeyPointArrays kps = new KeyPointArrays();
+        for (int i = 0; i < responses.length; i++)
+            kps.add(i, 10 * i, 31f, 0f, responses[i], 0, -1);
+        return kps;
+    }
+
+    @Test
+    public void topByResponseStrongestFirst() {
+        KeyPointArrays kps = withResponses(0.1f, 0.9f, 0.5f, 0.9f, 0.3f);
+        int[] out = new int[3];
+        assertEquals(3, kps.topByResponse(3, out));
+        assertArrayEquals(new int[] { 1, 3, 2 }, out);
+        /* only count entries take part, not the spare capacity */
+        kps.count = 2;
+        assertEquals(2, kps.topByResponse(5, out));
+        assertEquals(1, out[0]);
+        assertEquals(0, out[1]);
+    }
+
+    @Test
+    public void filterByResponseKeepsOrder() {
+        KeyPointArrays kps = withResponses(0.1f, 0.9f, 0.5f, 0.9f, 0.3f);
+        int[] out = new int[kps.count];
+        assertEquals(3, kps.filterByResponse(0.5f, out));
+        assertArrayEquals(new int[] { 1, 2, 3 }, new int[] { out[0], out[1], out[2] });
+    }
+
+    @Test
+    public void pointsInterleaved() {
+        KeyPointArrays kps = withResponses(1f, 2f, 3f);
+        float[] xy = new float[6];
+        kps.points(xy);
+        assertArrayEquals(new float[] { 0f, 0f, 1f, 10f, 2f, 20f }, xy, 0f);
+    }
+}